@@ -0,0 +1,93 @@
+package edu.mit.gamedap.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.IOUtils;
+
+import edu.mit.gamedap.generator.synthetic.DialogueCorpusGenerator;
+
+/**
+ * Loads the inputs shared by the benchmarks. Inputs are either one of the bundled dialogue resources or a
+ * scaled-up version of one, built deterministically from a seed so that runs can be compared. The name
+ * {@link BenchmarkInputs#SYNTHETIC} selects a corpus from {@link DialogueCorpusGenerator} instead.
+ */
+public class BenchmarkInputs {
+  public static final String SYNTHETIC = "synthetic";
+  public static final int DEFAULT_SYNTHETIC_LENGTH = 4096;
+
+  private BenchmarkInputs() {
+  }
+
+  /**
+   * Reads a dialogue resource bundled with the generator.
+   *
+   * @param resourceName The name of the resource, e.g. "shortDialogueEx.txt"
+   * @return The contents of the resource
+   */
+  public static String readResource(String resourceName) {
+    try (InputStream is = BenchmarkInputs.class.getClassLoader().getResourceAsStream(resourceName)) {
+      if (is == null) {
+        throw new IllegalArgumentException("No such resource: " + resourceName);
+      }
+      return IOUtils.toString(is, "UTF-8");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Loads a benchmark input.
+   *
+   * @param resourceName The name of the resource to base the input on, or {@link BenchmarkInputs#SYNTHETIC}
+   * @param scaledLength The approximate length of the input in characters; 0 uses the resource unchanged, or
+   *    {@link BenchmarkInputs#DEFAULT_SYNTHETIC_LENGTH} for a synthetic input
+   * @param seed The seed used to scale or generate the input
+   * @return The input text
+   */
+  public static String load(String resourceName, int scaledLength, long seed) {
+    if (resourceName.equals(SYNTHETIC)) {
+      return new DialogueCorpusGenerator(seed).generate(scaledLength > 0 ? scaledLength : DEFAULT_SYNTHETIC_LENGTH);
+    }
+    String text = readResource(resourceName);
+    return scaledLength > 0 ? scale(text, scaledLength, seed) : text;
+  }
+
+  /**
+   * Builds a longer text from the lines of a shorter one, choosing lines at random. The result keeps the
+   * line-level format of the original, which is what the parsers learn.
+   *
+   * @param text The original text
+   * @param targetLength The minimum length of the result
+   * @param seed The seed for the random line selection
+   * @return A text of at least targetLength characters
+   */
+  public static String scale(String text, int targetLength, long seed) {
+    List<String> lines = Arrays.stream(text.split("\n"))
+      .filter(line -> line.length() > 0)
+      .collect(Collectors.toList());
+    Random random = new Random(seed);
+    StringBuilder result = new StringBuilder(targetLength + 256);
+    while (result.length() < targetLength) {
+      result.append(lines.get(random.nextInt(lines.size()))).append('\n');
+    }
+    return result.toString();
+  }
+
+  /**
+   * Finds the set of characters used in a text.
+   *
+   * @param text The input text
+   * @return A set containing every character that appears in the input
+   */
+  public static Set<Character> characterSet(String text) {
+    return text.chars()
+      .mapToObj(c -> (char) c)
+      .collect(Collectors.toSet());
+  }
+}
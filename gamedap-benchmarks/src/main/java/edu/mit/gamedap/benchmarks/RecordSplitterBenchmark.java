@@ -0,0 +1,75 @@
+package edu.mit.gamedap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.gamedap.generator.RecordSplitter;
+
+/**
+ * Measures splitting an input into records of a fixed format with {@link RecordSplitter}, compared with an
+ * equivalent regular expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordSplitterBenchmark {
+  @Param({"shortDialogueEx.txt"})
+  public String resource;
+
+  @Param({"0", "1048576"})
+  public int scaledLength;
+
+  @Param({".* (.*): .*\n"})
+  public String recordFormat;
+
+  @Param({"42"})
+  public long seed;
+
+  private String text;
+  private RecordSplitter splitter;
+  private Pattern pattern;
+
+  @Setup
+  public void setup() {
+    text = BenchmarkInputs.load(resource, scaledLength, seed);
+    splitter = new RecordSplitter(recordFormat);
+    StringBuilder regex = new StringBuilder("(?s)");
+    for (String delimiter : splitter.getDelimiters()) {
+      regex.append("(.*?)").append(Pattern.quote(delimiter));
+    }
+    pattern = Pattern.compile(regex.toString());
+  }
+
+  @Benchmark
+  public int recordSplitter() {
+    int[] count = new int[1];
+    splitter.split(text, (t, start, delimiterStarts, delimiterEnds, end) -> count[0] += end - start);
+    return count[0];
+  }
+
+  @Benchmark
+  public int regex() {
+    int count = 0;
+    Matcher matcher = pattern.matcher(text);
+    while (matcher.find()) {
+      count += matcher.end() - matcher.start();
+    }
+    return count;
+  }
+}
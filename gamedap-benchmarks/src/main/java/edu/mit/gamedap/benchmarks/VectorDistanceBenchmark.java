@@ -0,0 +1,87 @@
+package edu.mit.gamedap.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+import edu.mit.gamedap.generator.parsers.MetaLearningPrimer;
+import edu.mit.gamedap.generator.parsers.PositionalLearningPrimer;
+import edu.mit.gamedap.generator.parsers.StringParseLearningPrimer;
+
+/**
+ * Measures {@link Vector#distance(Vector, double)} for each vector type, comparing every window of an input
+ * with the window following it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorDistanceBenchmark {
+  @Param({"shortDialogueEx.txt"})
+  public String resource;
+
+  @Param({"0", "65536"})
+  public int scaledLength;
+
+  @Param({"2", "8"})
+  public int w;
+
+  @Param({"42"})
+  public long seed;
+
+  private List<Vector<EmptyContext, Character>> stringWindows;
+  private List<Vector<LinePositionContext, Character>> positionWindows;
+  private List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> metaWindows;
+
+  @Setup
+  public void setup() {
+    String text = BenchmarkInputs.load(resource, scaledLength, seed);
+    Set<Character> characterSet = BenchmarkInputs.characterSet(text);
+    stringWindows = new StringParseLearningPrimer().makeSubstringVectors(text, w, characterSet);
+    positionWindows = new PositionalLearningPrimer().makeSubstringVectors(text, w, characterSet);
+    metaWindows = new MetaLearningPrimer().makeSubstringVectors(text, w, characterSet);
+  }
+
+  private static <C extends VectorContext, T> double sumDistances(
+      List<Vector<C, T>> windows) {
+    double total = 0;
+    for (int i = 1; i < windows.size(); i++) {
+      total += windows.get(i - 1).distance(windows.get(i), 1.3);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public double stringVector() {
+    return sumDistances(stringWindows);
+  }
+
+  @Benchmark
+  public double linePositionStringVector() {
+    return sumDistances(positionWindows);
+  }
+
+  @Benchmark
+  public double metaVector() {
+    return sumDistances(metaWindows);
+  }
+}
@@ -0,0 +1,196 @@
+package edu.mit.gamedap.generator.learners;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.gamedap.benchmarks.BenchmarkInputs;
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorCluster;
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+import edu.mit.gamedap.generator.parsers.MetaLearningPrimer;
+import edu.mit.gamedap.generator.parsers.PositionalLearningPrimer;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+import edu.mit.gamedap.generator.parsers.StringParseLearningPrimer;
+
+/**
+ * Measures the learners' hot paths: selecting winning neurons, a single training epoch, and clustering
+ * every stimulus. Lives in the learners package so that it can reach the package-private
+ * {@link CompetitiveLearner#getWinningNeurons(Vector, int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LearnerBenchmark {
+  public enum LearnerType {
+    STRING, FSCL_STRING, POSITION, FSCL_POSITION, META, FSCL_META
+  }
+
+  @Param({"STRING", "FSCL_STRING", "POSITION", "FSCL_POSITION", "META", "FSCL_META"})
+  public LearnerType learner;
+
+  @Param({"shortDialogueEx.txt"})
+  public String resource;
+
+  @Param({"0", "16384"})
+  public int scaledLength;
+
+  @Param({"100"})
+  public int neuronCount;
+
+  @Param({"2"})
+  public int w;
+
+  @Param({"42"})
+  public long seed;
+
+  private Fixture<?, ?> fixture;
+  private int nextStimulus = 0;
+
+  /**
+   * Keeps a learner together with the stimuli it was initialized with, so the benchmarks do not need to
+   * know the vector types.
+   */
+  static class Fixture<C extends VectorContext, T> {
+    private final CompetitiveLearner<C, T> learner;
+    private final List<Vector<C, T>> stimuli;
+    private final int neuronCount;
+    private final long seed;
+
+    Fixture(CompetitiveLearner<C, T> learner, List<Vector<C, T>> stimuli, int neuronCount, long seed) {
+      this.learner = learner;
+      this.stimuli = stimuli;
+      this.neuronCount = neuronCount;
+      this.seed = seed;
+      this.reset();
+    }
+
+    /**
+     * Starts the learner over from the same seeded neurons.
+     */
+    void reset() {
+      learner.setSeed(seed);
+      learner.initialize(neuronCount, stimuli);
+    }
+
+    int size() {
+      return stimuli.size();
+    }
+
+    List<Vector<C, T>> winningNeurons(int stimulusIndex) {
+      return learner.getWinningNeurons(stimuli.get(stimulusIndex), 2);
+    }
+
+    void trainEpoch() {
+      learner.train(1);
+    }
+
+    List<VectorCluster<C, T>> cluster() {
+      return learner.cluster();
+    }
+  }
+
+  private static long getMaxPosition(List<? extends Vector<LinePositionContext, ?>> windows) {
+    long maxPosition = 0;
+    for (Vector<LinePositionContext, ?> window : windows) {
+      maxPosition = Math.max(maxPosition, window.getContext().getPositionIndex());
+    }
+    return maxPosition;
+  }
+
+  @Setup
+  public void setup() {
+    String text = BenchmarkInputs.load(resource, scaledLength, seed);
+    Set<Character> characterSet = BenchmarkInputs.characterSet(text);
+    double learningRate = SampsonParser.DEFAULT_LEARNING_RATE;
+    double contextWeight = 1.3;
+
+    switch (learner) {
+      case STRING:
+      case FSCL_STRING: {
+        List<Vector<EmptyContext, Character>> windows =
+          new StringParseLearningPrimer().makeSubstringVectors(text, w, characterSet);
+        fixture = new Fixture<>(learner == LearnerType.STRING ?
+          new StringCompetitiveLearner(learningRate, contextWeight, characterSet) :
+          new FSCLStringLearner(learningRate, contextWeight, characterSet), windows, neuronCount, seed);
+        break;
+      }
+      case POSITION:
+      case FSCL_POSITION: {
+        List<Vector<LinePositionContext, Character>> windows =
+          new PositionalLearningPrimer().makeSubstringVectors(text, w, characterSet);
+        long maxPosition = getMaxPosition(windows);
+        fixture = new Fixture<>(learner == LearnerType.POSITION ?
+          new PositionStringCompetitiveLearner(learningRate, contextWeight, maxPosition, characterSet) :
+          new FSCLPositionStringLearner(learningRate, contextWeight, maxPosition, characterSet), windows, neuronCount,
+          seed);
+        break;
+      }
+      case META:
+      case FSCL_META: {
+        List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> windows =
+          new MetaLearningPrimer().makeSubstringVectors(text, w, characterSet);
+        long maxPosition = getMaxPosition(windows);
+        fixture = new Fixture<>(learner == LearnerType.META ?
+          new MetaCompetitiveLearner(learningRate, contextWeight, maxPosition, characterSet,
+            MetaLearningPrimer.DEFAULT_MAX_DEPTH, MetaLearningPrimer.DEFAULT_DEPTH_INCREASE_PROBABILITY,
+            MetaLearningPrimer.DEFAULT_DEPTH_INCREASE_MAX_LENGTH, MetaLearningPrimer.DEFAULT_SUB_CONTEXT_WEIGHT,
+            MetaLearningPrimer.DEFAULT_SUB_VECTOR_LENGTH_MISMATCH_DISTANCE) :
+          new FSCLMetaLearner(learningRate, contextWeight, maxPosition, characterSet,
+            MetaLearningPrimer.DEFAULT_MAX_DEPTH, MetaLearningPrimer.DEFAULT_DEPTH_INCREASE_PROBABILITY,
+            MetaLearningPrimer.DEFAULT_DEPTH_INCREASE_MAX_LENGTH, MetaLearningPrimer.DEFAULT_SUB_CONTEXT_WEIGHT,
+            MetaLearningPrimer.DEFAULT_SUB_VECTOR_LENGTH_MISMATCH_DISTANCE), windows, neuronCount, seed);
+        break;
+      }
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<?> getWinningNeurons() {
+    nextStimulus = (nextStimulus + 1) % fixture.size();
+    return fixture.winningNeurons(nextStimulus);
+  }
+
+  /**
+   * Starts the learner over before every invocation of {@link LearnerBenchmark#trainEpoch(FreshLearner)}, so that
+   * each one trains the first epoch from the same neurons instead of continuing from where the previous ones
+   * left them. The other benchmarks keep the learner from the trial's setup.
+   */
+  @State(Scope.Thread)
+  public static class FreshLearner {
+    @Setup(Level.Invocation)
+    public void reset(LearnerBenchmark benchmark) {
+      benchmark.fixture.reset();
+    }
+  }
+
+  @Benchmark
+  public void trainEpoch(FreshLearner freshLearner) {
+    fixture.trainEpoch();
+  }
+
+  @Benchmark
+  public List<?> cluster() {
+    return fixture.cluster();
+  }
+}
@@ -0,0 +1,128 @@
+package edu.mit.gamedap.generator.parsers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.gamedap.benchmarks.BenchmarkInputs;
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorCluster;
+import edu.mit.gamedap.generator.learners.NeuronSeeding;
+
+/**
+ * Measures the parser stages that follow clustering (popularity calculation and delimiter identification),
+ * and the full parse from text to results. Lives in the parsers package so that it can reach the
+ * package-private {@link SampsonParser#calculateVectorPopularities(List)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+  @Param({"shortDialogueEx.txt", "dialoguePom1.txt", "dialogueSifu0-reg.txt", "structuredParseEx.txt", "synthetic"})
+  public String resource;
+
+  @Param({"0", "16384"})
+  public int scaledLength;
+
+  @Param({"100"})
+  public int neuronCount;
+
+  @Param({"5"})
+  public int trainingEpochs;
+
+  @Param({"2"})
+  public int w;
+
+  @Param({"42"})
+  public long seed;
+
+  /**
+   * Seeds the parse's learner, whose neurons start from copies of the substring vectors, so that every parse
+   * trains the same way. It is kept apart from the input seed because some learners trained for so few epochs
+   * find no delimiters, which the parser cannot handle; this one finds some in every input.
+   */
+  @Param({"1"})
+  public long learnerSeed;
+
+  private String text;
+  private MetaSampsonParser parser;
+  private MetaLearningPrimer primer;
+  private List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings;
+  private List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> trainedClusters;
+  private Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities;
+  private double popularityThreshold;
+
+  @Setup
+  public void setup() {
+    text = BenchmarkInputs.load(resource, scaledLength, seed);
+    parser = new MetaSampsonParser(w, SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH,
+      SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO / 1.5);
+    primer = new MetaLearningPrimer(neuronCount, SampsonParser.DEFAULT_LEARNING_RATE, trainingEpochs, 1.3,
+      2, 0.025, 16, 1.5, 1);
+    primer.setTrainingEnsemble(TrainingEnsemble.restarts(1, learnerSeed));
+    primer.setSeeding(NeuronSeeding.distinctStimuli());
+
+    Set<Character> characterSet = parser.buildCharacterSet(text);
+    substrings = primer.makeSubstringVectors(text, w, characterSet);
+    trainedClusters = primer.assignVectorClusters(substrings, characterSet);
+    popularities = parser.calculateVectorPopularities(trainedClusters);
+    popularityThreshold = popularities.values().stream()
+      .filter(p -> p > 0)
+      .min(Double::compare)
+      .orElse(1.0);
+  }
+
+  /**
+   * Gives every invocation of {@link ParserBenchmark#calculateVectorPopularities(FreshClusters)} uncached copies
+   * of the trained clusters, as clusters cache their distance statistics. The other benchmarks skip the copy.
+   */
+  @State(Scope.Thread)
+  public static class FreshClusters {
+    private List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> clusters;
+
+    @Setup(Level.Invocation)
+    public void copyClusters(ParserBenchmark benchmark) {
+      clusters = new ArrayList<>();
+      for (VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> cluster :
+          benchmark.trainedClusters) {
+        clusters.add(new VectorCluster<>(cluster.getCenter(), cluster.getVectors()));
+      }
+    }
+  }
+
+  @Benchmark
+  public Map<?, Double> calculateVectorPopularities(FreshClusters freshClusters) {
+    return parser.calculateVectorPopularities(freshClusters.clusters);
+  }
+
+  @Benchmark
+  public List<String> findDelimiters() {
+    return parser.findDelimiters(text, substrings, popularities, popularityThreshold);
+  }
+
+  @Benchmark
+  public SampsonParser<?, ?>.ParseResults parse() {
+    return parser.parse(text, primer);
+  }
+}
@@ -0,0 +1,347 @@
+package edu.mit.gamedap.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * Learns the formats of many dialogue files at once, writing the parse results and a grammar for each file.
+ * Files are read and written on an I/O pool, while the (CPU-bound) learning is done on a pool sized to the
+ * number of available processors. A failure in one file is recorded and does not stop the rest of the batch.
+ */
+public class BatchGrammarGenerator {
+  public static final String RESULTS_FILE_NAME = "ParseResults.txt";
+
+  private static final String GLOB_CHARACTERS = "*?[{";
+
+  /**
+   * Learns the format of a single input text.
+   */
+  public interface FormatLearner {
+    public SampsonParser<?, ?>.ParseResults learn(String text);
+  }
+
+  /**
+   * The outcome of processing a single file.
+   */
+  public static class FileResult {
+    private final Path input;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final Throwable error;
+
+    FileResult(Path input, long bytes, long elapsedNanos, Throwable error) {
+      this.input = input;
+      this.bytes = bytes;
+      this.elapsedNanos = elapsedNanos;
+      this.error = error;
+    }
+
+    public Path getInput() {
+      return input;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public boolean isSuccess() {
+      return error == null;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("<FileResult: %s, %s, %.1f ms>", input, isSuccess() ? "ok" : error,
+        elapsedNanos / 1e6);
+    }
+  }
+
+  private final FormatLearner learner;
+  private final int parseThreads;
+
+  /**
+   * Initializes a batch generator that learns formats with the same parameters as
+   * {@link GrammarGeneratorExample}, using one parse thread per available processor.
+   */
+  public BatchGrammarGenerator() {
+    this.learner = GrammarGeneratorExample::learnFormat;
+    this.parseThreads = Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * @param learner The function used to learn the format of each file; called concurrently, so it should not
+   *    share mutable state between calls
+   * @param parseThreads The maximum number of files to learn at the same time
+   */
+  public BatchGrammarGenerator(FormatLearner learner, int parseThreads) {
+    assert(parseThreads > 0);
+    this.learner = learner;
+    this.parseThreads = parseThreads;
+  }
+
+  /**
+   * Finds the input files described by a directory or a glob pattern. A directory matches the regular files
+   * directly inside it, a single file matches itself, and a glob (e.g. "scripts/**&#47;*.txt") is matched
+   * against every file below its longest non-pattern prefix.
+   *
+   * @param directoryOrGlob A directory path or a glob pattern
+   * @return The matching files, sorted by path
+   * @throws IOException if the directory could not be read
+   */
+  public static List<Path> findInputs(String directoryOrGlob) throws IOException {
+    int patternStart = getGlobPatternStart(directoryOrGlob);
+    if (patternStart < 0) {
+      Path path = Paths.get(directoryOrGlob);
+      if (Files.isRegularFile(path)) {
+        return Collections.singletonList(path);
+      }
+      try (Stream<Path> files = Files.list(path)) {
+        return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+    }
+
+    // The pattern is matched against paths relative to its base, as walking "." yields "./x.txt" rather than "x.txt"
+    Path directory = Paths.get(patternStart == 0 ? "." : directoryOrGlob.substring(0, Math.max(patternStart - 1, 1)));
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob.substring(patternStart));
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile)
+        .filter(file -> matcher.matches(directory.relativize(file)))
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * @param directoryOrGlob A directory path or a glob pattern
+   * @return The index just after the last separator before the first glob character, or -1 if there is no glob
+   *         character
+   */
+  private static int getGlobPatternStart(String directoryOrGlob) {
+    int firstGlobCharacter = directoryOrGlob.length();
+    for (char c : GLOB_CHARACTERS.toCharArray()) {
+      int index = directoryOrGlob.indexOf(c);
+      if (index >= 0) {
+        firstGlobCharacter = Math.min(firstGlobCharacter, index);
+      }
+    }
+    if (firstGlobCharacter == directoryOrGlob.length()) {
+      return -1;
+    }
+    return directoryOrGlob.lastIndexOf('/', firstGlobCharacter) + 1;
+  }
+
+  /**
+   * Learns the format of every input file, writing the results for a file named "name.txt" to
+   * outputDirectory/name/, where name keeps the file's path relative to the closest directory containing every
+   * input (see {@link BatchGrammarGenerator#getOutputDirectories(List, Path)}). Inputs whose results would be
+   * written to the same directory (e.g. "x.txt" and "x.csv") fail without being read. Blocks until the whole
+   * batch is done.
+   *
+   * @param inputs The files to process
+   * @param outputDirectory The directory to write results to
+   * @return The outcome for each input, in the same order as the inputs
+   */
+  public List<FileResult> run(List<Path> inputs, Path outputDirectory) {
+    List<Path> outputs = getOutputDirectories(inputs, outputDirectory);
+    Map<Path, Long> outputUses = outputs.stream()
+      .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+    ExecutorService ioPool = Executors.newCachedThreadPool();
+    ExecutorService parsePool = Executors.newFixedThreadPool(this.parseThreads);
+    try {
+      List<CompletableFuture<FileResult>> futures = new ArrayList<>();
+      for (int i = 0; i < inputs.size(); i++) {
+        Path output = outputs.get(i);
+        if (outputUses.get(output) > 1) {
+          futures.add(CompletableFuture.completedFuture(new FileResult(inputs.get(i), 0, 0,
+            new IOException("Output directory " + output + " is shared with another input"))));
+        } else {
+          futures.add(this.process(inputs.get(i), output, ioPool, parsePool));
+        }
+      }
+      return futures.stream()
+        .map(CompletableFuture::join)
+        .collect(Collectors.toList());
+    } finally {
+      ioPool.shutdown();
+      parsePool.shutdown();
+    }
+  }
+
+  private CompletableFuture<FileResult> process(Path input, Path output,
+      ExecutorService ioPool, ExecutorService parsePool) {
+    long start = System.nanoTime();
+    long[] bytes = new long[1];
+    return CompletableFuture
+      .supplyAsync(() -> {
+        byte[] content = readFile(input);
+        bytes[0] = content.length;
+        return new String(content, StandardCharsets.UTF_8);
+      }, ioPool)
+      .thenApplyAsync(text -> this.learner.learn(text), parsePool)
+      .thenAcceptAsync(results -> writeResults(results, output), ioPool)
+      .handle((ignored, error) -> new FileResult(input, bytes[0], System.nanoTime() - start,
+        error == null ? null : unwrap(error)));
+  }
+
+  /**
+   * Chooses the directory that each input's results are written to: the input's path relative to the closest
+   * directory containing every input, without its file extension. Inputs found in a single directory keep
+   * their base names, while e.g. "a/x.txt" and "b/x.txt" are written to "a/x" and "b/x".
+   *
+   * @param inputs The files to process
+   * @param outputDirectory The directory to write results to
+   * @return The output directory of each input, in the same order as the inputs; inputs that differ only in
+   *    their extension share a directory
+   */
+  static List<Path> getOutputDirectories(List<Path> inputs, Path outputDirectory) {
+    List<Path> absoluteInputs = inputs.stream()
+      .map(input -> input.toAbsolutePath().normalize())
+      .collect(Collectors.toList());
+    Path root = null;
+    for (Path input : absoluteInputs) {
+      Path parent = input.getParent();
+      if (root == null) {
+        root = parent;
+      }
+      while (!parent.startsWith(root)) {
+        root = root.getParent();
+      }
+    }
+
+    List<Path> result = new ArrayList<>();
+    for (Path input : absoluteInputs) {
+      Path relative = root.relativize(input);
+      result.add(outputDirectory.resolve(relative.resolveSibling(getOutputName(relative))));
+    }
+    return result;
+  }
+
+  private static String getOutputName(Path input) {
+    String fileName = input.getFileName().toString();
+    int extension = fileName.lastIndexOf('.');
+    return extension > 0 ? fileName.substring(0, extension) : fileName;
+  }
+
+  private static byte[] readFile(Path input) {
+    try {
+      return Files.readAllBytes(input);
+    } catch (IOException e) {
+      throw new BatchException(e);
+    }
+  }
+
+  /**
+   * Writes the record format, fields and grammar for a single file's results.
+   */
+  static void writeResults(SampsonParser<?, ?>.ParseResults results, Path directory) {
+    try {
+      Files.createDirectories(directory);
+      try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(RESULTS_FILE_NAME))) {
+        writer.write(results.getRecordFormat());
+        writer.newLine();
+        if (results.getParentFormat().isPresent()) {
+          writer.write(results.getParentFormat().get().getRecordFormat());
+        }
+        writer.newLine();
+        for (List<String> fieldSet : results.getRecordFields()) {
+          writer.write(fieldSet.toString());
+          writer.newLine();
+        }
+      }
+      try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(GrammarBuilder.FILE_NAME))) {
+        writer.write(GrammarBuilder.build(results));
+      }
+    } catch (IOException e) {
+      throw new BatchException(e);
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    while ((error instanceof CompletionException || error instanceof BatchException)
+        && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error;
+  }
+
+  /**
+   * Carries checked I/O failures through the asynchronous stages.
+   */
+  private static class BatchException extends RuntimeException {
+    BatchException(IOException cause) {
+      super(cause);
+    }
+  }
+
+  /**
+   * Prints the outcome of each failed file and a throughput summary.
+   *
+   * @param results The outcomes of a batch
+   * @param wallNanos The time taken by the whole batch
+   */
+  public static void printSummary(List<FileResult> results, long wallNanos) {
+    long succeeded = results.stream().filter(FileResult::isSuccess).count();
+    long totalBytes = results.stream().mapToLong(FileResult::getBytes).sum();
+    for (FileResult result : results) {
+      if (!result.isSuccess()) {
+        System.out.println("FAILED " + result);
+      }
+    }
+
+    double seconds = wallNanos / 1e9;
+    System.out.println(String.format("Processed %d files (%d succeeded, %d failed) in %.2f s",
+      results.size(), succeeded, results.size() - succeeded, seconds));
+    System.out.println(String.format("Throughput: %.2f files/s, %.1f KB/s",
+      results.size() / seconds, totalBytes / 1024.0 / seconds));
+  }
+
+  /**
+   * Usage: BatchGrammarGenerator &lt;directory or glob&gt; &lt;output directory&gt; [parse threads]
+   */
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.out.println("Usage: BatchGrammarGenerator <directory or glob> <output directory> [parse threads]");
+      return;
+    }
+
+    try {
+      List<Path> inputs = findInputs(args[0]);
+      BatchGrammarGenerator generator = args.length > 2 ?
+        new BatchGrammarGenerator(GrammarGeneratorExample::learnFormat, Integer.parseInt(args[2])) :
+        new BatchGrammarGenerator();
+
+      long start = System.nanoTime();
+      List<FileResult> results = generator.run(inputs, Paths.get(args[1]));
+      printSummary(results, System.nanoTime() - start);
+    } catch (IOException e) {
+      System.out.println(e);
+    }
+  }
+}
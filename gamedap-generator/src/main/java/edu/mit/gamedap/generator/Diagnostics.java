@@ -0,0 +1,73 @@
+package edu.mit.gamedap.generator;
+
+import java.util.function.Supplier;
+
+/**
+ * A sink for the debugging output of the parsers and learners. Messages are passed as suppliers so that
+ * they are only built when the sink accepts their level; the default sink, {@link Diagnostics#NONE},
+ * accepts nothing.
+ */
+public interface Diagnostics {
+
+  /**
+   * Message levels, from the most to the least verbose.
+   */
+  public enum Level {
+    DEBUG, INFO, WARN
+  }
+
+  /**
+   * A sink that discards every message without building it.
+   */
+  public static final Diagnostics NONE = new Diagnostics() {
+    @Override
+    public boolean isEnabled(Level level) {
+      return false;
+    }
+
+    @Override
+    public void emit(Level level, String message) {
+    }
+  };
+
+  /**
+   * Checks whether messages of a level would be emitted. Callers should check this before doing any work
+   * that is only needed for a message.
+   * 
+   * @param level The message level
+   * @return true if messages of the level are emitted
+   */
+  public boolean isEnabled(Level level);
+
+  /**
+   * Emits a message that has already been built.
+   * 
+   * @param level The message level
+   * @param message The message text
+   */
+  public void emit(Level level, String message);
+
+  /**
+   * Builds and emits a message, if its level is enabled.
+   * 
+   * @param level The message level
+   * @param message Builds the message text; not called if the level is disabled
+   */
+  public default void report(Level level, Supplier<String> message) {
+    if (this.isEnabled(level)) {
+      this.emit(level, message.get());
+    }
+  }
+
+  public default void debug(Supplier<String> message) {
+    this.report(Level.DEBUG, message);
+  }
+
+  public default void info(Supplier<String> message) {
+    this.report(Level.INFO, message);
+  }
+
+  public default void warn(Supplier<String> message) {
+    this.report(Level.WARN, message);
+  }
+}
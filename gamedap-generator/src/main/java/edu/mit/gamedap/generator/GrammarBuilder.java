@@ -0,0 +1,152 @@
+package edu.mit.gamedap.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * Converts the results of a parse into an ANTLR grammar, where the delimiters of the record format become
+ * lexer tokens and the text between them is matched by a generic pair rule. Text is lexed in runs rather than a
+ * token per character, which keeps the token stream and parse tree proportional to the number of records.
+ */
+public class GrammarBuilder {
+  public static final String GRAMMAR_NAME = "GeneratedGrammar";
+  public static final String FILE_NAME = GRAMMAR_NAME + ".g4";
+
+  private static final String BASIC_FORMAT_START =
+      "grammar " + GRAMMAR_NAME + ";\n" +
+      "dialogue: (title)* (";
+  private static final String BASIC_FORMAT_CONT =
+      "section\n" +
+      "    : (title)? (pair)+ ;\n" +
+      "title: (TEXT | NEW_LINE)+ ;\n" +
+      "pair: ";
+  private static final String BASIC_FORMAT_LEXER =
+      "// default lexer\n" +
+      "NEW_LINE : [\\n\\r\\f]+ ;\n";
+  private static final String NEW_LINE_CHARACTERS = "\n\r\f";
+
+  /**
+   * Splits a record format into its delimiters.
+   *
+   * @param recordFormat A record format, as from {@link SampsonParser.ParseResults#getRecordFormat()}
+   * @return The non-empty delimiters of the format, in order
+   */
+  public static List<String> getRecordDelimiters(String recordFormat) {
+    // temporary approach to printing out format: parse out .* and newlines, replace with lexer tokens
+    return Arrays.stream(recordFormat.split("\\.\\*"))
+      .filter(d -> d.length() > 0)
+      .toList();
+  }
+
+  /**
+   * Generates a grammar for the format described by a set of parse results. If the results have a parent
+   * format, its delimiters are used to separate sections.
+   *
+   * @param results The results of parsing an input text
+   * @return The text of an ANTLR grammar named {@link GrammarBuilder#GRAMMAR_NAME}
+   */
+  public static String build(SampsonParser<?, ?>.ParseResults results) {
+    StringBuilder generatedLexer = new StringBuilder();
+    StringBuilder generatedParser = new StringBuilder();
+
+    Set<Character> delimiterStarts = new TreeSet<>();
+    if (results.getParentFormat().isPresent()) {
+      List<String> sectionDelimiters = getRecordDelimiters(results.getParentFormat().get().getRecordFormat());
+      sectionDelimiters.forEach(d -> delimiterStarts.add(d.charAt(0)));
+      for (int i = 0; i < sectionDelimiters.size(); i ++) {
+        generatedLexer.append(String.format("PTOKEN%s : '%s' ;\n", i, escapeLiteral(sectionDelimiters.get(i))));
+        generatedParser.append(String.format("PTOKEN%s? section ", i));
+      }
+      generatedParser.append(")+ EOF ;\n");
+    } else {
+      generatedParser.append("section)+ EOF ;\n");
+    }
+    generatedParser.append(BASIC_FORMAT_CONT);
+
+    List<String> recordDelimiters = getRecordDelimiters(results.getRecordFormat());
+    recordDelimiters.forEach(d -> delimiterStarts.add(d.charAt(0)));
+    for (int i = 0; i < recordDelimiters.size(); i ++) {
+      generatedLexer.append(String.format("TOKEN%s : '%s' ;\n", i, escapeLiteral(recordDelimiters.get(i))));
+
+      int nextIdx = (i+1) % recordDelimiters.size();
+      String chainSymbol = nextIdx == 0 ? "+" : "*";
+      generatedParser.append(String.format("TOKEN%s? (TEXT | NEW_LINE)%s ", i, chainSymbol));
+    }
+
+    return BASIC_FORMAT_START + generatedParser + ";\n" + generatedLexer + BASIC_FORMAT_LEXER
+      + buildTextRule(delimiterStarts);
+  }
+
+  /**
+   * Builds the lexer rule for text between delimiters. Text is lexed in runs that stop before any character a
+   * delimiter can start with, so that delimiters are still found by longest match; such a character is lexed
+   * as text on its own when no delimiter matches there.
+   *
+   * @param delimiterStarts The first characters of every delimiter token
+   * @return The TEXT lexer rule
+   */
+  static String buildTextRule(Set<Character> delimiterStarts) {
+    StringBuilder starts = new StringBuilder();
+    for (char c : delimiterStarts) {
+      if (NEW_LINE_CHARACTERS.indexOf(c) < 0) {
+        starts.append(escapeSetCharacter(c));
+      }
+    }
+    if (starts.length() == 0) {
+      return "TEXT : ~[\\n\\r\\f]+ ;";
+    }
+    return String.format("TEXT : ~[\\n\\r\\f%s]+ | [%s] ;", starts, starts);
+  }
+
+  private static String escapeSetCharacter(char c) {
+    switch (c) {
+      case ']':
+      case '\\':
+      case '-':
+        return "\\" + c;
+      case '\t':
+        return "\\t";
+      default:
+        return Character.isISOControl(c) ? String.format("\\u%04X", (int) c) : String.valueOf(c);
+    }
+  }
+
+  /**
+   * Escapes a delimiter for use in an ANTLR string literal.
+   *
+   * @param delimiter The delimiter text
+   * @return The text with quotes, backslashes and whitespace control characters escaped
+   */
+  static String escapeLiteral(String delimiter) {
+    StringBuilder result = new StringBuilder(delimiter.length());
+    for (char c : delimiter.toCharArray()) {
+      switch (c) {
+        case '\'':
+          result.append("\\'");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        case '\f':
+          result.append("\\f");
+          break;
+        default:
+          result.append(c);
+      }
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,313 @@
+package edu.mit.gamedap.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * An on-disk cache of learned formats, so that unchanged inputs do not need to be learned again. Entries are
+ * keyed by a SHA-256 hash of the input text, a description of the parameters used to learn it, and the
+ * version of the generator's code (a hash of its compiled classes), and each one stores the parse results
+ * along with the generated grammar. When the cache grows past its size limit, the least recently used
+ * entries are removed.
+ */
+public class GrammarCache {
+  public static final String RESULTS_FILE_NAME = "ParseResults.bin";
+
+  private static final int RESULTS_FORMAT_VERSION = 1;
+  private static final String TEMPORARY_PREFIX = "tmp-";
+
+  private static String codeVersion = null;
+
+  /**
+   * A cached format: the parse results and the grammar generated from them.
+   */
+  public static class Entry<C extends VectorContext, T> {
+    private final SampsonParser<C, T>.ParseResults results;
+    private final String grammar;
+
+    Entry(SampsonParser<C, T>.ParseResults results, String grammar) {
+      this.results = results;
+      this.grammar = grammar;
+    }
+
+    public SampsonParser<C, T>.ParseResults getResults() {
+      return results;
+    }
+
+    public String getGrammar() {
+      return grammar;
+    }
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+
+  /**
+   * @param directory The directory to keep the cache in; created if it does not exist
+   * @param maxBytes The maximum total size of the cached entries
+   */
+  public GrammarCache(Path directory, long maxBytes) {
+    assert(maxBytes > 0);
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Computes the key of an input.
+   *
+   * @param inputText The text the format is learned from
+   * @param parameters A description of everything else that affects the result, e.g. the toString of the
+   *    parser and primer
+   * @return A hexadecimal SHA-256 hash of the input, the parameters and the code version
+   */
+  public static String key(String inputText, String parameters) {
+    MessageDigest digest = newDigest();
+    for (String part : new String[] {getCodeVersion(), parameters, inputText}) {
+      byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+      digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) ':');
+      digest.update(bytes);
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Looks up a cached format, marking it as recently used. An entry that cannot be read is removed and
+   * treated as missing.
+   *
+   * @param key The key of the input, as from {@link GrammarCache#key(String, String)}
+   * @param parser A parser of the type the results were learned with, used to rebuild them
+   * @return The cached entry, if there is one
+   */
+  public <C extends VectorContext, T> Optional<Entry<C, T>> get(String key, SampsonParser<C, T> parser) {
+    Path entryDirectory = this.directory.resolve(key);
+    if (!Files.isDirectory(entryDirectory)) {
+      return Optional.empty();
+    }
+    try {
+      SampsonParser<C, T>.ParseResults results;
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+          Files.newInputStream(entryDirectory.resolve(RESULTS_FILE_NAME))))) {
+        if (in.readInt() != RESULTS_FORMAT_VERSION) {
+          throw new IOException("Unsupported cache entry version");
+        }
+        results = readResults(in, parser);
+      }
+      String grammar = new String(Files.readAllBytes(entryDirectory.resolve(GrammarBuilder.FILE_NAME)),
+        StandardCharsets.UTF_8);
+      Files.setLastModifiedTime(entryDirectory, FileTime.fromMillis(System.currentTimeMillis()));
+      return Optional.of(new Entry<>(results, grammar));
+    } catch (IOException e) {
+      deleteQuietly(entryDirectory);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores a learned format, then evicts the least recently used entries if the cache is over its size limit.
+   * The entry is written to a temporary directory and moved into place, so readers never see a partial entry.
+   *
+   * @param key The key of the input, as from {@link GrammarCache#key(String, String)}
+   * @param results The results of learning the input's format
+   * @param grammar The grammar generated from the results
+   * @throws IOException if the entry could not be written
+   */
+  public void put(String key, SampsonParser<?, ?>.ParseResults results, String grammar) throws IOException {
+    Files.createDirectories(this.directory);
+    Path temporary = Files.createTempDirectory(this.directory, TEMPORARY_PREFIX);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          Files.newOutputStream(temporary.resolve(RESULTS_FILE_NAME))))) {
+        out.writeInt(RESULTS_FORMAT_VERSION);
+        writeResults(out, results);
+      }
+      Files.write(temporary.resolve(GrammarBuilder.FILE_NAME), grammar.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temporary, this.directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+        // Another process stored the same entry first
+      }
+    } finally {
+      deleteQuietly(temporary);
+    }
+    this.evict();
+  }
+
+  /**
+   * Removes the least recently used entries until the cache fits in its size limit.
+   *
+   * @throws IOException if the cache directory could not be read
+   */
+  public void evict() throws IOException {
+    List<Path> entries;
+    try (Stream<Path> files = Files.list(this.directory)) {
+      entries = files
+        .filter(Files::isDirectory)
+        .filter(p -> !p.getFileName().toString().startsWith(TEMPORARY_PREFIX))
+        .collect(Collectors.toList());
+    }
+
+    List<Long> sizes = new ArrayList<>();
+    long totalSize = 0;
+    entries.sort(Comparator.comparing(GrammarCache::lastModified));
+    for (Path entry : entries) {
+      long size = sizeOf(entry);
+      sizes.add(size);
+      totalSize += size;
+    }
+
+    for (int i = 0; i < entries.size() && totalSize > this.maxBytes; i++) {
+      deleteQuietly(entries.get(i));
+      totalSize -= sizes.get(i);
+    }
+  }
+
+  private static void writeResults(DataOutputStream out, SampsonParser<?, ?>.ParseResults results)
+      throws IOException {
+    writeString(out, results.getRecordFormat());
+    out.writeInt(results.getRecordFields().size());
+    for (List<String> fields : results.getRecordFields()) {
+      out.writeInt(fields.size());
+      for (String field : fields) {
+        writeString(out, field);
+      }
+    }
+    out.writeBoolean(results.getParentFormat().isPresent());
+    if (results.getParentFormat().isPresent()) {
+      writeResults(out, results.getParentFormat().get());
+    }
+  }
+
+  private static <C extends VectorContext, T> SampsonParser<C, T>.ParseResults readResults(DataInputStream in,
+      SampsonParser<C, T> parser) throws IOException {
+    String recordFormat = readString(in);
+    int recordCount = in.readInt();
+    List<List<String>> recordFields = new ArrayList<>(recordCount);
+    for (int i = 0; i < recordCount; i++) {
+      int fieldCount = in.readInt();
+      List<String> fields = new ArrayList<>(fieldCount);
+      for (int j = 0; j < fieldCount; j++) {
+        fields.add(readString(in));
+      }
+      recordFields.add(fields);
+    }
+    SampsonParser<C, T>.ParseResults results = parser.new ParseResults(recordFormat, recordFields);
+    if (in.readBoolean()) {
+      results.setParent(readResults(in, parser));
+    }
+    return results;
+  }
+
+  // DataOutputStream.writeUTF is limited to 64KB, which a single field of a large script can exceed
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Hashes the compiled classes of the generator, so that entries are not reused after the code changes.
+   * Only .class files are hashed, since the generator writes other files (grammars) next to them.
+   */
+  static synchronized String getCodeVersion() {
+    if (codeVersion == null) {
+      MessageDigest digest = newDigest();
+      try {
+        Path location = Paths.get(GrammarCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<Path> classFiles;
+        if (Files.isDirectory(location)) {
+          try (Stream<Path> files = Files.walk(location)) {
+            classFiles = files
+              .filter(p -> p.toString().endsWith(".class"))
+              .sorted()
+              .collect(Collectors.toList());
+          }
+        } else {
+          classFiles = Collections.singletonList(location);
+        }
+        for (Path classFile : classFiles) {
+          digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+          digest.update(Files.readAllBytes(classFile));
+        }
+        codeVersion = toHex(digest.digest());
+      } catch (IOException | URISyntaxException | SecurityException e) {
+        // Without a reliable version, never match entries written by another run
+        codeVersion = "unversioned-" + System.nanoTime();
+      }
+    }
+    return codeVersion;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder result = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static long sizeOf(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      // Left for the next eviction
+    }
+  }
+}
@@ -1,9 +1,10 @@
 package edu.mit.gamedap.generator;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import org.apache.commons.io.IOUtils;
 
 import edu.mit.gamedap.generator.datatypes.EmptyContext;
@@ -35,21 +36,17 @@ public class GrammarGeneratorExample
         "SECTION_SEP : '---' ;\n" + 
         "NEW_LINE : [\\n\\r\\f]+ ;";
 
-    private static final String FILE_NAME = "GeneratedGrammar.g4";
-
-    private static final String BASIC_FORMAT_START =
-        "grammar GeneratedGrammar;\n" +
-        "dialogue: (title)* (";
-    private static final String BASIC_FORMAT_CONT =
-        "section\n" +
-        "    : (title)? (pair)+ ;\n" +
-        "title: (TEXT | NEW_LINE)+ ;\n" +
-        "pair: ";
-    private static final String BASIC_FORMAT_LEXER =
-        "// default lexer\n" +
-        "NEW_LINE : [\\n\\r\\f]+ ;\n" +
-        "TEXT : ~[\\n\\r\\f] ;";
-
+    /** The system property that sets the grammar cache's directory. */
+    public static final String CACHE_DIRECTORY_PROPERTY = "gamedap.cache.dir";
+    /** The system property that sets the grammar cache's maximum size in bytes. */
+    public static final String CACHE_SIZE_PROPERTY = "gamedap.cache.maxBytes";
+    public static final String DEFAULT_CACHE_DIRECTORY = "target/grammar-cache";
+    public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Learns the grammar of the bundled short dialogue example and prints it, along with the parse results.
+     * Usage: GrammarGeneratorExample [grammar path]; the grammar is also written to the path if one is given.
+     */
     public static void main( String[] args ) {
         ClassLoader classLoader = new GrammarGeneratorExample().getClass().getClassLoader();
         InputStream is = classLoader.getResourceAsStream("shortDialogueEx.txt");
@@ -67,88 +64,113 @@ public class GrammarGeneratorExample
             // SampsonParser<LinePositionContext, Character>.ParseResults results = sp.parse(inputText,
             //     new PositionalLearningPrimer(1000, SampsonParser.DEFAULT_LEARNING_RATE, 250, 1.3));
 
-            SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> sp = new MetaSampsonParser(2,
-                SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH, SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO / 1.5);
-            SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults results = sp.parse(
-                inputText, new MetaLearningPrimer(1000, SampsonParser.DEFAULT_LEARNING_RATE, 250, 1.3,
-                2, 0.025, 16, 1.5, 1));
-
+            GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> learned =
+                learnGrammar(inputText, new PrintStreamDiagnostics(System.out, Diagnostics.Level.DEBUG));
+            SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults results =
+                learned.getResults();
+            String temp_generated_grammar = learned.getGrammar();
 
             System.out.println(results.getRecordFormat());
             for (List<String> fieldSet : results.getRecordFields()) {
                 System.out.println(fieldSet);
             }
 
-            String generatedLexer = "";
-            String generatedParser = "";
-            // String generatedFiller = "filler : TEXT ";
-
-            if (results.getParentFormat().isPresent()) {
-                //TODO: copypaste warning
-
-                // temporary approach to printing out format: parse out .* and newlines, replace with lexer tokens
-                List<String> recordDelimiters = Arrays.stream(results.getParentFormat().get().getRecordFormat().split("\\.\\*"))
-                    .filter(d -> d.length() > 0)
-                    .toList();
-                // Filter out empty tokens, generate the "title"
-                for (int i = 0; i < recordDelimiters.size(); i ++) {
-                    
-                    generatedLexer += String.format("PTOKEN%s : '%s' ;\n", i, recordDelimiters.get(i));
-                    if (i > 0) {
-                        // generatedFiller += String.format("| PTOKEN%s ", i);
-                    }
-
-                    generatedParser += String.format("PTOKEN%s? section ", i);
+            System.out.println("-------------");
+            System.out.println(temp_generated_grammar);
+
+            if (args.length > 0) {
+                Path grammarPath = Paths.get(args[0]);
+                if (grammarPath.getParent() != null) {
+                    Files.createDirectories(grammarPath.getParent());
                 }
-                generatedParser += ")+ EOF ;\n";
-            } else {
-                generatedParser += "section)+ EOF ;\n";
-            }
-            generatedParser += BASIC_FORMAT_CONT;
-
-            // temporary approach to printing out format: parse out .* and newlines, replace with lexer tokens
-            List<String> recordDelimiters = Arrays.stream(results.getRecordFormat().split("\\.\\*"))
-                .filter(d -> d.length() > 0)
-                .toList();
-            // Filter out empty tokens, generate the "title"
-            for (int i = 0; i < recordDelimiters.size(); i ++) {
-                
-                generatedLexer += String.format("TOKEN%s : '%s' ;\n", i, recordDelimiters.get(i));
-                // generatedLexer += String.format("NOT_TOKEN%s : %s ;\n", i, makeNegationToken(recordDelimiters.get(i)));
-                // generatedFiller += String.format("| TOKEN%s ", i);
-
-
-                int nextIdx = (i+1) % recordDelimiters.size();
-                String chainSymbol = nextIdx == 0 ? "+" : "*";
-                generatedParser += String.format("TOKEN%s? (TEXT | NEW_LINE)%s ",
-                    i, chainSymbol);
+                Files.write(grammarPath, temp_generated_grammar.getBytes(StandardCharsets.UTF_8));
             }
-            String temp_generated_grammar = BASIC_FORMAT_START + generatedParser + ";\n" +
-                // generatedFiller + ";\n" +
-                generatedLexer + BASIC_FORMAT_LEXER;
+        }  catch (IOException e) {
+            System.out.println(e);
+        }
+    }
 
+    /**
+     * Learns the format of a dialogue text using the parameters this example is tuned with.
+     * 
+     * @param inputText The dialogue text
+     * @return The results of parsing the text
+     */
+    public static SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults learnFormat(
+            String inputText) {
+        return learnFormat(inputText, Diagnostics.NONE);
+    }
 
+    /**
+     * @see GrammarGeneratorExample#learnFormat(String)
+     * 
+     * @param inputText The dialogue text
+     * @param diagnostics The sink for the parser's debugging output
+     * @return The results of parsing the text
+     */
+    public static SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults learnFormat(
+            String inputText, Diagnostics diagnostics) {
+        SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> sp = makeParser();
+        sp.setDiagnostics(diagnostics);
+        return sp.parse(inputText, makePrimer());
+    }
 
-            System.out.println("-------------");
-            System.out.println(temp_generated_grammar);
+    /**
+     * Learns the grammar of a dialogue text in memory, so that it can be loaded by the parser without writing it
+     * to disk and regenerating a parser. Results are looked up in and added to the grammar cache, which is
+     * configured by {@link GrammarGeneratorExample#CACHE_DIRECTORY_PROPERTY} and
+     * {@link GrammarGeneratorExample#CACHE_SIZE_PROPERTY}.
+     * 
+     * @param inputText The dialogue text
+     * @return The text of the generated grammar
+     */
+    public static String generateGrammar(String inputText) {
+        return learnGrammar(inputText, Diagnostics.NONE).getGrammar();
+    }
 
-            
+    /**
+     * @see GrammarGeneratorExample#generateGrammar(String)
+     * 
+     * @param inputText The dialogue text
+     * @param diagnostics The sink for the parser's debugging output
+     * @return The results of parsing the text, and the grammar generated from them
+     */
+    public static GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> learnGrammar(
+            String inputText, Diagnostics diagnostics) {
+        MetaSampsonParser sp = makeParser();
+        MetaLearningPrimer primer = makePrimer();
+        GrammarCache cache = new GrammarCache(
+            Paths.get(System.getProperty(CACHE_DIRECTORY_PROPERTY, DEFAULT_CACHE_DIRECTORY)),
+            Long.getLong(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+        String cacheKey = GrammarCache.key(inputText, sp + "\n" + primer);
+        Optional<GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> cached =
+            cache.get(cacheKey, sp);
+        if (cached.isPresent()) {
+            diagnostics.info(() -> "Using cached grammar " + cacheKey);
+            return cached.get();
+        }
 
-            String basePath = System.getProperty("user.dir");
-            String targetPath = basePath + "/target/classes/antlr4/edu/mit/gamedap/parser";
+        sp.setDiagnostics(diagnostics);
+        SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults results =
+            sp.parse(inputText, primer);
+        GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> learned =
+            new GrammarCache.Entry<>(results, GrammarBuilder.build(results));
+        try {
+            cache.put(cacheKey, results, learned.getGrammar());
+        } catch (IOException e) {
+            diagnostics.info(() -> "Could not cache grammar: " + e);
+        }
+        return learned;
+    }
 
-            try {
-                Files.createDirectories(Paths.get(targetPath));
-                BufferedWriter writer = new BufferedWriter(new FileWriter(targetPath + "/" + FILE_NAME));
-                writer.write(temp_generated_grammar);
-                writer.close();
-            } catch (IOException e) {
-                System.out.println(e);
-            }
+    private static MetaSampsonParser makeParser() {
+        return new MetaSampsonParser(2,
+            SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH, SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO / 1.5);
+    }
 
-        }  catch (IOException e) {
-            System.out.println(e);
-        }
+    private static MetaLearningPrimer makePrimer() {
+        return new MetaLearningPrimer(1000, SampsonParser.DEFAULT_LEARNING_RATE, 250, 1.3,
+            2, 0.025, 16, 1.5, 1);
     }
 
     // /**
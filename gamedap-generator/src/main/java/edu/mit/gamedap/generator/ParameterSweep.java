@@ -0,0 +1,375 @@
+package edu.mit.gamedap.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.parsers.MetaLearningPrimer;
+import edu.mit.gamedap.generator.parsers.MetaSampsonParser;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * Evaluates many {@link MetaLearningPrimer}/{@link MetaSampsonParser} configurations on the same text in
+ * parallel and ranks them by a score of their parse results. Building the substring vectors only depends on
+ * w (and the sub-vector parameters, which are fixed for a sweep), so configurations with the same w share a
+ * single set of vectors; the parsers only read them.
+ */
+public class ParameterSweep {
+  /**
+   * A single set of parser and primer parameters.
+   */
+  public static class Configuration {
+    private final int w;
+    private final int neuronCount;
+    private final double learningRate;
+    private final int trainingEpochs;
+    private final double contextWeight;
+    private final double clusterStddevThresh;
+    private final double contextWeightSignificanceRatio;
+
+    public Configuration(int w, int neuronCount, double learningRate, int trainingEpochs, double contextWeight,
+        double clusterStddevThresh, double contextWeightSignificanceRatio) {
+      this.w = w;
+      this.neuronCount = neuronCount;
+      this.learningRate = learningRate;
+      this.trainingEpochs = trainingEpochs;
+      this.contextWeight = contextWeight;
+      this.clusterStddevThresh = clusterStddevThresh;
+      this.contextWeightSignificanceRatio = contextWeightSignificanceRatio;
+    }
+
+    public int getW() {
+      return w;
+    }
+
+    MetaSampsonParser makeParser() {
+      return new MetaSampsonParser(w, clusterStddevThresh, contextWeightSignificanceRatio);
+    }
+
+    MetaLearningPrimer makePrimer(ParameterSpace space) {
+      return new MetaLearningPrimer(neuronCount, learningRate, trainingEpochs, contextWeight,
+        space.maxDepth, space.depthIncreaseProbability, space.depthIncreaseMaxLength, space.subContextWeight,
+        space.subVectorLengthMismatchDistance);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("w=%d neurons=%d rate=%.3f epochs=%d contextWeight=%.2f stddevThresh=%.4f " +
+        "significance=%.3f", w, neuronCount, learningRate, trainingEpochs, contextWeight, clusterStddevThresh,
+        contextWeightSignificanceRatio);
+    }
+  }
+
+  /**
+   * The values to try for each swept parameter, along with the meta-vector parameters shared by every
+   * configuration.
+   */
+  public static class ParameterSpace {
+    private final List<Integer> ws;
+    private final List<Integer> neuronCounts;
+    private final List<Double> learningRates;
+    private final List<Integer> trainingEpochs;
+    private final List<Double> contextWeights;
+    private final List<Double> clusterStddevThreshs;
+    private final List<Double> contextWeightSignificanceRatios;
+
+    private final int maxDepth;
+    private final double depthIncreaseProbability;
+    private final int depthIncreaseMaxLength;
+    private final double subContextWeight;
+    private final int subVectorLengthMismatchDistance;
+
+    /**
+     * Initializes a space with the meta-vector parameters used by {@link GrammarGeneratorExample}.
+     */
+    public ParameterSpace(List<Integer> ws, List<Integer> neuronCounts, List<Double> learningRates,
+        List<Integer> trainingEpochs, List<Double> contextWeights, List<Double> clusterStddevThreshs,
+        List<Double> contextWeightSignificanceRatios) {
+      this(ws, neuronCounts, learningRates, trainingEpochs, contextWeights, clusterStddevThreshs,
+        contextWeightSignificanceRatios, 2, 0.025, 16, 1.5, 1);
+    }
+
+    public ParameterSpace(List<Integer> ws, List<Integer> neuronCounts, List<Double> learningRates,
+        List<Integer> trainingEpochs, List<Double> contextWeights, List<Double> clusterStddevThreshs,
+        List<Double> contextWeightSignificanceRatios, int maxDepth, double depthIncreaseProbability,
+        int depthIncreaseMaxLength, double subContextWeight, int subVectorLengthMismatchDistance) {
+      this.ws = ws;
+      this.neuronCounts = neuronCounts;
+      this.learningRates = learningRates;
+      this.trainingEpochs = trainingEpochs;
+      this.contextWeights = contextWeights;
+      this.clusterStddevThreshs = clusterStddevThreshs;
+      this.contextWeightSignificanceRatios = contextWeightSignificanceRatios;
+      this.maxDepth = maxDepth;
+      this.depthIncreaseProbability = depthIncreaseProbability;
+      this.depthIncreaseMaxLength = depthIncreaseMaxLength;
+      this.subContextWeight = subContextWeight;
+      this.subVectorLengthMismatchDistance = subVectorLengthMismatchDistance;
+    }
+
+    /**
+     * @return Every combination of the parameter values
+     */
+    public List<Configuration> grid() {
+      List<Configuration> result = new ArrayList<>();
+      for (int w : ws) {
+        for (int neuronCount : neuronCounts) {
+          for (double learningRate : learningRates) {
+            for (int epochs : trainingEpochs) {
+              for (double contextWeight : contextWeights) {
+                for (double stddevThresh : clusterStddevThreshs) {
+                  for (double ratio : contextWeightSignificanceRatios) {
+                    result.add(new Configuration(w, neuronCount, learningRate, epochs, contextWeight,
+                      stddevThresh, ratio));
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @param count The number of configurations to choose
+     * @param seed The seed for the random choices
+     * @return Configurations with each parameter chosen at random from its values; may contain repeats
+     */
+    public List<Configuration> random(int count, long seed) {
+      Random random = new Random(seed);
+      List<Configuration> result = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        result.add(new Configuration(pick(ws, random), pick(neuronCounts, random), pick(learningRates, random),
+          pick(trainingEpochs, random), pick(contextWeights, random), pick(clusterStddevThreshs, random),
+          pick(contextWeightSignificanceRatios, random)));
+      }
+      return result;
+    }
+
+    private static <E> E pick(List<E> values, Random random) {
+      return values.get(random.nextInt(values.size()));
+    }
+  }
+
+  /**
+   * Scores the results of a parse; higher scores are better.
+   */
+  public interface Scorer {
+    public double score(SampsonParser<?, ?>.ParseResults results);
+  }
+
+  /**
+   * A score for texts without known delimiters: the fraction of records that contain a field for every
+   * delimiter of the record format, scaled down for formats with few delimiters (which trivially fit any text).
+   */
+  public static Scorer consistencyScorer() {
+    return results -> {
+      int delimiterCount = GrammarBuilder.getRecordDelimiters(results.getRecordFormat()).size();
+      List<List<String>> records = results.getRecordFields();
+      if (records.isEmpty() || delimiterCount == 0) {
+        return 0;
+      }
+      long complete = records.stream().filter(fields -> fields.size() == delimiterCount).count();
+      return ((double) complete / records.size()) * (1 - 1.0 / (1 + delimiterCount));
+    };
+  }
+
+  /**
+   * A score for texts with known delimiters (e.g. from a synthetic corpus): the F1 score of the record
+   * format's delimiters against the expected ones.
+   *
+   * @param expectedDelimiters The delimiters of the text's true record format
+   */
+  public static Scorer delimiterScorer(Collection<String> expectedDelimiters) {
+    Set<String> expected = new HashSet<>(expectedDelimiters);
+    return results -> {
+      Set<String> found = new HashSet<>(GrammarBuilder.getRecordDelimiters(results.getRecordFormat()));
+      long correct = found.stream().filter(expected::contains).count();
+      if (correct == 0) {
+        return 0;
+      }
+      double precision = (double) correct / found.size();
+      double recall = (double) correct / expected.size();
+      return 2 * precision * recall / (precision + recall);
+    };
+  }
+
+  /**
+   * The outcome of a single configuration.
+   */
+  public static class Result {
+    private final Configuration configuration;
+    private final SampsonParser<?, ?>.ParseResults results;
+    private final double score;
+    private final long elapsedNanos;
+    private final Throwable error;
+
+    Result(Configuration configuration, SampsonParser<?, ?>.ParseResults results, double score,
+        long elapsedNanos, Throwable error) {
+      this.configuration = configuration;
+      this.results = results;
+      this.score = score;
+      this.elapsedNanos = elapsedNanos;
+      this.error = error;
+    }
+
+    public Configuration getConfiguration() {
+      return configuration;
+    }
+
+    public SampsonParser<?, ?>.ParseResults getResults() {
+      return results;
+    }
+
+    public double getScore() {
+      return score;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public boolean isSuccess() {
+      return error == null;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("<Result: %s, score=%.4f, %s>", configuration, score,
+        isSuccess() ? results.getRecordFormat() : error);
+    }
+  }
+
+  private final ParameterSpace space;
+  private final Scorer scorer;
+  private final int threads;
+
+  /**
+   * @param space The parameter space the configurations are drawn from
+   * @param scorer Scores each configuration's results
+   * @param threads The maximum number of configurations to run at the same time
+   */
+  public ParameterSweep(ParameterSpace space, Scorer scorer, int threads) {
+    assert(threads > 0);
+    this.space = space;
+    this.scorer = scorer;
+    this.threads = threads;
+  }
+
+  /**
+   * Runs every configuration on the text. Blocks until all of them are done; a configuration that fails is
+   * recorded with its error rather than stopping the sweep.
+   *
+   * @param text The text to parse
+   * @param configurations The configurations to evaluate, drawn from this sweep's parameter space
+   * @return The results, ranked from the highest score to the lowest, with failures last
+   */
+  public List<Result> run(String text, List<Configuration> configurations) {
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    try {
+      Set<Character> characterSet = new SampsonParser<>(1).buildCharacterSet(text);
+      Map<Integer, CompletableFuture<List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>>>>
+        windows = new HashMap<>();
+      List<CompletableFuture<Result>> futures = new ArrayList<>();
+      for (Configuration configuration : configurations) {
+        MetaLearningPrimer primer = configuration.makePrimer(this.space);
+        CompletableFuture<List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>>>
+          substrings = windows.computeIfAbsent(configuration.getW(), w ->
+            CompletableFuture.supplyAsync(() -> primer.makeSubstringVectors(text, w, characterSet), pool));
+        futures.add(substrings.thenApplyAsync(vectors -> {
+          long start = System.nanoTime();
+          SampsonParser<?, ?>.ParseResults results =
+            configuration.makeParser().parse(text, characterSet, vectors, primer);
+          return new Result(configuration, results, this.scorer.score(results), System.nanoTime() - start, null);
+        }, pool).exceptionally(error -> new Result(configuration, null, Double.NEGATIVE_INFINITY, 0,
+          error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)));
+      }
+
+      return futures.stream()
+        .map(CompletableFuture::join)
+        .sorted(Comparator.comparing(Result::isSuccess).thenComparingDouble(Result::getScore).reversed())
+        .collect(Collectors.toList());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Prints the ranked results, one configuration per line.
+   *
+   * @param results The ranked results of a sweep
+   */
+  public static void printReport(List<Result> results) {
+    System.out.println(String.format("%-5s %-8s %-9s %s", "rank", "score", "time", "configuration / format"));
+    for (int i = 0; i < results.size(); i++) {
+      Result result = results.get(i);
+      System.out.println(String.format("%-5d %-8.4f %-9s %s", i + 1, result.getScore(),
+        String.format("%.2fs", result.getElapsedNanos() / 1e9), result.getConfiguration()));
+      System.out.println("      " + (result.isSuccess() ?
+        result.getResults().getRecordFormat().replace("\n", "\\n").replace("\t", "\\t") :
+        "FAILED: " + result.getError()));
+    }
+  }
+
+  /**
+   * Usage: ParameterSweep &lt;input file&gt; [random configuration count] [threads]
+   *
+   * Sweeps a space around the parameters of {@link GrammarGeneratorExample}; without a configuration count,
+   * the full grid is run.
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: ParameterSweep <input file> [random configuration count] [threads]");
+      return;
+    }
+
+    ParameterSpace space = new ParameterSpace(
+      Arrays.asList(2, 3),
+      Arrays.asList(250, 500, 1000),
+      Arrays.asList(SampsonParser.DEFAULT_LEARNING_RATE),
+      Arrays.asList(100, 250),
+      Arrays.asList(1.0, 1.3),
+      Arrays.asList(SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH),
+      Arrays.asList(SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO,
+        SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO / 1.5));
+    List<Configuration> configurations = args.length > 1 ? space.random(Integer.parseInt(args[1]), 0) : space.grid();
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    try {
+      String text = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+      ParameterSweep sweep = new ParameterSweep(space, consistencyScorer(), threads);
+      long start = System.nanoTime();
+      List<Result> results = sweep.run(text, configurations);
+      printReport(results);
+      System.out.println(String.format("Ran %d configurations in %.2f s", results.size(),
+        (System.nanoTime() - start) / 1e9));
+    } catch (IOException e) {
+      System.out.println(e);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package edu.mit.gamedap.generator;
+
+import java.io.PrintStream;
+
+/**
+ * A diagnostics sink that prints messages at or above a minimum level to a stream.
+ */
+public class PrintStreamDiagnostics implements Diagnostics {
+  private final PrintStream out;
+  private final Level minimumLevel;
+
+  public PrintStreamDiagnostics(PrintStream out, Level minimumLevel) {
+    this.out = out;
+    this.minimumLevel = minimumLevel;
+  }
+
+  @Override
+  public boolean isEnabled(Level level) {
+    return level.compareTo(this.minimumLevel) >= 0;
+  }
+
+  @Override
+  public void emit(Level level, String message) {
+    this.out.println(String.format("[%s] %s", level, message));
+  }
+}
@@ -0,0 +1,276 @@
+package edu.mit.gamedap.generator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * Splits a text into records of a learned format in one linear pass, without a generated grammar. The record
+ * format's delimiters are compiled into a deterministic automaton (Aho-Corasick, with every transition
+ * precomputed), so each character costs one table lookup and nothing is allocated while scanning.
+ *
+ * A record consists of the format's delimiters in order, with a part of text before, between and after them
+ * (so a format with n delimiters has n + 1 parts, as in a {@link GrammarBuilder generated grammar}'s pairs).
+ * Every delimiter is optional: one that is out of order, i.e. not after the delimiters already seen in the
+ * record, starts a new record, and missing delimiters have empty text. A record ends after its last delimiter if
+ * the format ends with a delimiter; otherwise, its last part runs up to the next delimiter. Delimiters are
+ * recognized at the first position where one of them ends.
+ */
+public class RecordSplitter {
+  private static final String FIELD = ".*";
+  private static final int DIRECT_CLASS_LIMIT = 256;
+
+  /**
+   * Receives the records found by a {@link RecordSplitter}.
+   */
+  public interface RecordListener {
+    /**
+     * Called for each record, in order. Part i of the record is the text from delimiterEnds[i - 1] (or start,
+     * for the first part) to delimiterStarts[i] (or end, for the last part); a missing delimiter has equal start
+     * and end offsets. The arrays are reused for the next record, so they must be copied to be kept.
+     *
+     * @param text The text being split
+     * @param start The offset of the start of the record
+     * @param delimiterStarts The offsets of the start of each of the format's delimiters
+     * @param delimiterEnds The offsets after the end of each of the format's delimiters
+     * @param end The offset after the end of the record
+     */
+    void record(CharSequence text, int start, int[] delimiterStarts, int[] delimiterEnds, int end);
+  }
+
+  private final List<String> delimiters;
+  private final boolean endsWithDelimiter;
+  private final int[] delimiterLengths;
+
+  // Characters are mapped to classes before lookup: those used in the delimiters each get their own, and all
+  // others share class 0
+  private final int[] directClasses;
+  private final char[] otherCharacters;
+  private final int[] otherClasses;
+  private final int classCount;
+
+  // transitions[state * classCount + class] is the next state; match[state] is the longest delimiter ending in
+  // the state (or -1), and matchLink[state] the next state along its suffixes with a match (or -1)
+  private final int[] transitions;
+  private final int[] match;
+  private final int[] matchLink;
+
+  /**
+   * @param recordFormat A record format, as from {@link SampsonParser.ParseResults#getRecordFormat()}, with at
+   *    least one delimiter
+   */
+  public RecordSplitter(String recordFormat) {
+    this(GrammarBuilder.getRecordDelimiters(recordFormat), !recordFormat.endsWith(FIELD));
+  }
+
+  /**
+   * @param delimiters The delimiters of a record, in order; must be non-empty and not contain empty strings
+   * @param endsWithDelimiter Whether a record ends immediately after its last delimiter
+   */
+  public RecordSplitter(List<String> delimiters, boolean endsWithDelimiter) {
+    if (delimiters.isEmpty() || delimiters.stream().anyMatch(String::isEmpty)) {
+      throw new IllegalArgumentException("A record format needs non-empty delimiters: " + delimiters);
+    }
+    this.delimiters = new ArrayList<>(delimiters);
+    this.endsWithDelimiter = endsWithDelimiter;
+    this.delimiterLengths = delimiters.stream().mapToInt(String::length).toArray();
+
+    TreeSet<Character> alphabet = new TreeSet<>();
+    for (String delimiter : delimiters) {
+      for (char c : delimiter.toCharArray()) {
+        alphabet.add(c);
+      }
+    }
+    this.classCount = alphabet.size() + 1;
+    this.directClasses = new int[DIRECT_CLASS_LIMIT];
+    List<Character> others = new ArrayList<>();
+    int nextClass = 1;
+    for (char c : alphabet) {
+      if (c < DIRECT_CLASS_LIMIT) {
+        this.directClasses[c] = nextClass;
+      } else {
+        others.add(c);
+      }
+      nextClass++;
+    }
+    this.otherCharacters = new char[others.size()];
+    this.otherClasses = new int[others.size()];
+    for (int i = 0; i < others.size(); i++) {
+      this.otherCharacters[i] = others.get(i);
+      this.otherClasses[i] = alphabet.headSet(others.get(i)).size() + 1;
+    }
+
+    // Build the trie of delimiters
+    List<int[]> trie = new ArrayList<>();
+    List<Integer> trieMatches = new ArrayList<>();
+    trie.add(newRow());
+    trieMatches.add(-1);
+    for (int d = 0; d < delimiters.size(); d++) {
+      int state = 0;
+      for (char c : delimiters.get(d).toCharArray()) {
+        int charClass = this.classOf(c);
+        if (trie.get(state)[charClass] <= 0) {
+          trie.get(state)[charClass] = trie.size();
+          trie.add(newRow());
+          trieMatches.add(-1);
+        }
+        state = trie.get(state)[charClass];
+      }
+      // Two equal delimiters can only ever match as the first of them
+      if (trieMatches.get(state) == -1) {
+        trieMatches.set(state, d);
+      }
+    }
+
+    // Fill in failure transitions breadth-first, turning the trie into a DFA
+    int stateCount = trie.size();
+    this.transitions = new int[stateCount * this.classCount];
+    this.match = new int[stateCount];
+    this.matchLink = new int[stateCount];
+    int[] failure = new int[stateCount];
+    Arrays.fill(this.matchLink, -1);
+    for (int s = 0; s < stateCount; s++) {
+      this.match[s] = trieMatches.get(s);
+    }
+
+    Deque<Integer> queue = new ArrayDeque<>();
+    for (int c = 0; c < this.classCount; c++) {
+      int child = trie.get(0)[c];
+      this.transitions[c] = Math.max(child, 0);
+      if (child > 0) {
+        failure[child] = 0;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      int fallback = failure[state];
+      this.matchLink[state] = this.match[fallback] >= 0 ? fallback : this.matchLink[fallback];
+      for (int c = 0; c < this.classCount; c++) {
+        int child = trie.get(state)[c];
+        if (child > 0) {
+          failure[child] = this.transitions[fallback * this.classCount + c];
+          this.transitions[state * this.classCount + c] = child;
+          queue.add(child);
+        } else {
+          this.transitions[state * this.classCount + c] = this.transitions[fallback * this.classCount + c];
+        }
+      }
+    }
+  }
+
+  private int[] newRow() {
+    return new int[this.classCount];
+  }
+
+  private int classOf(char c) {
+    if (c < DIRECT_CLASS_LIMIT) {
+      return this.directClasses[c];
+    }
+    int idx = Arrays.binarySearch(this.otherCharacters, c);
+    return idx >= 0 ? this.otherClasses[idx] : 0;
+  }
+
+  /**
+   * @return The delimiters of the record format, in order
+   */
+  public List<String> getDelimiters() {
+    return this.delimiters;
+  }
+
+  /**
+   * Splits a text into records, passing each one to a listener as it is found.
+   *
+   * @param text The text to split
+   * @param listener The listener to pass records to
+   */
+  public void split(CharSequence text, RecordListener listener) {
+    int delimiterCount = this.delimiters.size();
+    int[] delimiterStarts = new int[delimiterCount];
+    int[] delimiterEnds = new int[delimiterCount];
+
+    int recordStart = 0;
+    int fieldStart = 0;
+    int nextDelimiter = 0;
+    int state = 0;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      state = this.transitions[state * this.classCount + this.classOf(text.charAt(i))];
+
+      // Find the longest delimiter ending here that does not overlap the last one
+      int matchState = this.match[state] >= 0 ? state : this.matchLink[state];
+      int found = -1;
+      while (matchState >= 0) {
+        int candidate = this.match[matchState];
+        if (i + 1 - this.delimiterLengths[candidate] >= fieldStart) {
+          found = candidate;
+          break;
+        }
+        matchState = this.matchLink[matchState];
+      }
+      if (found < 0) {
+        continue;
+      }
+
+      int delimiterStart = i + 1 - this.delimiterLengths[found];
+      if (found < nextDelimiter) {
+        // Out of order, so the delimiter belongs to the next record
+        fillMissing(delimiterStarts, delimiterEnds, nextDelimiter, delimiterStart);
+        listener.record(text, recordStart, delimiterStarts, delimiterEnds, delimiterStart);
+        recordStart = delimiterStart;
+        fieldStart = delimiterStart;
+        nextDelimiter = 0;
+      }
+      // Delimiters skipped over are missing; the text before this one belongs to the part preceding it
+      fillMissing(delimiterStarts, delimiterEnds, nextDelimiter, fieldStart);
+      delimiterStarts[found] = delimiterStart;
+      delimiterEnds[found] = i + 1;
+      nextDelimiter = found + 1;
+      fieldStart = i + 1;
+
+      if (nextDelimiter == delimiterCount && this.endsWithDelimiter) {
+        listener.record(text, recordStart, delimiterStarts, delimiterEnds, fieldStart);
+        recordStart = fieldStart;
+        nextDelimiter = 0;
+      }
+    }
+
+    if (recordStart < length || nextDelimiter > 0) {
+      fillMissing(delimiterStarts, delimiterEnds, nextDelimiter, length);
+      listener.record(text, recordStart, delimiterStarts, delimiterEnds, length);
+    }
+  }
+
+  /**
+   * Splits a text into records, collecting the text of their parts.
+   *
+   * @param text The text to split
+   * @return The parts of each record, in order; each record has one more part than the format has delimiters
+   */
+  public List<List<String>> split(CharSequence text) {
+    List<List<String>> records = new ArrayList<>();
+    this.split(text, (t, start, delimiterStarts, delimiterEnds, end) -> {
+      List<String> parts = new ArrayList<>(delimiterStarts.length + 1);
+      int partStart = start;
+      for (int d = 0; d < delimiterStarts.length; d++) {
+        parts.add(t.subSequence(partStart, delimiterStarts[d]).toString());
+        partStart = delimiterEnds[d];
+      }
+      parts.add(t.subSequence(partStart, end).toString());
+      records.add(parts);
+    });
+    return records;
+  }
+
+  private static void fillMissing(int[] delimiterStarts, int[] delimiterEnds, int from, int offset) {
+    for (int d = from; d < delimiterStarts.length; d++) {
+      delimiterStarts[d] = offset;
+      delimiterEnds[d] = offset;
+    }
+  }
+}
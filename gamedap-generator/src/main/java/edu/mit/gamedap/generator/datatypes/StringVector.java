@@ -119,7 +119,7 @@ public class StringVector implements Vector<EmptyContext, Character> {
 
     double distance = 0;
     for (int i = 0; i < this.size(); i ++) {
-      if (this.get(i) != other.get(i)) {
+      if (!this.get(i).equals(other.get(i))) {
         distance += 1;
       }
     }
@@ -1,5 +1,7 @@
 package edu.mit.gamedap.generator.datatypes;
 
+import java.util.List;
+
 /**
  * A recursive-ish structure for tracking previously grouped text.
  */
@@ -7,6 +9,12 @@ public interface TextGroup {
     public static TextGroup asGroup(String text) {
         return new TextGroupLeaf(text);
     }
+    /**
+     * Combines several groups into a single group one level deeper than the deepest of them.
+     */
+    public static TextGroup join(List<TextGroup> groups) {
+        return new TextGroupJoin(groups);
+    }
     public TextGroup joinWith(TextGroup other);
     public String getText();
     public int getDepth();
@@ -33,6 +41,16 @@ class TextGroupJoin implements TextGroup {
         this.text = firstGroup.getText() + secondGroup.getText();
         this.depth = Math.max(firstGroup.getDepth(), secondGroup.getDepth()) + 1;
     }
+    public TextGroupJoin(List<TextGroup> groups) {
+        StringBuilder text = new StringBuilder();
+        int maxDepth = 0;
+        for (TextGroup group : groups) {
+            text.append(group.getText());
+            maxDepth = Math.max(maxDepth, group.getDepth());
+        }
+        this.text = text.toString();
+        this.depth = maxDepth + 1;
+    }
     public TextGroup joinWith(TextGroup other) {
         return new TextGroupJoin(this, other);
     }
@@ -45,18 +45,18 @@ public class VectorCluster<C extends VectorContext, T> {
     return cachedDistances;
   }
 
-  private double getMeanDistance() {
+  public double getMeanDistance() {
     List<Double> distances = calculateDistances();
     return distances.stream()
       .reduce(0.0, Double::sum) / distances.size();
   }
 
   public String info() {
-    String vectorString = "[";
+    StringBuilder vectorString = new StringBuilder("[");
     for (Vector<C, T> v : vectors) {
-      vectorString += v.toString() + "  ";
+      vectorString.append(v.toString()).append("  ");
     }
-    vectorString += "]";
+    vectorString.append("]");
     return String.format("<VectorCluster (stddev=%.3f): center=%s, vectors=%s",
       this.getDistanceStdDev(), this.center.toString(), vectorString);
   }
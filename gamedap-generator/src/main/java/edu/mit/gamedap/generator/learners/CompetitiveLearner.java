@@ -1,10 +1,19 @@
 package edu.mit.gamedap.generator.learners;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.datatypes.Vector;
 import edu.mit.gamedap.generator.datatypes.VectorCluster;
 import edu.mit.gamedap.generator.datatypes.VectorContext;
@@ -20,6 +29,17 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
   private final List<Vector<C, T>> neurons;
   private final double learningRate;
   private final double contextWeight;
+  private Diagnostics diagnostics = Diagnostics.NONE;
+  private Random random = new Random();
+  private final List<TrainingListener> listeners = new ArrayList<>();
+  // The index of each neuron, and the neuron each stimulus last won with, for the listeners' statistics
+  private final Map<Vector<C, T>, Integer> neuronIndices = new IdentityHashMap<>();
+  private int[] previousWinners = new int[0];
+  private LearningSchedule learningSchedule = LearningSchedule.constant();
+  private NeuronSeeding seeding = NeuronSeeding.random();
+  // The epochs trained since initialization, and the total that the schedules decay over
+  private int completedEpochs = 0;
+  private int epochHorizon = 0;
 
   public CompetitiveLearner(double learningRate, double contextWeight) {
     this.learningRate = learningRate;
@@ -28,6 +48,125 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
     this.neurons = new ArrayList<>();
   }
 
+  /**
+   * Sets the sink that training progress is reported to. Nothing is reported by default.
+   * 
+   * @param diagnostics The diagnostics sink
+   */
+  public void setDiagnostics(Diagnostics diagnostics) {
+    this.diagnostics = diagnostics;
+  }
+
+  /**
+   * Seeds the choices made by the learner itself (which neurons' elements are adapted, and the depths of
+   * generated meta neurons). Restarts with different seeds explore different solutions; the random values
+   * of newly generated vectors are not covered by the seed.
+   * 
+   * @param seed The seed for the learner's random choices
+   */
+  public void setSeed(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Adds a listener that is given the statistics of every training epoch, and may stop training. The statistics
+   * are only gathered while there are listeners.
+   * 
+   * @param listener The listener to add
+   */
+  public void addTrainingListener(TrainingListener listener) {
+    this.listeners.add(listener);
+  }
+
+  public void removeTrainingListener(TrainingListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Sets how the learning rate changes from epoch to epoch. The rate is constant by default.
+   * 
+   * @param learningSchedule The schedule that scales the learning rate
+   */
+  public void setLearningSchedule(LearningSchedule learningSchedule) {
+    this.learningSchedule = learningSchedule;
+  }
+
+  /**
+   * Sets how the neurons that are not given to {@link CompetitiveLearner#initialize(int, List, List)} are
+   * placed. They are generated randomly by default.
+   * 
+   * @param seeding The seeding strategy to use from the next initialization on
+   */
+  public void setSeeding(NeuronSeeding seeding) {
+    this.seeding = seeding;
+  }
+
+  /**
+   * Sets the total number of epochs that the schedules decay over, for when the learner is trained in several
+   * calls to {@link CompetitiveLearner#train(int)}. By default it is the number of epochs trained so far plus
+   * those asked for by the current call. Initializing the learner resets it, so it should be set afterwards.
+   * 
+   * @param epochs The total number of epochs the learner will be trained for
+   */
+  public void setEpochHorizon(int epochs) {
+    this.epochHorizon = epochs;
+  }
+
+  /**
+   * Scales a base rate for the epoch being trained.
+   * 
+   * @param schedule The schedule to scale by
+   * @param rate The base rate
+   * @return The scheduled rate for the current epoch
+   */
+  double getScheduledRate(LearningSchedule schedule, double rate) {
+    return rate * schedule.factor(this.completedEpochs, this.epochHorizon);
+  }
+
+  /**
+   * @return Whether any of the learner's rates follow a schedule other than the constant one
+   */
+  boolean isScheduled() {
+    return this.learningSchedule != LearningSchedule.constant();
+  }
+
+  /**
+   * Chooses how many of a neuron's elements to adapt towards or away from a stimulus. With constant rates
+   * this is size * |learningAmount| rounded up, as it always has been. Once a rate is scheduled it is the
+   * whole part of that product plus one more with probability equal to the fractional part, which on
+   * average is exactly the given proportion, so rates below one element per stimulus (e.g. late in a
+   * decaying schedule) still change how much the neurons move.
+   * 
+   * @param size The number of elements in the neuron
+   * @param learningAmount The proportion of elements to adapt; only its magnitude is used
+   * @return The number of elements to adapt
+   */
+  int getAdaptationCount(int size, double learningAmount) {
+    double expectedAdaptations = Math.abs(size * learningAmount);
+    if (!this.isScheduled()) {
+      return (int) Math.ceil(expectedAdaptations);
+    }
+    int adaptations = (int) Math.floor(expectedAdaptations);
+    if (this.random.nextDouble() < expectedAdaptations - adaptations) {
+      adaptations++;
+    }
+    return adaptations;
+  }
+
+  /**
+   * @return The learner's neurons, which must not be modified
+   */
+  List<Vector<C, T>> getNeurons() {
+    return Collections.unmodifiableList(this.neurons);
+  }
+
+  /**
+   * @return The source of the learner's random choices
+   */
+  Random getRandom() {
+    return this.random;
+  }
+
   /**
    * Prepares the environment for learning, resetting the neurons and stimuli.
    * 
@@ -36,14 +175,65 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
    * of a constant size.
    */
   public void initialize(int neuronCount, List<Vector<C, T>> stimuli) {
+    this.initialize(neuronCount, stimuli, Collections.emptyList());
+  }
+
+  /**
+   * Prepares the environment for learning, starting from a given set of neurons (e.g. those trained on a
+   * similar input) instead of entirely random ones. The learner takes ownership of the initial neurons, which
+   * are modified by training.
+   * 
+   * @param neuronCount The number of neurons to use; any beyond the initial neurons are placed by the
+   * {@link CompetitiveLearner#setSeeding(NeuronSeeding) seeding}
+   * @param stimuli The stimuli to train on, assumed to be a non-empty list with vectors
+   * of a constant size.
+   * @param initialNeurons Neurons to start from, of the same size as the stimuli; at most neuronCount are used
+   * @see CompetitiveLearner#initialize(int, List)
+   */
+  public void initialize(int neuronCount, List<Vector<C, T>> stimuli, List<Vector<C, T>> initialNeurons) {
     this.neurons.clear();
     this.stimuli.clear();
 
     this.stimuli.addAll(stimuli);
     int size = stimuli.get(0).size();
-    for (int i = 0; i < neuronCount; i++) {
+    for (Vector<C, T> neuron : initialNeurons.subList(0, Math.min(neuronCount, initialNeurons.size()))) {
+      assert(neuron.size() == size);
+      this.neurons.add(neuron);
+    }
+    List<Vector<C, T>> seeds = this.seeding.select(this.stimuli, new ArrayList<>(this.neurons),
+      neuronCount - this.neurons.size(), this.contextWeight, this.random);
+    for (Vector<C, T> seed : seeds) {
+      this.neurons.add(this.copyStimulus(seed));
+    }
+    this.diagnostics.debug(() -> String.format("Seeded %d neurons with %s", seeds.size(), this.seeding));
+    while (this.neurons.size() < neuronCount) {
       this.neurons.add(this.generateNeuron(size));
     }
+
+    this.neuronIndices.clear();
+    for (int i = 0; i < this.neurons.size(); i++) {
+      this.neuronIndices.put(this.neurons.get(i), i);
+    }
+    this.previousWinners = new int[this.stimuli.size()];
+    Arrays.fill(this.previousWinners, -1);
+    this.completedEpochs = 0;
+    this.epochHorizon = 0;
+  }
+
+  /**
+   * Makes a new neuron equal to a stimulus, which training can modify without affecting the stimulus. The
+   * neuron's elements are shared with the stimulus, as training does when it copies elements across.
+   * 
+   * @param stimulus The stimulus to copy
+   * @return A new neuron at distance 0 from the stimulus
+   */
+  Vector<C, T> copyStimulus(Vector<C, T> stimulus) {
+    Vector<C, T> neuron = this.generateNeuron(stimulus.size());
+    for (int i = 0; i < stimulus.size(); i++) {
+      neuron.set(i, stimulus.get(i));
+    }
+    neuron.getContext().becomeSimilarTo(stimulus.getContext(), 1);
+    return neuron;
   }
 
   /**
@@ -71,8 +261,9 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
    * 
    * @param stimulus The stimulus to use for training
    * @param learningRate The size of the learning adjustment to be made
+   * @return The winning neuron, i.e. the one trained to become more like the stimulus
    */
-  abstract void trainSingleStimulus(Vector<C, T> stimulus, double learningRate);
+  abstract Vector<C, T> trainSingleStimulus(Vector<C, T> stimulus, double learningRate);
 
   /**
    * Returns the neurons selected to be trained by a given stimulus. Based on the activations returned
@@ -100,17 +291,88 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
 
   /**
    * Trains the neurons on the provided stimuli for a given number of epochs. Within each epoch,
-   * training will be done for every stimuli in a randomized order.
+   * training will be done for every stimuli in a randomized order. Training stops early if a
+   * {@link TrainingListener listener} asks it to.
    * 
    * @param epochs the number of training iterations to perform
+   * @return the number of epochs that were performed
    * @see CompetitiveLearner#trainSingleStimulus(Vector, Double)
    */
-  public void train(int epochs) {
+  public int train(int epochs) {
+    this.diagnostics.info(() -> String.format("Training %d neurons on %d stimuli for %d epochs",
+      this.neurons.size(), this.stimuli.size(), epochs));
+    this.epochHorizon = Math.max(this.epochHorizon, this.completedEpochs + epochs);
     for (int epoch = 0; epoch < epochs; epoch++) {
-      for (Vector<C, T> stimulus : this.stimuli) {
-        this.trainSingleStimulus(stimulus, this.learningRate);
+      int completedEpochs = epoch + 1;
+      double rate = this.getScheduledRate(this.learningSchedule, this.learningRate);
+      boolean proceed = true;
+      if (this.listeners.isEmpty()) {
+        for (Vector<C, T> stimulus : this.stimuli) {
+          this.trainSingleStimulus(stimulus, rate);
+        }
+      } else {
+        proceed = this.trainObservedEpoch(completedEpochs, epochs, rate);
+      }
+      this.completedEpochs ++;
+
+      if (!proceed) {
+        this.diagnostics.info(() -> String.format("Training stopped by a listener after epoch %d/%d",
+          completedEpochs, epochs));
+        return completedEpochs;
+      }
+      this.diagnostics.debug(() -> String.format("Finished epoch %d/%d (learning rate %.4f)", completedEpochs,
+        epochs, rate));
+    }
+    return epochs;
+  }
+
+  /**
+   * Trains a single epoch while gathering its statistics, and passes them to the listeners.
+   * 
+   * @return false if a listener asked for training to stop
+   */
+  private boolean trainObservedEpoch(int epoch, int epochs, double rate) {
+    int[] winCounts = new int[this.neurons.size()];
+    int winnerChanges = 0;
+    double error = 0;
+
+    long startBytes = allocatedBytes();
+    long startTime = System.nanoTime();
+    for (int i = 0; i < this.stimuli.size(); i++) {
+      Vector<C, T> stimulus = this.stimuli.get(i);
+      Vector<C, T> winner = this.trainSingleStimulus(stimulus, rate);
+      int winnerIndex = this.neuronIndices.get(winner);
+      winCounts[winnerIndex] ++;
+      if (this.previousWinners[i] != winnerIndex) {
+        this.previousWinners[i] = winnerIndex;
+        winnerChanges ++;
+      }
+      error += winner.distance(stimulus, this.contextWeight);
+    }
+    long wallTime = System.nanoTime() - startTime;
+    long allocated = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+
+    EpochStatistics statistics = new EpochStatistics(epoch, epochs, this.stimuli.size(), rate, winnerChanges,
+      error / this.stimuli.size(), winCounts, wallTime, allocated);
+    boolean proceed = true;
+    for (TrainingListener listener : new ArrayList<>(this.listeners)) {
+      proceed &= listener.epochFinished(statistics);
+    }
+    return proceed;
+  }
+
+  /**
+   * @return The number of bytes the current thread has allocated so far, or -1 if the JVM does not say
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+      if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
       }
     }
+    return -1;
   }
 
   /**
@@ -138,6 +400,21 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
     return idx;
   }
 
+  /**
+   * Quantizes a list of vectors, in parallel. Learners whose vectors allow a faster way of quantizing many of
+   * them at once can override this.
+   * 
+   * @param vectors The vectors to quantize
+   * @return The index of the nearest neuron to each vector, as given by
+   * {@link CompetitiveLearner#quantize(Vector) quantize}
+   */
+  int[] quantizeAll(List<Vector<C, T>> vectors) {
+    return IntStream.range(0, vectors.size())
+      .parallel()
+      .map(i -> this.quantize(vectors.get(i)))
+      .toArray();
+  }
+
   /**
    * Groups the stimuli into clusters, mapping them to their nearest neuron (as indicated by
    * {@link CompetitiveLearner#quantize(Vector) quantize}). Assumes that neurons are present
@@ -147,21 +424,36 @@ public abstract class CompetitiveLearner<C extends VectorContext, T> {
    * where every stimulus is in exactly one cluster.
    */
   public List<VectorCluster<C, T>> cluster() {
-    // Quantize all stimuli
-    List<Integer> quantizedIndices = this.stimuli.stream()
-      .map(s -> this.quantize(s))
-      .toList();
+    return this.cluster(this.stimuli);
+  }
+
+  /**
+   * Groups an arbitrary list of vectors into clusters around the trained neurons. This allows training on
+   * a sample of the input while still quantizing every vector; quantization only reads the neurons, so it
+   * is done in parallel.
+   * 
+   * @param vectors The vectors to quantize, of the same size as the stimuli
+   * @return A list of clusters with neurons as the centers and the given vectors as the clustered vectors,
+   * where every vector is in exactly one cluster.
+   * @see CompetitiveLearner#cluster()
+   */
+  public List<VectorCluster<C, T>> cluster(List<Vector<C, T>> vectors) {
+    // Quantize all vectors
+    int[] quantizedIndices = this.quantizeAll(vectors);
 
-    // Organize each stimulus under the corresponding neuron index
+    // Organize each vector under the corresponding neuron index
     Map<Integer, List<Vector<C, T>>> quantizationMap = new HashMap<>();
-    for (int i = 0; i < quantizedIndices.size(); i++) {
-      int neuronIndex = quantizedIndices.get(i);
+    for (int i = 0; i < quantizedIndices.length; i++) {
+      int neuronIndex = quantizedIndices[i];
       if (!quantizationMap.containsKey(neuronIndex)) {
         quantizationMap.put(neuronIndex, new ArrayList<>());
       }
-      quantizationMap.get(neuronIndex).add(this.stimuli.get(i));
+      quantizationMap.get(neuronIndex).add(vectors.get(i));
     }
 
+    this.diagnostics.debug(() -> String.format("Quantized %d vectors into %d clusters",
+      vectors.size(), quantizationMap.size()));
+
     // create VectorClusters
     return quantizationMap.keySet().stream()
       .map(n -> new VectorCluster<>(this.neurons.get(n), quantizationMap.get(n)))
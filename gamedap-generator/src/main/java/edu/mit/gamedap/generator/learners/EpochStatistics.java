@@ -0,0 +1,113 @@
+package edu.mit.gamedap.generator.learners;
+
+import java.util.Arrays;
+
+/**
+ * The statistics of a single epoch of competitive learning, as given to a {@link TrainingListener}. They are
+ * gathered from the winners that training picks anyway, so no extra pass over the neurons is needed.
+ */
+public class EpochStatistics {
+  private final int epoch;
+  private final int epochs;
+  private final int stimulusCount;
+  private final double learningRate;
+  private final int winnerChanges;
+  private final double meanQuantizationError;
+  private final int[] winCounts;
+  private final long wallTimeNanos;
+  private final long allocatedBytes;
+
+  EpochStatistics(int epoch, int epochs, int stimulusCount, double learningRate, int winnerChanges,
+      double meanQuantizationError, int[] winCounts, long wallTimeNanos, long allocatedBytes) {
+    this.epoch = epoch;
+    this.epochs = epochs;
+    this.stimulusCount = stimulusCount;
+    this.learningRate = learningRate;
+    this.winnerChanges = winnerChanges;
+    this.meanQuantizationError = meanQuantizationError;
+    this.winCounts = winCounts;
+    this.wallTimeNanos = wallTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * @return The number of the epoch within its call to {@link CompetitiveLearner#train(int)}, starting from 1
+   */
+  public int getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * @return The number of epochs the call to {@link CompetitiveLearner#train(int)} was asked for
+   */
+  public int getEpochs() {
+    return epochs;
+  }
+
+  public int getStimulusCount() {
+    return stimulusCount;
+  }
+
+  /**
+   * @return The learning rate of the epoch, after its {@link LearningSchedule schedule} was applied
+   */
+  public double getLearningRate() {
+    return learningRate;
+  }
+
+  /**
+   * @return The number of stimuli whose winning neuron differs from the one they had in the previous epoch; in
+   *    the first epoch the learner is trained, this is every stimulus
+   */
+  public int getWinnerChanges() {
+    return winnerChanges;
+  }
+
+  /**
+   * @return The mean distance between each stimulus and its winning neuron, measured just after the winner was
+   *    trained on it
+   */
+  public double getMeanQuantizationError() {
+    return meanQuantizationError;
+  }
+
+  /**
+   * @return The number of stimuli each neuron won in the epoch, indexed like the learner's neurons
+   */
+  public int[] getWinCounts() {
+    return Arrays.copyOf(winCounts, winCounts.length);
+  }
+
+  /**
+   * @return The number of neurons that won no stimuli in the epoch
+   */
+  public int getDeadNeuronCount() {
+    int dead = 0;
+    for (int wins : winCounts) {
+      if (wins == 0) {
+        dead ++;
+      }
+    }
+    return dead;
+  }
+
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /**
+   * @return The number of bytes allocated by the training thread during the epoch, or -1 if the JVM does not
+   *    measure allocation per thread
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("<EpochStatistics: epoch=%d/%d, learningRate=%.4f, winnerChanges=%d, " +
+      "meanQuantizationError=%.4f, deadNeurons=%d/%d, wallTime=%.3fms, allocatedBytes=%d>", epoch, epochs,
+      learningRate, winnerChanges, meanQuantizationError, getDeadNeuronCount(), winCounts.length,
+      wallTimeNanos / 1e6, allocatedBytes);
+  }
+}
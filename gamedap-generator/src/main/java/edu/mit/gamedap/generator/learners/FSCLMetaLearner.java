@@ -18,6 +18,7 @@ import edu.mit.gamedap.generator.datatypes.Vector;
 public class FSCLMetaLearner extends MetaCompetitiveLearner {
   private final Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Integer> neuronWins;
   private final double rivalPenalty;
+  private LearningSchedule rivalPenaltySchedule = LearningSchedule.constant();
   private final double contextWeight;
 
   public FSCLMetaLearner(double learningRate, double contextWeight, long maxPosition, Set<Character> characterSet,
@@ -42,9 +43,23 @@ public class FSCLMetaLearner extends MetaCompetitiveLearner {
     this.contextWeight = contextWeight;
   }
 
+  /**
+   * @param rivalPenaltySchedule The schedule that scales the rival penalty
+   * @see FSCLStringLearner#setRivalPenaltySchedule(LearningSchedule)
+   */
+  public void setRivalPenaltySchedule(LearningSchedule rivalPenaltySchedule) {
+    this.rivalPenaltySchedule = rivalPenaltySchedule;
+  }
+
+  @Override
+  boolean isScheduled() {
+    return super.isScheduled() || rivalPenaltySchedule != LearningSchedule.constant();
+  }
+
   @Override
-  public void initialize(int neuronCount, List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> stimuli) {
-    super.initialize(neuronCount, stimuli);
+  public void initialize(int neuronCount, List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> stimuli,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> initialNeurons) {
+    super.initialize(neuronCount, stimuli, initialNeurons);
     neuronWins.clear();
   }
   
@@ -58,13 +73,14 @@ public class FSCLMetaLearner extends MetaCompetitiveLearner {
   }
   
   @Override
-  void trainSingleStimulus(Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> stimulus, double learningRate) {
+  Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> trainSingleStimulus(Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> stimulus, double learningRate) {
     List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> winningNeurons = this.getWinningNeurons(stimulus, 2);
     Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> winner = winningNeurons.get(0);
     Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> rival = winningNeurons.get(1);
 
     neuronWins.merge(winner, 1, Integer::sum);
     this.trainSelectedNeuron(stimulus, winner, learningRate);
-    this.trainSelectedNeuron(stimulus, rival, rivalPenalty);
+    this.trainSelectedNeuron(stimulus, rival, this.getScheduledRate(rivalPenaltySchedule, rivalPenalty));
+    return winner;
   }
 }
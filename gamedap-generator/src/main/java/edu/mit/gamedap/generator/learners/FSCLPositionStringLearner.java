@@ -16,6 +16,7 @@ import edu.mit.gamedap.generator.datatypes.Vector;
 public class FSCLPositionStringLearner extends PositionStringCompetitiveLearner {
   private final Map<Vector<LinePositionContext, Character>, Integer> neuronWins;
   private final double rivalPenalty;
+  private LearningSchedule rivalPenaltySchedule = LearningSchedule.constant();
   private final double contextWeight;
 
   public FSCLPositionStringLearner(double learningRate, double contextWeight, long maxPosition, Set<Character> characterSet) {
@@ -32,9 +33,23 @@ public class FSCLPositionStringLearner extends PositionStringCompetitiveLearner
     this.contextWeight = contextWeight;
   }
 
+  /**
+   * @param rivalPenaltySchedule The schedule that scales the rival penalty
+   * @see FSCLStringLearner#setRivalPenaltySchedule(LearningSchedule)
+   */
+  public void setRivalPenaltySchedule(LearningSchedule rivalPenaltySchedule) {
+    this.rivalPenaltySchedule = rivalPenaltySchedule;
+  }
+
+  @Override
+  boolean isScheduled() {
+    return super.isScheduled() || rivalPenaltySchedule != LearningSchedule.constant();
+  }
+
   @Override
-  public void initialize(int neuronCount, List<Vector<LinePositionContext, Character>> stimuli) {
-    super.initialize(neuronCount, stimuli);
+  public void initialize(int neuronCount, List<Vector<LinePositionContext, Character>> stimuli,
+      List<Vector<LinePositionContext, Character>> initialNeurons) {
+    super.initialize(neuronCount, stimuli, initialNeurons);
     neuronWins.clear();
   }
   
@@ -46,13 +61,14 @@ public class FSCLPositionStringLearner extends PositionStringCompetitiveLearner
   }
   
   @Override
-  void trainSingleStimulus(Vector<LinePositionContext, Character> stimulus, double learningRate) {
+  Vector<LinePositionContext, Character> trainSingleStimulus(Vector<LinePositionContext, Character> stimulus, double learningRate) {
     List<Vector<LinePositionContext, Character>> winningNeurons = this.getWinningNeurons(stimulus, 2);
     Vector<LinePositionContext, Character> winner = winningNeurons.get(0);
     Vector<LinePositionContext, Character> rival = winningNeurons.get(1);
 
     neuronWins.merge(winner, 1, Integer::sum);
     this.trainSelectedNeuron(stimulus, winner, learningRate);
-    this.trainSelectedNeuron(stimulus, rival, rivalPenalty);
+    this.trainSelectedNeuron(stimulus, rival, this.getScheduledRate(rivalPenaltySchedule, rivalPenalty));
+    return winner;
   }
 }
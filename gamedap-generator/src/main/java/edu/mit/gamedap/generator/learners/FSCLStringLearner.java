@@ -16,6 +16,7 @@ import edu.mit.gamedap.generator.datatypes.Vector;
 public class FSCLStringLearner extends StringCompetitiveLearner {
   private final Map<Vector<EmptyContext, Character>, Integer> neuronWins;
   private final double rivalPenalty;
+  private LearningSchedule rivalPenaltySchedule = LearningSchedule.constant();
   private final double contextWeight;
 
   public FSCLStringLearner(double learningRate, double contextWeight, Set<Character> characterSet) {
@@ -32,9 +33,25 @@ public class FSCLStringLearner extends StringCompetitiveLearner {
     this.rivalPenalty = rivalPenalty;
   }
 
+  /**
+   * Sets how the rival penalty changes from epoch to epoch, independently of the learning rate. Annealing it
+   * towards zero stops rivals from being pushed away once the clusters have formed. It is constant by default.
+   * 
+   * @param rivalPenaltySchedule The schedule that scales the rival penalty
+   */
+  public void setRivalPenaltySchedule(LearningSchedule rivalPenaltySchedule) {
+    this.rivalPenaltySchedule = rivalPenaltySchedule;
+  }
+
+  @Override
+  boolean isScheduled() {
+    return super.isScheduled() || rivalPenaltySchedule != LearningSchedule.constant();
+  }
+
   @Override
-  public void initialize(int neuronCount, List<Vector<EmptyContext, Character>> stimuli) {
-    super.initialize(neuronCount, stimuli);
+  public void initialize(int neuronCount, List<Vector<EmptyContext, Character>> stimuli,
+      List<Vector<EmptyContext, Character>> initialNeurons) {
+    super.initialize(neuronCount, stimuli, initialNeurons);
     neuronWins.clear();
   }
   
@@ -46,13 +63,14 @@ public class FSCLStringLearner extends StringCompetitiveLearner {
   }
   
   @Override
-  void trainSingleStimulus(Vector<EmptyContext, Character> stimulus, double learningRate) {
+  Vector<EmptyContext, Character> trainSingleStimulus(Vector<EmptyContext, Character> stimulus, double learningRate) {
     List<Vector<EmptyContext, Character>> winningNeurons = this.getWinningNeurons(stimulus, 2);
     Vector<EmptyContext, Character> winner = winningNeurons.get(0);
     Vector<EmptyContext, Character> rival = winningNeurons.get(1);
 
     neuronWins.merge(winner, 1, Integer::sum);
     this.trainSelectedNeuron(stimulus, winner, learningRate);
-    this.trainSelectedNeuron(stimulus, rival, rivalPenalty);
+    this.trainSelectedNeuron(stimulus, rival, this.getScheduledRate(rivalPenaltySchedule, rivalPenalty));
+    return winner;
   }
 }
@@ -0,0 +1,125 @@
+package edu.mit.gamedap.generator.learners;
+
+/**
+ * Scales a learner's learning rate (or an FSCL learner's rival penalty) from one epoch to the next. Large early
+ * updates move the neurons quickly towards the stimuli, and small later ones let the clusters settle instead of
+ * being pulled back and forth, so a decaying schedule reaches stable clusters in fewer epochs than a constant
+ * rate does.
+ *
+ * @see CompetitiveLearner#setLearningSchedule(LearningSchedule)
+ */
+public abstract class LearningSchedule {
+  private static final LearningSchedule CONSTANT = new LearningSchedule() {
+    @Override
+    public double factor(int epoch, int epochs) {
+      return 1;
+    }
+
+    @Override
+    public String toString() {
+      return "<LearningSchedule: constant>";
+    }
+  };
+
+  /**
+   * Gives the amount by which the base rate is multiplied in an epoch.
+   *
+   * @param epoch The epoch being trained, starting from 0
+   * @param epochs The total number of epochs the learner is trained for
+   * @return The factor for the epoch, usually between 0 and 1
+   */
+  public abstract double factor(int epoch, int epochs);
+
+  /**
+   * A schedule that keeps the base rate throughout; this is the default behaviour of the learners.
+   */
+  public static LearningSchedule constant() {
+    return CONSTANT;
+  }
+
+  /**
+   * A schedule that decreases the rate in equal steps, from the base rate in the first epoch to a fraction of it
+   * in the last.
+   *
+   * @param finalFraction The fraction of the base rate to use in the last epoch
+   */
+  public static LearningSchedule linear(double finalFraction) {
+    assert(finalFraction >= 0);
+    return new LearningSchedule() {
+      @Override
+      public double factor(int epoch, int epochs) {
+        if (epochs <= 1) {
+          return 1;
+        }
+        return 1 - (1 - finalFraction) * Math.min(epoch, epochs - 1) / (epochs - 1);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<LearningSchedule: linear, finalFraction=%.3f>", finalFraction);
+      }
+    };
+  }
+
+  /**
+   * A schedule that multiplies the rate by the same decay after every epoch.
+   *
+   * @param decay The factor applied after each epoch, between 0 and 1
+   */
+  public static LearningSchedule exponential(double decay) {
+    assert(decay > 0 && decay <= 1);
+    return new LearningSchedule() {
+      @Override
+      public double factor(int epoch, int epochs) {
+        return Math.pow(decay, epoch);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<LearningSchedule: exponential, decay=%.3f>", decay);
+      }
+    };
+  }
+
+  /**
+   * A schedule that divides the base rate by 1 + k * epoch, so that it falls quickly at first and slowly later.
+   *
+   * @param k How quickly the rate falls
+   */
+  public static LearningSchedule inverseTime(double k) {
+    assert(k >= 0);
+    return new LearningSchedule() {
+      @Override
+      public double factor(int epoch, int epochs) {
+        return 1 / (1 + k * epoch);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<LearningSchedule: inverseTime, k=%.3f>", k);
+      }
+    };
+  }
+
+  /**
+   * A schedule that keeps the rate constant for a number of epochs at a time, multiplying it by a factor between
+   * these steps.
+   *
+   * @param stepEpochs The number of epochs in each step
+   * @param stepFactor The factor applied at the start of each new step, between 0 and 1
+   */
+  public static LearningSchedule step(int stepEpochs, double stepFactor) {
+    assert(stepEpochs > 0 && stepFactor > 0 && stepFactor <= 1);
+    return new LearningSchedule() {
+      @Override
+      public double factor(int epoch, int epochs) {
+        return Math.pow(stepFactor, epoch / stepEpochs);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<LearningSchedule: step, stepEpochs=%d, stepFactor=%.3f>", stepEpochs, stepFactor);
+      }
+    };
+  }
+}
@@ -54,7 +54,7 @@ public class MetaCompetitiveLearner extends CompetitiveLearner<LinePositionConte
 
   @Override
   Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> generateNeuron(int size) {
-    Random random = new Random();
+    Random random = this.getRandom();
 
     LinePositionContext context = LinePositionContext.makeRandom(maxPosition);
     List<Vector<MetaContext<EmptyContext>, Character>> subVectors = new ArrayList<>();
@@ -100,9 +100,9 @@ public class MetaCompetitiveLearner extends CompetitiveLearner<LinePositionConte
       .boxed().toList());
 
     // Choose a random subset to modify
-    int maxAdaptations = (int) Math.round(Math.ceil(Math.abs(stimulus.size() * learningAmount)));
+    int maxAdaptations = this.getAdaptationCount(stimulus.size(), learningAmount);
     int actualAdaptations = Math.min(maxAdaptations, targetIndices.size());
-    Collections.shuffle(targetIndices);
+    Collections.shuffle(targetIndices, this.getRandom());
     List<Integer> adaptationIndices = targetIndices.subList(0, actualAdaptations);
 
     // Create similarities if positive or random differences if negative
@@ -126,8 +126,9 @@ public class MetaCompetitiveLearner extends CompetitiveLearner<LinePositionConte
   }
 
   @Override
-  void trainSingleStimulus(Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> stimulus, double learningRate) {
+  Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> trainSingleStimulus(Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> stimulus, double learningRate) {
     Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> winningNeuron = this.getWinningNeuron(stimulus);
     this.trainSelectedNeuron(stimulus, winningNeuron, learningRate);
+    return winningNeuron;
   }
 }
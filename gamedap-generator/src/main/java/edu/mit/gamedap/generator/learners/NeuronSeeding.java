@@ -0,0 +1,277 @@
+package edu.mit.gamedap.generator.learners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+
+/**
+ * Decides where a learner's neurons start. Random neurons mostly start far from any stimulus, so many of them
+ * never win and the early epochs are spent dragging the rest into place; starting the neurons at copies of
+ * well-spread stimuli gives every neuron something to win from the first epoch.
+ *
+ * Distances are measured with {@link Vector#distance(Vector, double)} and the learner's context weight. Any
+ * neurons that a seeding cannot place (e.g. because there are fewer distinct stimuli than neurons) are generated
+ * randomly as before.
+ *
+ * @see CompetitiveLearner#setSeeding(NeuronSeeding)
+ */
+public abstract class NeuronSeeding {
+  private static final NeuronSeeding RANDOM = new NeuronSeeding() {
+    @Override
+    public <C extends VectorContext, T> List<Vector<C, T>> select(List<Vector<C, T>> stimuli,
+        List<Vector<C, T>> existing, int count, double contextWeight, Random random) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+      return "<NeuronSeeding: random>";
+    }
+  };
+
+  /**
+   * Chooses the stimuli that new neurons are copied from.
+   *
+   * @param stimuli The stimuli the learner is trained on
+   * @param existing The neurons the learner already has, which new ones should be spread away from
+   * @param count The most stimuli to choose
+   * @param contextWeight The weight of the context in distances
+   * @param random The source of random choices
+   * @return At most count stimuli, which the learner copies; the stimuli themselves are not modified
+   */
+  public abstract <C extends VectorContext, T> List<Vector<C, T>> select(List<Vector<C, T>> stimuli,
+    List<Vector<C, T>> existing, int count, double contextWeight, Random random);
+
+  /**
+   * Generates every neuron randomly; this is the default behaviour of the learners.
+   */
+  public static NeuronSeeding random() {
+    return RANDOM;
+  }
+
+  /**
+   * Copies a uniform random sample of the distinct stimuli, so that frequent windows are likely to get a neuron
+   * but no two neurons start at the same place.
+   */
+  public static NeuronSeeding distinctStimuli() {
+    return new NeuronSeeding() {
+      @Override
+      public <C extends VectorContext, T> List<Vector<C, T>> select(List<Vector<C, T>> stimuli,
+          List<Vector<C, T>> existing, int count, double contextWeight, Random random) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < stimuli.size(); i++) {
+          order.add(i);
+        }
+        Collections.shuffle(order, random);
+
+        List<Vector<C, T>> chosen = new ArrayList<>();
+        for (int i : order) {
+          if (chosen.size() >= count) {
+            break;
+          }
+          Vector<C, T> candidate = stimuli.get(i);
+          if (!isCovered(candidate, existing, contextWeight) && !isCovered(candidate, chosen, contextWeight)) {
+            chosen.add(candidate);
+          }
+        }
+        return chosen;
+      }
+
+      @Override
+      public String toString() {
+        return "<NeuronSeeding: distinctStimuli>";
+      }
+    };
+  }
+
+  /**
+   * k-means++: chooses stimuli one at a time, each with a probability proportional to its squared distance from
+   * the nearest neuron chosen so far, which spreads the neurons over the stimuli. This takes a pass over the
+   * stimuli per neuron, which costs about as much as one epoch of training.
+   */
+  public static NeuronSeeding kMeansPlusPlus() {
+    return new NeuronSeeding() {
+      @Override
+      public <C extends VectorContext, T> List<Vector<C, T>> select(List<Vector<C, T>> stimuli,
+          List<Vector<C, T>> existing, int count, double contextWeight, Random random) {
+        double[] weights = new double[stimuli.size()];
+        Arrays.fill(weights, 1);
+        return weightedKMeansPlusPlus(stimuli, weights, existing, count, contextWeight, random);
+      }
+
+      @Override
+      public String toString() {
+        return "<NeuronSeeding: kMeansPlusPlus>";
+      }
+    };
+  }
+
+  /**
+   * k-means|| (Bahmani et al., "Scalable K-Means++"): instead of one pass per neuron, takes a few passes that
+   * each sample many stimuli at once, with probabilities proportional to their squared distances, then reduces
+   * the candidates to the number of neurons with k-means++ weighted by how many stimuli each candidate is nearest
+   * to. Every pass is spread over the common fork-join pool, so this suits large inputs better than k-means++.
+   *
+   * @param rounds The number of sampling passes, e.g. 5
+   * @param oversampling The expected number of candidates per pass, as a multiple of the neuron count, e.g. 2
+   */
+  public static NeuronSeeding kMeansParallel(int rounds, double oversampling) {
+    assert(rounds > 0 && oversampling > 0);
+    return new NeuronSeeding() {
+      @Override
+      public <C extends VectorContext, T> List<Vector<C, T>> select(List<Vector<C, T>> stimuli,
+          List<Vector<C, T>> existing, int count, double contextWeight, Random random) {
+        if (count <= 0) {
+          return Collections.emptyList();
+        }
+
+        List<Vector<C, T>> candidates = new ArrayList<>();
+        double[] nearest = new double[stimuli.size()];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        if (existing.isEmpty()) {
+          candidates.add(stimuli.get(random.nextInt(stimuli.size())));
+          updateNearest(stimuli, nearest, candidates, contextWeight);
+        } else {
+          updateNearest(stimuli, nearest, existing, contextWeight);
+        }
+
+        for (int round = 0; round < rounds; round++) {
+          double total = sumOfSquares(nearest);
+          if (total == 0) {
+            break;
+          }
+          List<Vector<C, T>> sampled = new ArrayList<>();
+          for (int i = 0; i < stimuli.size(); i++) {
+            double p = oversampling * count * nearest[i] * nearest[i] / total;
+            if (random.nextDouble() < p) {
+              sampled.add(stimuli.get(i));
+            }
+          }
+          candidates.addAll(sampled);
+          updateNearest(stimuli, nearest, sampled, contextWeight);
+        }
+        if (candidates.isEmpty()) {
+          return Collections.emptyList();
+        }
+
+        // Weigh each candidate by the number of stimuli it is nearest to, then reduce them with k-means++
+        double[] weights = new double[candidates.size()];
+        int[] owners = IntStream.range(0, stimuli.size())
+          .parallel()
+          .map(i -> nearestIndex(stimuli.get(i), candidates, contextWeight))
+          .toArray();
+        for (int owner : owners) {
+          weights[owner] += 1;
+        }
+        return weightedKMeansPlusPlus(candidates, weights, existing, count, contextWeight, random);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<NeuronSeeding: kMeansParallel, rounds=%d, oversampling=%.3f>", rounds,
+          oversampling);
+      }
+    };
+  }
+
+  /**
+   * Weighted k-means++ over a list of points, skipping points that are already covered by a chosen neuron.
+   */
+  private static <C extends VectorContext, T> List<Vector<C, T>> weightedKMeansPlusPlus(List<Vector<C, T>> points,
+      double[] weights, List<Vector<C, T>> existing, int count, double contextWeight, Random random) {
+    List<Vector<C, T>> chosen = new ArrayList<>();
+    double[] nearest = new double[points.size()];
+    if (existing.isEmpty()) {
+      // The first neuron is chosen by weight alone
+      Arrays.fill(nearest, 1);
+    } else {
+      Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+      updateNearest(points, nearest, existing, contextWeight);
+    }
+
+    while (chosen.size() < count) {
+      double total = 0;
+      for (int i = 0; i < points.size(); i++) {
+        total += weights[i] * nearest[i] * nearest[i];
+      }
+      if (total == 0) {
+        // Every point is at a chosen neuron already
+        break;
+      }
+
+      double target = random.nextDouble() * total;
+      int pick = -1;
+      for (int i = 0; i < points.size() && target >= 0; i++) {
+        double p = weights[i] * nearest[i] * nearest[i];
+        if (p > 0) {
+          pick = i;
+          target -= p;
+        }
+      }
+      Vector<C, T> next = points.get(pick);
+      chosen.add(next);
+      if (chosen.size() == 1 && existing.isEmpty()) {
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+      }
+      updateNearest(points, nearest, Collections.singletonList(next), contextWeight);
+    }
+    return chosen;
+  }
+
+  /**
+   * Lowers each point's distance to its nearest neuron to account for new neurons, in parallel.
+   */
+  private static <C extends VectorContext, T> void updateNearest(List<Vector<C, T>> points, double[] nearest,
+      List<Vector<C, T>> neurons, double contextWeight) {
+    if (neurons.isEmpty()) {
+      return;
+    }
+    IntStream.range(0, points.size())
+      .parallel()
+      .forEach(i -> {
+        double distance = nearest[i];
+        for (Vector<C, T> neuron : neurons) {
+          distance = Math.min(distance, neuron.distance(points.get(i), contextWeight));
+        }
+        nearest[i] = distance;
+      });
+  }
+
+  private static <C extends VectorContext, T> int nearestIndex(Vector<C, T> point, List<Vector<C, T>> neurons,
+      double contextWeight) {
+    int index = 0;
+    double minDistance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < neurons.size(); i++) {
+      double distance = neurons.get(i).distance(point, contextWeight);
+      if (distance < minDistance) {
+        index = i;
+        minDistance = distance;
+      }
+    }
+    return index;
+  }
+
+  private static double sumOfSquares(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      total += value * value;
+    }
+    return total;
+  }
+
+  private static <C extends VectorContext, T> boolean isCovered(Vector<C, T> point, List<Vector<C, T>> neurons,
+      double contextWeight) {
+    for (Vector<C, T> neuron : neurons) {
+      if (neuron.distance(point, contextWeight) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -58,13 +58,13 @@ public class PositionStringCompetitiveLearner extends CompetitiveLearner<LinePos
   void trainSelectedNeuron(Vector<LinePositionContext, Character> stimulus, Vector<LinePositionContext, Character> neuron, double learningAmount) {
     // Find the differing indices if learningAmount is positive, or the matching ones if negative
     List<Integer> targetIndices = new ArrayList<>(IntStream.range(0, stimulus.size())
-      .filter(i -> (stimulus.get(i) == neuron.get(i)) != (learningAmount >= 0))
+      .filter(i -> stimulus.get(i).equals(neuron.get(i)) != (learningAmount >= 0))
       .boxed().toList());
 
     // Choose a random subset to modify
-    int maxAdaptations = (int) Math.round(Math.ceil(Math.abs(stimulus.size() * learningAmount)));
+    int maxAdaptations = this.getAdaptationCount(stimulus.size(), learningAmount);
     int actualAdaptations = Math.min(maxAdaptations, targetIndices.size());
-    Collections.shuffle(targetIndices);
+    Collections.shuffle(targetIndices, this.getRandom());
     List<Integer> adaptationIndices = targetIndices.subList(0, actualAdaptations);
 
     // Create similarities if positive or random differences if negative
@@ -73,7 +73,7 @@ public class PositionStringCompetitiveLearner extends CompetitiveLearner<LinePos
         if (learningAmount >= 0) {
           neuron.set(i, stimulus.get(i));
         } else {
-          while (neuron.get(i) == stimulus.get(i)) {
+          while (neuron.get(i).equals(stimulus.get(i))) {
             neuron.set(i, neuron.randomElement());
           }
         }
@@ -88,8 +88,9 @@ public class PositionStringCompetitiveLearner extends CompetitiveLearner<LinePos
   }
 
   @Override
-  void trainSingleStimulus(Vector<LinePositionContext, Character> stimulus, double learningRate) {
+  Vector<LinePositionContext, Character> trainSingleStimulus(Vector<LinePositionContext, Character> stimulus, double learningRate) {
     Vector<LinePositionContext, Character> winningNeuron = this.getWinningNeuron(stimulus);
     this.trainSelectedNeuron(stimulus, winningNeuron, learningRate);
+    return winningNeuron;
   }
 }
@@ -0,0 +1,156 @@
+package edu.mit.gamedap.generator.learners;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Quantizes every window of length w in a text at once, by Hamming distance, for windows that overlap like
+ * those made by a primer's makeSubstringVectors. Quantizing each window on its own compares all w of its
+ * characters with every neuron, although consecutive windows share w - 1 of them.
+ *
+ * Instead, the text is indexed by character as bitsets (bit p is set where the text has that character at p).
+ * For a neuron, shifting the bitset of its j-th character down by j marks the windows whose j-th character
+ * matches it, so the bitsets of a neuron's characters, slid into place, add up to its match count for 64 windows
+ * at a time. The sums are kept in bit-sliced counters, and so are the best count and neuron of each window, so
+ * that a neuron costs a few word operations per character for every 64 windows. Any window length works; the
+ * counters just get more bits.
+ *
+ * The text is processed in blocks of windows, in parallel, with the bitsets built for one block at a time.
+ */
+final class SlidingWindowQuantizer {
+  /** The number of 64-bit words of windows in a block. */
+  static final int BLOCK_WORDS = 64;
+
+  private SlidingWindowQuantizer() {}
+
+  /**
+   * Finds the nearest neuron to every window of a text.
+   *
+   * @param text The text that the windows are taken from
+   * @param w The length of the windows and neurons
+   * @param neurons The neurons, each of length w
+   * @return For each window start from 0 to text.length - w, the index of the neuron with the fewest mismatches,
+   *    the first such neuron if there is a tie
+   */
+  static int[] quantizeWindows(char[] text, int w, char[][] neurons) {
+    assert(w > 0 && w <= text.length && neurons.length > 0);
+    int windowCount = text.length - w + 1;
+
+    Map<Character, Integer> codes = new HashMap<>();
+    int[] textCodes = new int[text.length];
+    for (int p = 0; p < text.length; p++) {
+      Integer code = codes.get(text[p]);
+      if (code == null) {
+        code = codes.size();
+        codes.put(text[p], code);
+      }
+      textCodes[p] = code;
+    }
+    // Neuron characters that never appear in the text can never match, so they have no code
+    int[][] neuronCodes = new int[neurons.length][w];
+    for (int k = 0; k < neurons.length; k++) {
+      assert(neurons[k].length == w);
+      for (int j = 0; j < w; j++) {
+        neuronCodes[k][j] = codes.getOrDefault(neurons[k][j], -1);
+      }
+    }
+
+    int[] nearest = new int[windowCount];
+    int windowWords = (windowCount + 63) / 64;
+    int blockCount = (windowWords + BLOCK_WORDS - 1) / BLOCK_WORDS;
+    IntStream.range(0, blockCount)
+      .parallel()
+      .forEach(b -> quantizeBlock(textCodes, codes.size(), w, neuronCodes, b * BLOCK_WORDS,
+        Math.min(windowWords, (b + 1) * BLOCK_WORDS), windowCount, nearest));
+    return nearest;
+  }
+
+  /**
+   * Quantizes the windows in words [firstWord, endWord), i.e. those starting at 64 * firstWord up to (but not
+   * including) 64 * endWord.
+   */
+  private static void quantizeBlock(int[] textCodes, int alphabetSize, int w, int[][] neuronCodes, int firstWord,
+      int endWord, int windowCount, int[] nearest) {
+    int words = endWord - firstWord;
+    // The windows of the block reach up to w - 1 characters past its last window start
+    int textWords = words + (w + 62) / 64 + 1;
+    int textStart = firstWord * 64;
+    long[][] bitsets = new long[alphabetSize][textWords];
+    for (int p = textStart; p < Math.min(textCodes.length, textStart + textWords * 64); p++) {
+      int offset = p - textStart;
+      bitsets[textCodes[p]][offset >>> 6] |= 1L << offset;
+    }
+
+    int countBits = 32 - Integer.numberOfLeadingZeros(w);
+    int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(neuronCodes.length - 1));
+    long[][] bestCount = new long[countBits][words];
+    long[][] bestIndex = new long[indexBits][words];
+    long[] count = new long[countBits];
+
+    for (int k = 0; k < neuronCodes.length; k++) {
+      int[] codes = neuronCodes[k];
+      for (int q = 0; q < words; q++) {
+        // Add up the matches of the neuron's characters, each slid to line up with its position in the windows
+        Arrays.fill(count, 0);
+        for (int j = 0; j < w; j++) {
+          if (codes[j] < 0) {
+            continue;
+          }
+          long carry = shiftedWord(bitsets[codes[j]], q, j);
+          for (int bit = 0; bit < countBits && carry != 0; bit++) {
+            long sum = count[bit] ^ carry;
+            carry &= count[bit];
+            count[bit] = sum;
+          }
+        }
+
+        // Mark the windows where this neuron has strictly more matches than the best so far
+        long greater = 0;
+        long equal = -1L;
+        for (int bit = countBits - 1; bit >= 0; bit--) {
+          greater |= equal & count[bit] & ~bestCount[bit][q];
+          equal &= ~(count[bit] ^ bestCount[bit][q]);
+        }
+        if (greater == 0) {
+          continue;
+        }
+        for (int bit = 0; bit < countBits; bit++) {
+          bestCount[bit][q] = (bestCount[bit][q] & ~greater) | (count[bit] & greater);
+        }
+        for (int bit = 0; bit < indexBits; bit++) {
+          long indexBit = ((k >>> bit) & 1) != 0 ? greater : 0;
+          bestIndex[bit][q] = (bestIndex[bit][q] & ~greater) | indexBit;
+        }
+      }
+    }
+
+    for (int q = 0; q < words; q++) {
+      for (int i = 0; i < 64; i++) {
+        int window = (firstWord + q) * 64 + i;
+        if (window >= windowCount) {
+          return;
+        }
+        int index = 0;
+        for (int bit = 0; bit < indexBits; bit++) {
+          index |= (int) ((bestIndex[bit][q] >>> i) & 1) << bit;
+        }
+        nearest[window] = index;
+      }
+    }
+  }
+
+  /**
+   * @return Word q of a bitset shifted down by j bits, so that bit i of the result is bit i + j of the bitset
+   */
+  private static long shiftedWord(long[] bitset, int q, int j) {
+    int word = q + (j >>> 6);
+    int shift = j & 63;
+    long low = word < bitset.length ? bitset[word] >>> shift : 0;
+    if (shift == 0 || word + 1 >= bitset.length) {
+      return low;
+    }
+    return low | (bitset[word + 1] << (64 - shift));
+  }
+}
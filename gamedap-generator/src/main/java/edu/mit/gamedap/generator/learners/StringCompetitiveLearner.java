@@ -55,13 +55,13 @@ public class StringCompetitiveLearner extends CompetitiveLearner<EmptyContext, C
   void trainSelectedNeuron(Vector<EmptyContext, Character> stimulus, Vector<EmptyContext, Character> neuron, double learningAmount) {
     // Find the differing indices if learningAmount is positive, or the matching ones if negative
     List<Integer> targetIndices = new ArrayList<>(IntStream.range(0, stimulus.size())
-      .filter(i -> (stimulus.get(i) == neuron.get(i)) != (learningAmount >= 0))
+      .filter(i -> stimulus.get(i).equals(neuron.get(i)) != (learningAmount >= 0))
       .boxed().toList());
 
     // Choose a random subset to modify
-    int maxAdaptations = (int) Math.round(Math.ceil(Math.abs(stimulus.size() * learningAmount)));
+    int maxAdaptations = this.getAdaptationCount(stimulus.size(), learningAmount);
     int actualAdaptations = Math.min(maxAdaptations, targetIndices.size());
-    Collections.shuffle(targetIndices);
+    Collections.shuffle(targetIndices, this.getRandom());
     List<Integer> adaptationIndices = targetIndices.subList(0, actualAdaptations);
 
     // Create similarities if positive or random differences if negative
@@ -70,16 +70,71 @@ public class StringCompetitiveLearner extends CompetitiveLearner<EmptyContext, C
         if (learningAmount >= 0) {
           neuron.set(i, stimulus.get(i));
         } else {
-          while (neuron.get(i) == stimulus.get(i)) {
+          while (neuron.get(i).equals(stimulus.get(i))) {
             neuron.set(i, neuron.randomElement());
           }
         }
       });
   }
 
+  /**
+   * Quantizes the windows of a text with a {@link SlidingWindowQuantizer} when the vectors are consecutive
+   * windows, each starting one character after the last (as the string primer makes them), and one by one
+   * otherwise.
+   */
+  @Override
+  int[] quantizeAll(List<Vector<EmptyContext, Character>> vectors) {
+    char[] text = joinWindows(vectors);
+    if (text == null) {
+      return super.quantizeAll(vectors);
+    }
+
+    List<Vector<EmptyContext, Character>> neurons = this.getNeurons();
+    int w = vectors.get(0).size();
+    char[][] neuronValues = new char[neurons.size()][w];
+    for (int k = 0; k < neurons.size(); k++) {
+      for (int j = 0; j < w; j++) {
+        neuronValues[k][j] = neurons.get(k).get(j);
+      }
+    }
+    return SlidingWindowQuantizer.quantizeWindows(text, w, neuronValues);
+  }
+
+  /**
+   * @return The text the vectors are windows of, or null if they are not consecutive windows of a single text
+   */
+  static char[] joinWindows(List<Vector<EmptyContext, Character>> vectors) {
+    if (vectors.isEmpty() || !(vectors.get(0) instanceof StringVector)) {
+      return null;
+    }
+    int w = vectors.get(0).size();
+    if (w == 0) {
+      return null;
+    }
+
+    char[] text = new char[vectors.size() + w - 1];
+    for (int j = 0; j < w; j++) {
+      text[j] = vectors.get(0).get(j);
+    }
+    for (int i = 1; i < vectors.size(); i++) {
+      Vector<EmptyContext, Character> window = vectors.get(i);
+      if (!(window instanceof StringVector) || window.size() != w) {
+        return null;
+      }
+      for (int j = 0; j < w - 1; j++) {
+        if (window.get(j) != text[i + j]) {
+          return null;
+        }
+      }
+      text[i + w - 1] = window.get(w - 1);
+    }
+    return text;
+  }
+
   @Override
-  void trainSingleStimulus(Vector<EmptyContext, Character> stimulus, double learningRate) {
+  Vector<EmptyContext, Character> trainSingleStimulus(Vector<EmptyContext, Character> stimulus, double learningRate) {
     Vector<EmptyContext, Character> winningNeuron = this.getWinningNeuron(stimulus);
     this.trainSelectedNeuron(stimulus, winningNeuron, learningRate);
+    return winningNeuron;
   }
 }
@@ -0,0 +1,38 @@
+package edu.mit.gamedap.generator.learners;
+
+/**
+ * Receives the statistics of each epoch of {@link CompetitiveLearner#train(int) training}, and may stop training
+ * early, e.g. once the codebook has stopped changing.
+ *
+ * @see CompetitiveLearner#addTrainingListener(TrainingListener)
+ */
+public interface TrainingListener {
+
+  /**
+   * Called after every epoch, on the thread doing the training.
+   *
+   * @param statistics The statistics of the epoch that has just finished
+   * @return true to continue training, or false to stop after this epoch
+   */
+  public boolean epochFinished(EpochStatistics statistics);
+
+  /**
+   * A listener that stops training once no stimulus has changed its winning neuron for a number of consecutive
+   * epochs. Listeners like this one keep state, so each learner needs its own.
+   *
+   * @param patience The number of consecutive epochs without winner changes to wait for
+   * @return A new listener
+   */
+  public static TrainingListener stopWhenStable(int patience) {
+    assert(patience > 0);
+    return new TrainingListener() {
+      private int stableEpochs = 0;
+
+      @Override
+      public boolean epochFinished(EpochStatistics statistics) {
+        this.stableEpochs = statistics.getWinnerChanges() == 0 ? this.stableEpochs + 1 : 0;
+        return this.stableEpochs < patience;
+      }
+    };
+  }
+}
@@ -1,9 +1,11 @@
 package edu.mit.gamedap.generator.parsers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.datatypes.EmptyContext;
 import edu.mit.gamedap.generator.datatypes.GeneralContextStringVector;
 import edu.mit.gamedap.generator.datatypes.LinePositionContext;
@@ -12,8 +14,9 @@ import edu.mit.gamedap.generator.datatypes.MetaVector;
 import edu.mit.gamedap.generator.datatypes.Vector;
 import edu.mit.gamedap.generator.datatypes.VectorCluster;
 import edu.mit.gamedap.generator.datatypes.TextGroup;
-import edu.mit.gamedap.generator.learners.CompetitiveLearner;
 import edu.mit.gamedap.generator.learners.FSCLMetaLearner;
+import edu.mit.gamedap.generator.learners.LearningSchedule;
+import edu.mit.gamedap.generator.learners.NeuronSeeding;
 
 
 /**
@@ -37,18 +40,16 @@ public class MetaLearningPrimer implements ParseLearningPrimer<LinePositionConte
   private final int depthIncreaseMaxLength;
   private final double subContextWeight;
   private final int subVectorLengthMismatchDistance;
+  private TrainingSampler trainingSampler = TrainingSampler.all();
+  private TrainingEnsemble trainingEnsemble = TrainingEnsemble.single();
+  private LearningSchedule learningSchedule = LearningSchedule.constant();
+  private LearningSchedule rivalPenaltySchedule = LearningSchedule.constant();
+  private NeuronSeeding seeding = NeuronSeeding.random();
 
   public MetaLearningPrimer() {
-    this.neuronCount = SampsonParser.DEFAULT_NEURON_COUNT;
-    this.learningRate = SampsonParser.DEFAULT_LEARNING_RATE;
-    this.trainingEpochs = SampsonParser.DEFAULT_TRAINING_EPOCHS;
-    this.contextWeight = 1.0;
-
-    this.maxDepth = DEFAULT_MAX_DEPTH;
-    this.depthIncreaseProbability = DEFAULT_DEPTH_INCREASE_PROBABILITY;
-    this.depthIncreaseMaxLength = DEFAULT_DEPTH_INCREASE_MAX_LENGTH;
-    this.subContextWeight = DEFAULT_SUB_CONTEXT_WEIGHT;
-    this.subVectorLengthMismatchDistance = DEFAULT_SUB_VECTOR_LENGTH_MISMATCH_DISTANCE;
+    this(SampsonParser.DEFAULT_NEURON_COUNT, SampsonParser.DEFAULT_LEARNING_RATE,
+      SampsonParser.DEFAULT_TRAINING_EPOCHS, 1.0, DEFAULT_MAX_DEPTH, DEFAULT_DEPTH_INCREASE_PROBABILITY,
+      DEFAULT_DEPTH_INCREASE_MAX_LENGTH, DEFAULT_SUB_CONTEXT_WEIGHT, DEFAULT_SUB_VECTOR_LENGTH_MISMATCH_DISTANCE);
   }
 
   public MetaLearningPrimer(int neuronCount, double learningRate, int trainingEpochs, double contextWeight,
@@ -64,7 +65,54 @@ public class MetaLearningPrimer implements ParseLearningPrimer<LinePositionConte
     this.depthIncreaseMaxLength = depthIncreaseMaxLength;
     this.subContextWeight = subContextWeight;
     this.subVectorLengthMismatchDistance = subVectorLengthMismatchDistance;
-    
+  }
+
+  /**
+   * Sets the vectors that the learners are trained on; every vector is still assigned to a cluster. Every vector
+   * is trained on by default.
+   *
+   * @param trainingSampler Selects the training vectors
+   */
+  public void setTrainingSampler(TrainingSampler trainingSampler) {
+    this.trainingSampler = trainingSampler;
+  }
+
+  /**
+   * Sets how many learners are trained, e.g. several with different seeds of which the best codebook is kept. A
+   * single, unseeded learner is trained by default.
+   *
+   * @param trainingEnsemble Decides how many learners are trained
+   */
+  public void setTrainingEnsemble(TrainingEnsemble trainingEnsemble) {
+    this.trainingEnsemble = trainingEnsemble;
+  }
+
+  /**
+   * Sets how the learners' learning rate changes from epoch to epoch. It is constant by default.
+   *
+   * @param learningSchedule The schedule that scales the learning rate
+   */
+  public void setLearningSchedule(LearningSchedule learningSchedule) {
+    this.learningSchedule = learningSchedule;
+  }
+
+  /**
+   * Sets how the learners' rival penalty changes from epoch to epoch. It is constant by default.
+   *
+   * @param rivalPenaltySchedule The schedule that scales the rival penalty
+   */
+  public void setRivalPenaltySchedule(LearningSchedule rivalPenaltySchedule) {
+    this.rivalPenaltySchedule = rivalPenaltySchedule;
+  }
+
+  /**
+   * Sets where the learners' neurons start, e.g. at copies of the substring vectors. They are generated randomly
+   * by default.
+   *
+   * @param seeding Chooses the vectors that the neurons start at
+   */
+  public void setSeeding(NeuronSeeding seeding) {
+    this.seeding = seeding;
   }
 
   /**
@@ -129,13 +177,45 @@ public class MetaLearningPrimer implements ParseLearningPrimer<LinePositionConte
   @Override
   public List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> assignVectorClusters(
       List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings,
-      Set<Character> characterSet) {
+      Set<Character> characterSet, Diagnostics diagnostics) {
+    return assignVectorClusters(substrings, characterSet, Collections.emptyList(), diagnostics);
+  }
+
+  /**
+   * Assigns substrings to clusters, starting the learner from a set of previously trained neurons (e.g. the
+   * cluster centers of the level below) instead of random ones.
+   * 
+   * @param substrings A list of meta vectors, where each vector is expected to be of the same length w
+   * @param characterSet The set of all characters contained in the substrings
+   * @param initialNeurons The neurons to start from; taken over and modified by the learner
+   * @param diagnostics The sink for the learner's debugging output
+   * @return A list of vector clusters, where each input string's vector is assigned to exactly one cluster
+   */
+  public List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> assignVectorClusters(
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings,
+      Set<Character> characterSet,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> initialNeurons,
+      Diagnostics diagnostics) {
     long maxPosition = this.getMaxPosition(substrings);
-    CompetitiveLearner<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> cl = new FSCLMetaLearner(
-      learningRate, contextWeight, maxPosition, characterSet, this.maxDepth, this.depthIncreaseProbability, this.depthIncreaseMaxLength,
-      this.subContextWeight, this.subVectorLengthMismatchDistance);
-    cl.initialize(neuronCount, substrings);
-    cl.train(trainingEpochs);
-    return cl.cluster();
+    return trainingEnsemble.train(() -> {
+      FSCLMetaLearner learner = new FSCLMetaLearner(
+        learningRate, contextWeight, maxPosition, characterSet, this.maxDepth, this.depthIncreaseProbability, this.depthIncreaseMaxLength,
+        this.subContextWeight, this.subVectorLengthMismatchDistance);
+      learner.setLearningSchedule(this.learningSchedule);
+      learner.setRivalPenaltySchedule(this.rivalPenaltySchedule);
+      learner.setSeeding(this.seeding);
+      return learner;
+    }, neuronCount, trainingEpochs, initialNeurons, trainingSampler.sample(substrings), substrings, diagnostics);
+  }
+
+  @Override
+  public String toString() {
+    return "<MetaLearningPrimer: neuronCount=" + neuronCount + ", learningRate=" + learningRate +
+      ", trainingEpochs=" + trainingEpochs + ", contextWeight=" + contextWeight + ", maxDepth=" + maxDepth +
+      ", depthIncreaseProbability=" + depthIncreaseProbability + ", depthIncreaseMaxLength=" +
+      depthIncreaseMaxLength + ", subContextWeight=" + subContextWeight + ", subVectorLengthMismatchDistance=" +
+      subVectorLengthMismatchDistance + ", trainingSampler=" + trainingSampler + ", trainingEnsemble=" +
+      trainingEnsemble + ", learningSchedule=" + learningSchedule + ", rivalPenaltySchedule=" +
+      rivalPenaltySchedule + ", seeding=" + seeding + ">";
   }
 }
@@ -2,14 +2,15 @@ package edu.mit.gamedap.generator.parsers;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.Utils;
 import edu.mit.gamedap.generator.datatypes.EmptyContext;
 import edu.mit.gamedap.generator.datatypes.LinePositionContext;
@@ -23,10 +24,12 @@ import edu.mit.gamedap.generator.datatypes.VectorContext;
  * Contains parsing methods inspired by https://www.cs.hmc.edu/~asampson/ap/technique.html
  */
 public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> {
+  public static final int DEFAULT_MAX_RECURSION_DEPTH = 1;
+
   private final int w;
   private final double clusterStddevThresh;
   private final double contextWeightSignificanceRatio;
-
+  private final int maxRecursionDepth;
 
   public MetaSampsonParser(int w, double clusterStddevThresh, double contextWeightSignificanceRatio) {
     super(w, clusterStddevThresh, contextWeightSignificanceRatio);
@@ -34,6 +37,20 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
     this.w = w;
     this.clusterStddevThresh = clusterStddevThresh;
     this.contextWeightSignificanceRatio = contextWeightSignificanceRatio;
+    this.maxRecursionDepth = DEFAULT_MAX_RECURSION_DEPTH;
+  }
+
+  /**
+   * @param maxRecursionDepth The maximum number of times delimiters are grouped and parsed again
+   */
+  public MetaSampsonParser(int w, double clusterStddevThresh, double contextWeightSignificanceRatio,
+      int maxRecursionDepth) {
+    super(w, clusterStddevThresh, contextWeightSignificanceRatio);
+    assert(w > 0 && maxRecursionDepth >= 0);
+    this.w = w;
+    this.clusterStddevThresh = clusterStddevThresh;
+    this.contextWeightSignificanceRatio = contextWeightSignificanceRatio;
+    this.maxRecursionDepth = maxRecursionDepth;
   }
 
   /**
@@ -73,43 +90,68 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
       List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substringVectors,
       Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities, boolean useThreshold,
       double popularityThreshold, Set<Double> targetPopularities) {
-    int currentDelimiterStart = -1;
-    int currentDelimiterEnd = -1;
-    boolean buildingDelimiter = false;
-
-    List<TextGroup> asTextGroups = new ArrayList<>();
-    for (int i = 0; i < substringVectors.size(); i++) {
-      Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> vector = substringVectors.get(i);
-      boolean overThreshold = useThreshold ?
-          popularities.get(vector) >= popularityThreshold :
-          targetPopularities.contains(popularities.get(vector));
-      if (buildingDelimiter) {
-        if (overThreshold) {
-          currentDelimiterEnd = i + w;
-        } else if (i >= currentDelimiterEnd) {
-          asTextGroups.add(TextGroup.asGroup(text.substring(currentDelimiterStart, currentDelimiterEnd)));
-          buildingDelimiter = false;
-          // current character handled in conditional below
-        }
+    Predicate<Double> popularityFit = useThreshold ?
+        popularity -> popularity >= popularityThreshold :
+        targetPopularities::contains;
+    // Only the characters that start a substring vector are grouped, as before
+    return groupTextGroups(characterGroups(text.substring(0, substringVectors.size())), substringVectors,
+        popularities, popularityFit).groups;
+  }
+
+  private static List<TextGroup> characterGroups(String text) {
+    List<TextGroup> result = new ArrayList<>(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      result.add(TextGroup.asGroup(text.substring(i, i+1)));
+    }
+    return result;
+  }
+
+  /**
+   * The text groups of a level after grouping, along with the text of every delimiter region found.
+   */
+  private static class Grouping {
+    private final List<TextGroup> groups = new ArrayList<>();
+    private final List<String> delimiters = new ArrayList<>();
+    private int newGroupCount = 0;
+  }
+
+  /**
+   * Merges runs of text groups covered by popular substring vectors into single, deeper groups. The ith
+   * vector is assumed to cover the w groups starting at the ith group.
+   */
+  private Grouping groupTextGroups(List<TextGroup> groups,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substringVectors,
+      Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities,
+      Predicate<Double> popularityFit) {
+    Grouping result = new Grouping();
+    int i = 0;
+    while (i < groups.size()) {
+      if (i >= substringVectors.size() || !popularityFit.test(popularities.get(substringVectors.get(i)))) {
+        result.groups.add(groups.get(i));
+        i++;
+        continue;
       }
 
-      if (!buildingDelimiter) {
-        if (overThreshold) {
-          currentDelimiterStart = i;
-          currentDelimiterEnd = i + w;
-          buildingDelimiter = true;
-        } else {
-          asTextGroups.add(TextGroup.asGroup(text.substring(i, i+1)));
+      // Extend the region while the vectors that start inside it, or right after it, are also popular
+      int end = i + w;
+      for (int j = i + 1; j <= end && j < substringVectors.size(); j++) {
+        if (popularityFit.test(popularities.get(substringVectors.get(j)))) {
+          end = j + w;
         }
       }
-    }
+      // A region still open at the last vector takes in the rest of that vector's window
+      end = Math.min(end, groups.size());
 
-    // handle final delimiter
-    if (buildingDelimiter) {
-      asTextGroups.add(TextGroup.asGroup(text.substring(currentDelimiterStart, substringVectors.size())));
+      List<TextGroup> region = groups.subList(i, end);
+      TextGroup group = region.size() > 1 ? TextGroup.join(region) : region.get(0);
+      if (region.size() > 1) {
+        result.newGroupCount++;
+      }
+      result.groups.add(group);
+      result.delimiters.add(group.getText());
+      i = end;
     }
-
-    return asTextGroups;
+    return result;
   }
 
   private ParseResults delimitersToResults(String text, List<String> delimiters) {
@@ -137,7 +179,7 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
     // }
     int startingIndex = this.selectStartingDelimiterIndex(delimiters);
     String startingDelimiter = delimiters.get(startingIndex);
-    System.out.println(startingDelimiter);
+    getDiagnostics().debug(() -> "Starting delimiter: " + startingDelimiter);
     /** end of replaced piece */
 
 
@@ -171,10 +213,8 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
           }
         }
 
-        System.out.println("---dtr---");
-        System.out.println(recordDelimiters);
-        System.out.println("---");
-        System.out.println(comparisonRecord);
+        getDiagnostics().debug(() -> String.format("Record candidate: %s, compared with %s",
+          recordDelimiters, comparisonRecord));
         buildingRecord = false;
         comparisonRecord.clear();
       }
@@ -185,8 +225,7 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
         comparisonRecord.add(delimiters.get(i));
       }
     }
-    System.out.println("-----");
-    System.out.println(recordDelimiters);
+    getDiagnostics().debug(() -> "Record delimiters: " + recordDelimiters);
     // System.out.println("---");
     // System.out.println(comparisonRecord);
 
@@ -217,124 +256,107 @@ public class MetaSampsonParser extends SampsonParser<LinePositionContext, Vector
     return results;
   }
   
-  @Override
-  public ParseResults parse(String text, ParseLearningPrimer<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> gPrimer) {
-    assert(gPrimer instanceof MetaLearningPrimer);
-    MetaLearningPrimer primer = (MetaLearningPrimer) gPrimer;
-    Set<Character> characterSet = buildCharacterSet(text);
-    List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings = primer.makeSubstringVectors(text, this.w, characterSet);
-    List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> clusters = primer.assignVectorClusters(substrings, characterSet);
-
-    // Build popularity histogram
-    // for (VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> cluster : clusters) {
-    //   System.out.println(cluster.info());
-    // }
-    System.out.println("---");
-    Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities = calculateVectorPopularities(clusters);
-    
-    Map<Double, Integer> popularityHistogram = Utils.makeHistogram(popularities.values().stream().filter(x -> x>0).toList());
-    Map<Double, List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>>> popularityMap = new HashMap<>();
-    for (double popularity : popularityHistogram.keySet()) {
-      popularityMap.put(popularity, popularities.keySet().stream().filter(x -> popularities.get(x) == popularity).toList());
-    }
-
-    System.out.println(popularityHistogram);
-    System.out.println("-----");
-    //System.out.println(popularityMap);
-    Map<Integer, Double> sizeDistMap = makeClusterSizeDistanceMap(clusters, primer.getContextWeight());
-    System.out.println(sizeDistMap);
-
-    
-    System.out.println("-----");
-    // double popularityThreshold = Utils.calculateMode(popularities.values().stream().filter(x -> x>0).toList());
+  /**
+   * Finds the popularities whose clusters are close enough together to be considered delimiters.
+   */
+  private Set<Double> selectTargetPopularities(
+      List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> clusters,
+      Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities,
+      double contextWeight, String levelName) {
+    Diagnostics diagnostics = getDiagnostics();
+    diagnostics.debug(() -> levelName + " popularity histogram: " +
+      Utils.makeHistogram(popularities.values().stream().filter(x -> x>0).toList()));
+    Map<Integer, Double> sizeDistMap = makeClusterSizeDistanceMap(clusters, contextWeight);
+    diagnostics.debug(() -> levelName + " cluster size distances: " + sizeDistMap);
 
     // TODO: figure out how to properly set this with meta vectors
-    double targetAverageDist = this.w - 1 + (primer.getContextWeight() * this.contextWeightSignificanceRatio);
-    int targetPopularity = sizeDistMap.keySet().stream().max(Integer::compare).get();
-
+    double targetAverageDist = this.w - 1 + (contextWeight * this.contextWeightSignificanceRatio);
     Set<Double> popSet = new HashSet<>();
     for (int popularity : sizeDistMap.keySet()) {
       if (sizeDistMap.get(popularity) <= targetAverageDist) {
         popSet.add(popularity * 1.0);
-        if (popularity < targetPopularity) {
-          targetPopularity = popularity;
-        }
       }
     }
-    
-    double popularityThreshold = targetPopularity * 1.0;
-
-    // Identify possible delimiters
-    List<String> delimiters = findDelimiters(text, substrings, popularities, popSet);
-    System.out.println("----");
-    System.out.println(delimiters);
-    System.out.println("----");
-
-
-    // experiment: recursion step
-    System.out.println("----begin recursion----");
-    List<TextGroup> groupedDelimiters = groupDelimiters(text, substrings, popularities, popSet);
-    List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> rSubstrings =
-      primer.makeSubstringVectors(groupedDelimiters, this.w, characterSet);
-    List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> rClusters =
-      primer.assignVectorClusters(rSubstrings, characterSet);
-
-    // Build popularity histogram
-    // for (VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> cluster : rClusters) {
-    //   System.out.println(cluster.info());
-    // }
-    System.out.println("---");
-    Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> rPopularities = calculateVectorPopularities(rClusters);
-    
-    Map<Double, Integer> rPopularityHistogram = Utils.makeHistogram(rPopularities.values().stream().filter(x -> x>0).toList());
-    Map<Double, List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>>> rPopularityMap = new HashMap<>();
-    for (double popularity : rPopularityHistogram.keySet()) {
-      rPopularityMap.put(popularity, rPopularities.keySet().stream().filter(x -> rPopularities.get(x) == popularity).toList());
+    return popSet;
+  }
+
+  /**
+   * Trains a single level of the recursion and groups its text. The substring vectors, clusters and
+   * popularities of the level are only referenced here, so they can be collected once the level is done.
+   * 
+   * @return The grouping of the level; the centers of the level's clusters are added to trainedNeurons
+   */
+  private Grouping learnLevel(List<TextGroup> groups,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings,
+      Set<Character> characterSet, MetaLearningPrimer primer,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> trainedNeurons,
+      String levelName) {
+    List<VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> clusters =
+      primer.assignVectorClusters(substrings, characterSet, new ArrayList<>(trainedNeurons), getDiagnostics());
+    Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities =
+      calculateVectorPopularities(clusters);
+    Set<Double> popSet = selectTargetPopularities(clusters, popularities, primer.getContextWeight(), levelName);
+
+    trainedNeurons.clear();
+    for (VectorCluster<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> cluster : clusters) {
+      trainedNeurons.add(cluster.getCenter());
     }
+    return groupTextGroups(groups, substrings, popularities, popSet::contains);
+  }
 
-    System.out.println(rPopularityHistogram);
-    System.out.println("-----");
-    //System.out.println(popularityMap);
-    Map<Integer, Double> rSizeDistMap = makeClusterSizeDistanceMap(rClusters, primer.getContextWeight());
-    System.out.println(rSizeDistMap);
+  /**
+   * Parses the text, then repeatedly groups the delimiters found into larger units and parses those, up to
+   * the maximum recursion depth or until a level forms no new groups. Each level's delimiters that repeat
+   * become the parent format of the level below. Every level shares the character set of the text, and its
+   * learner starts from the cluster centers trained by the level below.
+   */
+  @Override
+  public ParseResults parse(String text, Set<Character> characterSet,
+      List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> substrings,
+      ParseLearningPrimer<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> gPrimer) {
+    assert(gPrimer instanceof MetaLearningPrimer);
+    MetaLearningPrimer primer = (MetaLearningPrimer) gPrimer;
+    Diagnostics diagnostics = getDiagnostics();
+
+    List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> trainedNeurons =
+      new ArrayList<>();
+    Grouping grouping = learnLevel(characterGroups(text), substrings, characterSet, primer, trainedNeurons,
+      "Level 0");
+    List<String> delimiters = orderDelimiters(text, grouping.delimiters);
+    diagnostics.debug(() -> "Delimiters: " + delimiters);
+    ParseResults results = delimitersToResults(text, delimiters);
 
-    
-    System.out.println("-----");
-    // double popularityThreshold = Utils.calculateMode(popularities.values().stream().filter(x -> x>0).toList());
+    ParseResults childResults = results;
+    for (int level = 1; level <= this.maxRecursionDepth; level++) {
+      if (grouping.newGroupCount == 0 || grouping.groups.size() < this.w) {
+        int finishedLevel = level - 1;
+        diagnostics.debug(() -> "No new groups formed at level " + finishedLevel + "; stopping recursion");
+        break;
+      }
 
-    // TODO: for recursion, use the above method; then if anything qualifies for threshold (higher threshold? maybe not) use it
-    //   Need some way to indicate higher-level items for grammar (get some different thing instead of TOKEN#, which can be picked up by other thing)
-    double rTargetAverageDist = this.w - 1 + (primer.getContextWeight() * this.contextWeightSignificanceRatio);
-    int rTargetPopularity = rSizeDistMap.keySet().stream().max(Integer::compare).get();
-    
-    Set<Double> rPopSet = new HashSet<>();
-    for (int popularity : rSizeDistMap.keySet()) {
-      if (rSizeDistMap.get(popularity) <= rTargetAverageDist) {
-        rPopSet.add(popularity * 1.0);
-        if (popularity < rTargetPopularity) {
-          rTargetPopularity = popularity;
-        }
+      int currentLevel = level;
+      diagnostics.debug(() -> "Beginning recursion level " + currentLevel);
+      List<TextGroup> groups = grouping.groups;
+      grouping = learnLevel(groups, primer.makeSubstringVectors(groups, this.w, characterSet), characterSet,
+        primer, trainedNeurons, "Level " + level);
+
+      List<String> rDelimiters = orderDelimiters(text, grouping.delimiters);
+      diagnostics.debug(() -> "Level " + currentLevel + " delimiters: " + rDelimiters);
+      if (rDelimiters.size() > 0 && rDelimiters.lastIndexOf(rDelimiters.get(0)) != 0) {
+        ParseResults parentResults = delimitersToResults(text, rDelimiters);
+        childResults.setParent(parentResults);
+        childResults = parentResults;
       }
     }
-    
-    double rPopularityThreshold = rTargetPopularity * 1.0;
-
-    // Identify possible delimiters
-    List<String> rDelimiters = findDelimiters(text, rSubstrings, rPopularities, rPopSet);
-    System.out.println("----");
-    System.out.println(rDelimiters);
-    System.out.println("----");
 
-
-    // end experiment
-
-    
-    ParseResults results = delimitersToResults(text, delimiters);
-    if (rDelimiters.size() > 0 && rDelimiters.lastIndexOf(rDelimiters.get(0)) != 0) {
-      ParseResults parentResults = delimitersToResults(text, rDelimiters);
-      results.setParent(parentResults);
-    }
-    System.out.println("-------");
+    diagnostics.info(() -> "Record format: " + results.getRecordFormat());
     return results;
   }
+
+  @Override
+  public String toString() {
+    return "<MetaSampsonParser: w=" + w + ", clusterStddevThresh=" + clusterStddevThresh +
+      ", contextWeightSignificanceRatio=" + contextWeightSignificanceRatio + ", maxRecursionDepth=" +
+      maxRecursionDepth + ">";
+  }
 }
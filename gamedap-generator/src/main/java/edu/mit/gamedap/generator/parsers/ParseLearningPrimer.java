@@ -2,6 +2,8 @@ package edu.mit.gamedap.generator.parsers;
 
 import java.util.List;
 import java.util.Set;
+
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.datatypes.Vector;
 import edu.mit.gamedap.generator.datatypes.VectorCluster;
 import edu.mit.gamedap.generator.datatypes.VectorContext;
@@ -31,5 +33,19 @@ public interface ParseLearningPrimer<C extends VectorContext, T> {
    * @param characterSet The set of all characters contained in the substrings
    * @return A list of vector clusters, where each input string's vector is assigned to exactly one cluster
    */
-  public List<VectorCluster<C, T>> assignVectorClusters(List<Vector<C, T>> inputVectors, Set<Character> characterSet);
+  public default List<VectorCluster<C, T>> assignVectorClusters(List<Vector<C, T>> inputVectors, Set<Character> characterSet) {
+    return assignVectorClusters(inputVectors, characterSet, Diagnostics.NONE);
+  }
+
+  /**
+   * Assigns substrings to clusters, reporting the progress of the learner to a diagnostics sink.
+   * 
+   * @param inputVectors A list of string vectors, where each vector is expected to be of the same length length w
+   * @param characterSet The set of all characters contained in the substrings
+   * @param diagnostics The sink for the learner's debugging output
+   * @return A list of vector clusters, where each input string's vector is assigned to exactly one cluster
+   * @see ParseLearningPrimer#assignVectorClusters(List, Set)
+   */
+  public List<VectorCluster<C, T>> assignVectorClusters(List<Vector<C, T>> inputVectors, Set<Character> characterSet,
+      Diagnostics diagnostics);
 }
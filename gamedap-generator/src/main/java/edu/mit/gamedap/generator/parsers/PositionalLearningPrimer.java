@@ -4,12 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.datatypes.LinePositionContext;
 import edu.mit.gamedap.generator.datatypes.LinePositionStringVector;
 import edu.mit.gamedap.generator.datatypes.Vector;
 import edu.mit.gamedap.generator.datatypes.VectorCluster;
-import edu.mit.gamedap.generator.learners.CompetitiveLearner;
 import edu.mit.gamedap.generator.learners.FSCLPositionStringLearner;
+import edu.mit.gamedap.generator.learners.LearningSchedule;
+import edu.mit.gamedap.generator.learners.NeuronSeeding;
 
 /**
  * Contains parsing methods inspired by https://www.cs.hmc.edu/~asampson/ap/technique.html
@@ -21,12 +23,15 @@ public class PositionalLearningPrimer implements ParseLearningPrimer<LinePositio
   private final double learningRate;
   private final int trainingEpochs;
   private final double contextWeight;
+  private TrainingSampler trainingSampler = TrainingSampler.all();
+  private TrainingEnsemble trainingEnsemble = TrainingEnsemble.single();
+  private LearningSchedule learningSchedule = LearningSchedule.constant();
+  private LearningSchedule rivalPenaltySchedule = LearningSchedule.constant();
+  private NeuronSeeding seeding = NeuronSeeding.random();
 
   public PositionalLearningPrimer() {
-    this.neuronCount = SampsonParser.DEFAULT_NEURON_COUNT;
-    this.learningRate = SampsonParser.DEFAULT_LEARNING_RATE;
-    this.trainingEpochs = SampsonParser.DEFAULT_TRAINING_EPOCHS;
-    this.contextWeight = 1.0;
+    this(SampsonParser.DEFAULT_NEURON_COUNT, SampsonParser.DEFAULT_LEARNING_RATE,
+      SampsonParser.DEFAULT_TRAINING_EPOCHS, 1.0);
   }
 
   public PositionalLearningPrimer(int neuronCount, double learningRate, int trainingEpochs, double contextWeight) {
@@ -36,6 +41,54 @@ public class PositionalLearningPrimer implements ParseLearningPrimer<LinePositio
     this.contextWeight = contextWeight;
   }
 
+  /**
+   * Sets the vectors that the learners are trained on; every vector is still assigned to a cluster. Every vector
+   * is trained on by default.
+   *
+   * @param trainingSampler Selects the training vectors
+   */
+  public void setTrainingSampler(TrainingSampler trainingSampler) {
+    this.trainingSampler = trainingSampler;
+  }
+
+  /**
+   * Sets how many learners are trained, e.g. several with different seeds of which the best codebook is kept. A
+   * single, unseeded learner is trained by default.
+   *
+   * @param trainingEnsemble Decides how many learners are trained
+   */
+  public void setTrainingEnsemble(TrainingEnsemble trainingEnsemble) {
+    this.trainingEnsemble = trainingEnsemble;
+  }
+
+  /**
+   * Sets how the learners' learning rate changes from epoch to epoch. It is constant by default.
+   *
+   * @param learningSchedule The schedule that scales the learning rate
+   */
+  public void setLearningSchedule(LearningSchedule learningSchedule) {
+    this.learningSchedule = learningSchedule;
+  }
+
+  /**
+   * Sets how the learners' rival penalty changes from epoch to epoch. It is constant by default.
+   *
+   * @param rivalPenaltySchedule The schedule that scales the rival penalty
+   */
+  public void setRivalPenaltySchedule(LearningSchedule rivalPenaltySchedule) {
+    this.rivalPenaltySchedule = rivalPenaltySchedule;
+  }
+
+  /**
+   * Sets where the learners' neurons start, e.g. at copies of the substring vectors. They are generated randomly
+   * by default.
+   *
+   * @param seeding Chooses the vectors that the neurons start at
+   */
+  public void setSeeding(NeuronSeeding seeding) {
+    this.seeding = seeding;
+  }
+
   /**
    * Gets the maximum position of a given set of positional vectors.
    * 
@@ -72,11 +125,23 @@ public class PositionalLearningPrimer implements ParseLearningPrimer<LinePositio
 
   @Override
   public List<VectorCluster<LinePositionContext, Character>> assignVectorClusters(List<Vector<LinePositionContext, Character>> substrings,
-      Set<Character> characterSet) {
+      Set<Character> characterSet, Diagnostics diagnostics) {
     long maxPosition = this.getMaxPosition(substrings);
-    CompetitiveLearner<LinePositionContext, Character> cl = new FSCLPositionStringLearner(learningRate, contextWeight, maxPosition, characterSet);
-    cl.initialize(neuronCount, substrings);
-    cl.train(trainingEpochs);
-    return cl.cluster();
+    return trainingEnsemble.train(() -> {
+      FSCLPositionStringLearner learner = new FSCLPositionStringLearner(learningRate, contextWeight, maxPosition,
+        characterSet);
+      learner.setLearningSchedule(learningSchedule);
+      learner.setRivalPenaltySchedule(rivalPenaltySchedule);
+      learner.setSeeding(seeding);
+      return learner;
+    }, neuronCount, trainingEpochs, trainingSampler.sample(substrings), substrings, diagnostics);
+  }
+
+  @Override
+  public String toString() {
+    return "<PositionalLearningPrimer: neuronCount=" + neuronCount + ", learningRate=" + learningRate +
+      ", trainingEpochs=" + trainingEpochs + ", contextWeight=" + contextWeight + ", trainingSampler=" +
+      trainingSampler + ", trainingEnsemble=" + trainingEnsemble + ", learningSchedule=" + learningSchedule +
+      ", rivalPenaltySchedule=" + rivalPenaltySchedule + ", seeding=" + seeding + ">";
   }
 }
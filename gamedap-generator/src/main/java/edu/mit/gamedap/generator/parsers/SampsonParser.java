@@ -11,8 +11,7 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import javax.swing.text.html.Option;
-
+import edu.mit.gamedap.generator.Diagnostics;
 import edu.mit.gamedap.generator.Utils;
 import edu.mit.gamedap.generator.datatypes.Vector;
 import edu.mit.gamedap.generator.datatypes.VectorCluster;
@@ -31,6 +30,7 @@ public class SampsonParser<C extends VectorContext, T> {
   private final int w;
   private final double clusterStddevThresh;
   private final double contextWeightSignificanceRatio;
+  private Diagnostics diagnostics = Diagnostics.NONE;
 
   /**
    * Contains the results of running the SampsonParser.
@@ -100,13 +100,27 @@ public class SampsonParser<C extends VectorContext, T> {
     this.contextWeightSignificanceRatio = contextWeightSignificanceRatio;
   }
 
+  /**
+   * Sets the sink that debugging output (clusters, histograms, delimiters and records) is reported to.
+   * Nothing is reported by default.
+   * 
+   * @param diagnostics The diagnostics sink
+   */
+  public void setDiagnostics(Diagnostics diagnostics) {
+    this.diagnostics = diagnostics;
+  }
+
+  public Diagnostics getDiagnostics() {
+    return this.diagnostics;
+  }
+
   /**
    * Finds the set of characters used in an input text.
    * 
    * @param text The input text
    * @return A set containing every character that appears in the input
    */
-  Set<Character> buildCharacterSet(String text) {
+  public Set<Character> buildCharacterSet(String text) {
     return text.chars()
       .mapToObj(c -> (char) c)
       .collect(Collectors.toSet());
@@ -267,6 +281,19 @@ public class SampsonParser<C extends VectorContext, T> {
       delimiterText.add(delimiter);
     }
 
+    return orderDelimiters(text, delimiterText);
+  }
+
+  /**
+   * Turns a list of delimiter candidates into the sequence of delimiters in the text: duplicates and
+   * candidates contained in other candidates are removed, and the remaining ones are listed at every
+   * position where they appear.
+   * 
+   * @param text The input text
+   * @param delimiterText The delimiter candidates found in the text
+   * @return The delimiters, in the order they appear in the text
+   */
+  protected List<String> orderDelimiters(String text, List<String> delimiterText) {
     // experiment
 
     // first, remove duplicates and substrings
@@ -353,32 +380,39 @@ public class SampsonParser<C extends VectorContext, T> {
    */
   public ParseResults parse(String text, ParseLearningPrimer<C, T> primer) {
     Set<Character> characterSet = buildCharacterSet(text);
-    List<Vector<C, T>> substrings = primer.makeSubstringVectors(text, this.w, characterSet);
-    List<VectorCluster<C, T>> clusters = primer.assignVectorClusters(substrings, characterSet);
+    return parse(text, characterSet, primer.makeSubstringVectors(text, this.w, characterSet), primer);
+  }
+
+  /**
+   * Runs the parsing algorithm on substring vectors that have already been built, so that several parses of
+   * the same text (e.g. with different learning parameters) can share them. The vectors are only read.
+   * 
+   * @param text The input text
+   * @param characterSet The character set of the text, as from {@link SampsonParser#buildCharacterSet(String)}
+   * @param substrings The substring vectors of the text, as made by the primer with this parser's w
+   * @param primer The primer used to train on the substring vectors
+   * @return The results of parsing through Competitive Learning and Vector Quantization
+   * @see SampsonParser#parse(String, ParseLearningPrimer)
+   */
+  public ParseResults parse(String text, Set<Character> characterSet, List<Vector<C, T>> substrings,
+      ParseLearningPrimer<C, T> primer) {
+    List<VectorCluster<C, T>> clusters = primer.assignVectorClusters(substrings, characterSet, diagnostics);
 
     // TODO: break into helper methods
 
     // Build popularity histogram
-    for (VectorCluster<C, T> cluster : clusters) {
-      System.out.println(cluster.info());
+    if (diagnostics.isEnabled(Diagnostics.Level.DEBUG)) {
+      for (VectorCluster<C, T> cluster : clusters) {
+        diagnostics.debug(cluster::info);
+      }
     }
-    System.out.println("---");
     Map<Vector<C, T>, Double> popularities = calculateVectorPopularities(clusters);
     
-    Map<Double, Integer> popularityHistogram = Utils.makeHistogram(popularities.values().stream().filter(x -> x>0).toList());
-    Map<Double, List<Vector<C, T>>> popularityMap = new HashMap<>();
-    for (double popularity : popularityHistogram.keySet()) {
-      popularityMap.put(popularity, popularities.keySet().stream().filter(x -> popularities.get(x) == popularity).toList());
-    }
-
-    System.out.println(popularityHistogram);
-    System.out.println("-----");
-    //System.out.println(popularityMap);
+    diagnostics.debug(() -> "Popularity histogram: " +
+      Utils.makeHistogram(popularities.values().stream().filter(x -> x>0).toList()));
     Map<Integer, Double> sizeDistMap = makeClusterSizeDistanceMap(clusters, primer.getContextWeight());
-    System.out.println(sizeDistMap);
+    diagnostics.debug(() -> "Cluster size distances: " + sizeDistMap);
 
-    
-    System.out.println("-----");
     // double popularityThreshold = Utils.calculateMode(popularities.values().stream().filter(x -> x>0).toList());
 
     // TODO: figure out how to properly set this with meta vectors
@@ -394,9 +428,7 @@ public class SampsonParser<C extends VectorContext, T> {
 
     // Identify possible delimiters
     List<String> delimiters = findDelimiters(text, substrings, popularities, popularityThreshold);
-    System.out.println("----");
-    System.out.println(delimiters);
-    System.out.println("----");
+    diagnostics.debug(() -> "Delimiters: " + delimiters);
 
     // Identify records by common patterns of delimiters
 
@@ -422,7 +454,7 @@ public class SampsonParser<C extends VectorContext, T> {
     // }
     int startingIndex = this.selectStartingDelimiterIndex(delimiters);
     String startingDelimiter = delimiters.get(startingIndex);
-    System.out.println(startingDelimiter);
+    diagnostics.debug(() -> "Starting delimiter: " + startingDelimiter);
     /** end of replaced piece */
 
 
@@ -470,8 +502,7 @@ public class SampsonParser<C extends VectorContext, T> {
         comparisonRecord.add(delimiters.get(i));
       }
     }
-    System.out.println("-----");
-    System.out.println(recordDelimiters);
+    diagnostics.debug(() -> "Record delimiters: " + recordDelimiters);
     // System.out.println("---");
     // System.out.println(comparisonRecord);
 
@@ -499,7 +530,13 @@ public class SampsonParser<C extends VectorContext, T> {
     String recordFormat = recordDelimiters.stream()
       .reduce("", (a, b) -> a + ".*" + b);
     ParseResults results = new ParseResults(recordFormat, parsedFields);
-    System.out.println("-------");
+    diagnostics.info(() -> "Record format: " + recordFormat);
     return results;
   }
+
+  @Override
+  public String toString() {
+    return "<SampsonParser: w=" + w + ", clusterStddevThresh=" + clusterStddevThresh +
+      ", contextWeightSignificanceRatio=" + contextWeightSignificanceRatio + ">";
+  }
 }
@@ -0,0 +1,224 @@
+package edu.mit.gamedap.generator.parsers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import edu.mit.gamedap.generator.Diagnostics;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorCluster;
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+import edu.mit.gamedap.generator.learners.CompetitiveLearner;
+
+/**
+ * Decides how many learners a primer trains. Competitive learning from random neurons is sensitive to its
+ * starting point, so an ensemble trains several learners with different seeds at the same time and keeps the
+ * codebook of the one that quantizes the training vectors best. A learner's score is its mean quantization
+ * error plus the mean {@link VectorCluster#getDistanceStdDev() stddev} of its clusters (lower is better).
+ */
+public class TrainingEnsemble {
+  private static final TrainingEnsemble SINGLE = new TrainingEnsemble(1, 0, 0, 0);
+
+  private final int restarts;
+  private final long seed;
+  private final int checkInterval;
+  private final double earlyStopMargin;
+
+  private TrainingEnsemble(int restarts, long seed, int checkInterval, double earlyStopMargin) {
+    this.restarts = restarts;
+    this.seed = seed;
+    this.checkInterval = checkInterval;
+    this.earlyStopMargin = earlyStopMargin;
+  }
+
+  /**
+   * Trains a single, unseeded learner; this is the default behaviour of the primers.
+   */
+  public static TrainingEnsemble single() {
+    return SINGLE;
+  }
+
+  /**
+   * Trains several learners concurrently for the full number of epochs and keeps the best one.
+   *
+   * @param restarts The number of learners to train
+   * @param seed The seed of the first learner; learner i is seeded with seed + i
+   */
+  public static TrainingEnsemble restarts(int restarts, long seed) {
+    assert(restarts > 0);
+    return new TrainingEnsemble(restarts, seed, 0, 0);
+  }
+
+  /**
+   * Trains several learners concurrently, scoring them every checkInterval epochs and stopping any learner
+   * whose score is worse than the best by more than the given margin.
+   *
+   * @param restarts The number of learners to train
+   * @param seed The seed of the first learner; learner i is seeded with seed + i
+   * @param checkInterval The number of epochs between comparisons
+   * @param earlyStopMargin How much worse than the best score (as a fraction of it) a learner may be before
+   *    it is stopped, e.g. 0.2 for 20%
+   */
+  public static TrainingEnsemble restarts(int restarts, long seed, int checkInterval, double earlyStopMargin) {
+    assert(restarts > 0 && checkInterval > 0 && earlyStopMargin >= 0);
+    return new TrainingEnsemble(restarts, seed, checkInterval, earlyStopMargin);
+  }
+
+  /**
+   * Trains the learners and quantizes every vector with the best of them.
+   *
+   * @param learnerFactory Makes a new, uninitialized learner
+   * @param neuronCount The number of neurons each learner generates
+   * @param epochs The number of epochs to train for
+   * @param trainingVectors The vectors to train on and score the learners with
+   * @param vectors The vectors to quantize with the chosen learner
+   * @param diagnostics The sink for training progress
+   * @return The clusters of the chosen learner, where each vector is assigned to exactly one cluster
+   */
+  public <C extends VectorContext, T> List<VectorCluster<C, T>> train(
+      Supplier<? extends CompetitiveLearner<C, T>> learnerFactory, int neuronCount, int epochs,
+      List<Vector<C, T>> trainingVectors, List<Vector<C, T>> vectors, Diagnostics diagnostics) {
+    return this.train(learnerFactory, neuronCount, epochs, Collections.emptyList(), trainingVectors, vectors,
+      diagnostics);
+  }
+
+  /**
+   * Trains the learners with the first one warm-started from a set of neurons, and quantizes every vector
+   * with the best of them. Only the first learner uses the initial neurons, since training modifies them; the
+   * others start from random neurons as usual.
+   *
+   * @param initialNeurons The neurons for the first learner to start from
+   * @see TrainingEnsemble#train(Supplier, int, int, List, List, Diagnostics)
+   */
+  public <C extends VectorContext, T> List<VectorCluster<C, T>> train(
+      Supplier<? extends CompetitiveLearner<C, T>> learnerFactory, int neuronCount, int epochs,
+      List<Vector<C, T>> initialNeurons, List<Vector<C, T>> trainingVectors, List<Vector<C, T>> vectors,
+      Diagnostics diagnostics) {
+    if (this == SINGLE) {
+      CompetitiveLearner<C, T> cl = learnerFactory.get();
+      cl.setDiagnostics(diagnostics);
+      cl.initialize(neuronCount, trainingVectors, initialNeurons);
+      cl.train(epochs);
+      return cl.cluster(vectors);
+    }
+
+    List<Run<C, T>> runs = new ArrayList<>();
+    for (int i = 0; i < this.restarts; i++) {
+      CompetitiveLearner<C, T> cl = learnerFactory.get();
+      cl.setSeed(this.seed + i);
+      cl.initialize(neuronCount, trainingVectors, i == 0 ? initialNeurons : Collections.emptyList());
+      // Learners are trained in rounds, so their schedules need to know the full length of training
+      cl.setEpochHorizon(epochs);
+      runs.add(new Run<>(i, cl));
+    }
+    diagnostics.info(() -> String.format("Training an ensemble of %d learners on %d stimuli for %d epochs",
+      this.restarts, trainingVectors.size(), epochs));
+
+    ExecutorService pool = Executors.newFixedThreadPool(
+      Math.min(this.restarts, Runtime.getRuntime().availableProcessors()));
+    try {
+      List<Run<C, T>> active = new ArrayList<>(runs);
+      int completedEpochs = 0;
+      while (completedEpochs < epochs) {
+        int roundEpochs = this.checkInterval > 0 && active.size() > 1 ?
+          Math.min(this.checkInterval, epochs - completedEpochs) : epochs - completedEpochs;
+        trainAndScore(active, roundEpochs, trainingVectors, pool);
+        completedEpochs += roundEpochs;
+
+        if (this.checkInterval > 0 && active.size() > 1) {
+          double bestScore = active.stream().mapToDouble(r -> r.score).min().getAsDouble();
+          List<Run<C, T>> stopped = active.stream()
+            .filter(r -> r.score > bestScore * (1 + this.earlyStopMargin))
+            .toList();
+          active.removeAll(stopped);
+          int epochsSoFar = completedEpochs;
+          for (Run<C, T> run : stopped) {
+            diagnostics.debug(() -> String.format("Stopped learner %d after %d epochs (score %.4f, best %.4f)",
+              run.index, epochsSoFar, run.score, bestScore));
+          }
+        }
+      }
+
+      Run<C, T> best = active.stream().min(Comparator.comparingDouble(r -> r.score)).get();
+      for (Run<C, T> run : runs) {
+        diagnostics.debug(() -> String.format("Learner %d: score %.4f%s", run.index, run.score,
+          run == best ? " (chosen)" : ""));
+      }
+      diagnostics.info(() -> String.format("Chose learner %d of %d with score %.4f", best.index, this.restarts,
+        best.score));
+      return best.learner.cluster(vectors);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Trains each run for the given number of epochs on the pool, then updates its score.
+   */
+  private static <C extends VectorContext, T> void trainAndScore(List<Run<C, T>> runs, int epochs,
+      List<Vector<C, T>> trainingVectors, ExecutorService pool) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (Run<C, T> run : runs) {
+      futures.add(pool.submit(() -> {
+        run.learner.train(epochs);
+        run.score = score(run.learner.cluster(trainingVectors), trainingVectors.size());
+      }));
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * The mean quantization error plus the mean cluster stddev, both weighted by cluster size.
+   */
+  static <C extends VectorContext, T> double score(List<VectorCluster<C, T>> clusters, int vectorCount) {
+    double error = 0;
+    double tightness = 0;
+    for (VectorCluster<C, T> cluster : clusters) {
+      int size = cluster.getVectors().size();
+      error += size * cluster.getMeanDistance();
+      tightness += size * cluster.getDistanceStdDev();
+    }
+    return (error + tightness) / vectorCount;
+  }
+
+  /**
+   * A learner in the ensemble and its latest score.
+   */
+  private static class Run<C extends VectorContext, T> {
+    private final int index;
+    private final CompetitiveLearner<C, T> learner;
+    private double score = Double.POSITIVE_INFINITY;
+
+    Run(int index, CompetitiveLearner<C, T> learner) {
+      this.index = index;
+      this.learner = learner;
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (this == SINGLE) {
+      return "<TrainingEnsemble: single>";
+    }
+    return String.format("<TrainingEnsemble: restarts=%d, seed=%d, checkInterval=%d, earlyStopMargin=%.3f>",
+      restarts, seed, checkInterval, earlyStopMargin);
+  }
+}
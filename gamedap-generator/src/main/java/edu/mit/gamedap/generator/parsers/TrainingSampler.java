@@ -0,0 +1,194 @@
+package edu.mit.gamedap.generator.parsers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorContext;
+
+/**
+ * Selects the subset of substring vectors that a primer trains its learner on. The codebook only needs a
+ * representative sample of the windows, so training on a fixed-size sample keeps the training cost independent
+ * of the length of the input; the full set of windows is still quantized afterwards.
+ */
+public abstract class TrainingSampler {
+  /** The maximum line position given its own stratum; later positions share a single stratum. */
+  public static final int MAX_LINE_POSITION_STRATUM = 64;
+
+  private static final TrainingSampler ALL = new TrainingSampler() {
+    @Override
+    public <C extends VectorContext, T> List<Vector<C, T>> sample(List<Vector<C, T>> vectors) {
+      return vectors;
+    }
+
+    @Override
+    public String toString() {
+      return "<TrainingSampler: all>";
+    }
+  };
+
+  /**
+   * Chooses the vectors to train on.
+   *
+   * @param vectors The full list of substring vectors, assumed to be non-empty
+   * @return A non-empty list of vectors to train on, in the order they appear in the input
+   */
+  public abstract <C extends VectorContext, T> List<Vector<C, T>> sample(List<Vector<C, T>> vectors);
+
+  /**
+   * A sampler that trains on every vector; this is the default behaviour of the primers.
+   */
+  public static TrainingSampler all() {
+    return ALL;
+  }
+
+  /**
+   * A sampler that draws a uniform random sample of the vectors.
+   *
+   * @param sampleSize The maximum number of vectors to train on
+   * @param seed The seed for the random selection
+   */
+  public static TrainingSampler reservoir(int sampleSize, long seed) {
+    assert(sampleSize > 0);
+    return new TrainingSampler() {
+      @Override
+      public <C extends VectorContext, T> List<Vector<C, T>> sample(List<Vector<C, T>> vectors) {
+        if (vectors.size() <= sampleSize) {
+          return vectors;
+        }
+        BitSet chosen = chooseIndices(vectors.size(), sampleSize, new Random(seed));
+        List<Vector<C, T>> result = new ArrayList<>(sampleSize);
+        for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) {
+          result.add(vectors.get(i));
+        }
+        return result;
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<TrainingSampler: reservoir, size=%d, seed=%d>", sampleSize, seed);
+      }
+    };
+  }
+
+  /**
+   * A sampler that groups the vectors by their line position and samples each group in proportion to its size,
+   * so that the rarer positions (like the beginnings of lines, where delimiters tend to appear) are still
+   * represented. Every group gets at least one vector unless there are more groups than sampleSize, in which
+   * case the smallest groups are left out. Vectors without a {@link LinePositionContext} are treated as a single
+   * group.
+   *
+   * @param sampleSize The maximum number of vectors to train on
+   * @param seed The seed for the random selection
+   */
+  public static TrainingSampler stratifiedByLinePosition(int sampleSize, long seed) {
+    assert(sampleSize > 0);
+    return new TrainingSampler() {
+      @Override
+      public <C extends VectorContext, T> List<Vector<C, T>> sample(List<Vector<C, T>> vectors) {
+        if (vectors.size() <= sampleSize) {
+          return vectors;
+        }
+
+        Map<Long, List<Integer>> strata = new TreeMap<>();
+        for (int i = 0; i < vectors.size(); i++) {
+          strata.computeIfAbsent(getStratum(vectors.get(i)), k -> new ArrayList<>()).add(i);
+        }
+
+        Random random = new Random(seed);
+        List<List<Integer>> strataList = new ArrayList<>(strata.values());
+        int[] stratumSizes = allocateSample(strataList, sampleSize, vectors.size());
+        List<Integer> selected = new ArrayList<>();
+        for (int s = 0; s < strataList.size(); s++) {
+          List<Integer> stratum = strataList.get(s);
+          BitSet chosen = chooseIndices(stratum.size(), stratumSizes[s], random);
+          for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) {
+            selected.add(stratum.get(i));
+          }
+        }
+        return selectIndices(vectors, selected);
+      }
+
+      @Override
+      public String toString() {
+        return String.format("<TrainingSampler: stratified, size=%d, seed=%d>", sampleSize, seed);
+      }
+    };
+  }
+
+  private static long getStratum(Vector<?, ?> vector) {
+    if (vector.getContext() instanceof LinePositionContext) {
+      return Math.min(((LinePositionContext) vector.getContext()).getPositionIndex(), MAX_LINE_POSITION_STRATUM);
+    }
+    return 0;
+  }
+
+  /**
+   * Splits exactly sampleSize vectors between the strata in proportion to their sizes, by the largest remainder
+   * method: each stratum gets the whole part of its share, and the vectors left over go one each to the strata
+   * that would otherwise get none, then to those with the largest fractional parts.
+   *
+   * @param strata The indices in each stratum
+   * @param sampleSize The total number of vectors to select, less than the number of vectors
+   * @param vectorCount The number of vectors in all of the strata
+   * @return The number of vectors to select from each stratum, indexed like the strata
+   */
+  private static int[] allocateSample(List<List<Integer>> strata, int sampleSize, int vectorCount) {
+    int[] allocation = new int[strata.size()];
+    double[] remainders = new double[strata.size()];
+    int leftover = sampleSize;
+    for (int s = 0; s < strata.size(); s++) {
+      double share = (double) sampleSize * strata.get(s).size() / vectorCount;
+      allocation[s] = (int) Math.floor(share);
+      remainders[s] = share - allocation[s];
+      leftover -= allocation[s];
+    }
+
+    List<Integer> order = new ArrayList<>();
+    for (int s = 0; s < strata.size(); s++) {
+      order.add(s);
+    }
+    order.sort(Comparator.comparing((Integer s) -> allocation[s] > 0)
+      .thenComparing(s -> remainders[s], Comparator.reverseOrder()));
+    for (int i = 0; i < Math.min(leftover, order.size()); i++) {
+      allocation[order.get(i)]++;
+    }
+    return allocation;
+  }
+
+  /**
+   * Floyd's algorithm: chooses sampleSize distinct indices below count uniformly at random, with one random draw
+   * per chosen index rather than per index.
+   *
+   * @param count The number of indices to choose from
+   * @param sampleSize The number of indices to choose, at most count
+   * @param random The source of random choices
+   * @return The chosen indices
+   */
+  private static BitSet chooseIndices(int count, int sampleSize, Random random) {
+    BitSet chosen = new BitSet(count);
+    for (int j = count - sampleSize; j < count; j++) {
+      int candidate = random.nextInt(j + 1);
+      // j itself has not been considered before, so it is free whenever the candidate is taken
+      chosen.set(chosen.get(candidate) ? j : candidate);
+    }
+    return chosen;
+  }
+
+  private static <C extends VectorContext, T> List<Vector<C, T>> selectIndices(List<Vector<C, T>> vectors,
+      List<Integer> indices) {
+    Collections.sort(indices);
+    List<Vector<C, T>> result = new ArrayList<>(indices.size());
+    for (int i : indices) {
+      result.add(vectors.get(i));
+    }
+    return result;
+  }
+}
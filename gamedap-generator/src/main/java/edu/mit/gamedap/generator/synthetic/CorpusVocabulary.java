@@ -0,0 +1,85 @@
+package edu.mit.gamedap.generator.synthetic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The words used to fill in the fields of a synthetic dialogue corpus: speaker names, emotions, choice labels
+ * and the words that make up lines of dialogue.
+ */
+public class CorpusVocabulary {
+  private static final String[] SYLLABLES = {
+    "ka", "lo", "mi", "ra", "to", "shi", "be", "pa", "lu", "ne", "ta", "ro", "al", "ma", "po", "su", "ti", "ve"
+  };
+  private static final List<String> DEFAULT_EMOTIONS = Arrays.asList(
+    "smile", "annoyed", "excited", "neutral", "concerned", "upset", "serious", "confident", "sweatdrop");
+
+  private final List<String> speakers;
+  private final List<String> emotions;
+  private final List<String> words;
+
+  public CorpusVocabulary(List<String> speakers, List<String> emotions, List<String> words) {
+    assert(!speakers.isEmpty() && !emotions.isEmpty() && !words.isEmpty());
+    this.speakers = Collections.unmodifiableList(new ArrayList<>(speakers));
+    this.emotions = Collections.unmodifiableList(new ArrayList<>(emotions));
+    this.words = Collections.unmodifiableList(new ArrayList<>(words));
+  }
+
+  /**
+   * Generates a vocabulary of made-up names and words from a seed.
+   * 
+   * @param speakerCount The number of distinct speakers
+   * @param wordCount The number of distinct dialogue words
+   * @param seed The seed for the generated words
+   * @return A vocabulary with the given number of speakers and words
+   */
+  public static CorpusVocabulary generate(int speakerCount, int wordCount, long seed) {
+    Random random = new Random(seed);
+    List<String> speakers = new ArrayList<>(makeWords(speakerCount, 2, 3, random));
+    for (int i = 0; i < speakers.size(); i++) {
+      String speaker = speakers.get(i);
+      speakers.set(i, Character.toUpperCase(speaker.charAt(0)) + speaker.substring(1));
+    }
+    return new CorpusVocabulary(speakers, DEFAULT_EMOTIONS, new ArrayList<>(makeWords(wordCount, 1, 3, random)));
+  }
+
+  private static Set<String> makeWords(int count, int minSyllables, int maxSyllables, Random random) {
+    assert(count > 0);
+    Set<String> result = new LinkedHashSet<>();
+    int attempts = 0;
+    while (result.size() < count) {
+      // Allow longer words once the short combinations run out
+      int extraSyllables = attempts++ / (count * 4);
+      int syllables = minSyllables + extraSyllables + random.nextInt(maxSyllables - minSyllables + 1);
+      StringBuilder word = new StringBuilder();
+      for (int i = 0; i < syllables; i++) {
+        word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+      }
+      result.add(word.toString());
+    }
+    return result;
+  }
+
+  public List<String> getSpeakers() {
+    return speakers;
+  }
+
+  public List<String> getEmotions() {
+    return emotions;
+  }
+
+  public List<String> getWords() {
+    return words;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("<CorpusVocabulary: %d speakers, %d emotions, %d words>",
+      speakers.size(), emotions.size(), words.size());
+  }
+}
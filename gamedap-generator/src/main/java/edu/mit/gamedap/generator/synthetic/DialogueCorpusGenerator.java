@@ -0,0 +1,354 @@
+package edu.mit.gamedap.generator.synthetic;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes synthetic dialogue in the formats of the bundled example scripts, so that the parsers can be run on
+ * inputs of any size. The output is written as a stream, so corpora far larger than memory can be generated,
+ * and the position of every delimiter written is recorded as the ground truth for accuracy checks.
+ *
+ * The generated text is ASCII, so character offsets in the ground truth are also byte offsets into the file.
+ */
+public class DialogueCorpusGenerator {
+  public static final String DEFAULT_FORMAT_MIX = "QUOTE=4,EMOTION_QUOTE=2,CHOICE_BLOCK=1,SECTION=1";
+  public static final String GROUND_TRUTH_SUFFIX = ".delimiters.tsv";
+  public static final int DEFAULT_SPEAKER_COUNT = 8;
+  public static final int DEFAULT_WORD_COUNT = 500;
+
+  private static final int MIN_LINE_WORDS = 3;
+  private static final int MAX_LINE_WORDS = 16;
+  private static final int MIN_CHOICES = 2;
+  private static final int MAX_CHOICES = 4;
+  private static final String[] SPRITE_POSITIONS = {"left", "right", "center"};
+
+  /**
+   * The kinds of dialogue the generator writes, matching the layouts of the example scripts.
+   */
+  public enum Format {
+    /** Speaker: "Line" */
+    QUOTE,
+    /** Speaker (emotion): "Line" */
+    EMOTION_QUOTE,
+    /** A [Player Input] block of "> Choice" options, each followed by tab-indented responses */
+    CHOICE_BLOCK,
+    /** A SEQUENCE/SCENE START header followed by a sprite direction */
+    SECTION
+  }
+
+  /**
+   * Whether a delimiter separates the fields of a record or separates sections of the script.
+   */
+  public enum DelimiterKind {
+    RECORD, SECTION
+  }
+
+  /**
+   * Receives the ground-truth position of each delimiter as it is written.
+   */
+  public interface DelimiterListener {
+    public void delimiter(long offset, DelimiterKind kind, String text) throws IOException;
+  }
+
+  private final CorpusVocabulary vocabulary;
+  private final Map<Format, Integer> formatMix;
+  private final long seed;
+
+  /**
+   * @param vocabulary The words to fill the generated fields with
+   * @param formatMix The relative weight of each format; formats that are missing are not generated
+   * @param seed The seed for the generated text; the same parameters always generate the same corpus
+   */
+  public DialogueCorpusGenerator(CorpusVocabulary vocabulary, Map<Format, Integer> formatMix, long seed) {
+    assert(formatMix.values().stream().anyMatch(w -> w > 0));
+    this.vocabulary = vocabulary;
+    this.formatMix = new EnumMap<>(formatMix);
+    this.seed = seed;
+  }
+
+  /**
+   * Initializes a generator with a generated vocabulary and the default format mix.
+   *
+   * @param seed The seed for both the vocabulary and the generated text
+   */
+  public DialogueCorpusGenerator(long seed) {
+    this(CorpusVocabulary.generate(DEFAULT_SPEAKER_COUNT, DEFAULT_WORD_COUNT, seed),
+      parseFormatMix(DEFAULT_FORMAT_MIX), seed);
+  }
+
+  /**
+   * Parses a format mix like "QUOTE=3,CHOICE_BLOCK=1".
+   *
+   * @param formatMix A comma-separated list of format names and weights
+   * @return The weight of each listed format
+   * @throws IllegalArgumentException if a format name or weight is invalid
+   */
+  public static Map<Format, Integer> parseFormatMix(String formatMix) {
+    Map<Format, Integer> result = new EnumMap<>(Format.class);
+    for (String entry : formatMix.split(",")) {
+      String[] parts = entry.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Expected FORMAT=weight, got " + entry);
+      }
+      int weight = Integer.parseInt(parts[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight for " + parts[0]);
+      }
+      result.put(Format.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+    }
+    return result;
+  }
+
+  /**
+   * Writes a corpus of roughly the given length. Generation stops at the end of the first unit (a line, a
+   * choice block or a section header) that reaches the target, so the output may be slightly longer.
+   *
+   * @param output Where to write the dialogue
+   * @param listener Receives the position of each delimiter written
+   * @param targetLength The number of characters to write
+   * @return The number of characters written
+   * @throws IOException if the output or the listener fails
+   */
+  public long generate(Writer output, DelimiterListener listener, long targetLength) throws IOException {
+    CorpusWriter writer = new CorpusWriter(output, listener);
+    Random random = new Random(this.seed);
+    int sectionCount = 0;
+
+    while (writer.offset < targetLength) {
+      switch (this.chooseFormat(random)) {
+        case QUOTE:
+          this.writeQuote(writer, random, null, "");
+          break;
+        case EMOTION_QUOTE:
+          this.writeQuote(writer, random, pick(this.vocabulary.getEmotions(), random), "");
+          break;
+        case CHOICE_BLOCK:
+          this.writeChoiceBlock(writer, random);
+          break;
+        case SECTION:
+          this.writeSection(writer, random, ++sectionCount);
+          break;
+      }
+    }
+    return writer.offset;
+  }
+
+  /**
+   * Generates a corpus into a string; intended for small corpora such as test and benchmark inputs.
+   *
+   * @param targetLength The approximate number of characters to generate
+   * @return The generated dialogue
+   */
+  public String generate(long targetLength) {
+    StringWriter output = new StringWriter();
+    try {
+      this.generate(output, (offset, kind, text) -> {}, targetLength);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return output.toString();
+  }
+
+  private Format chooseFormat(Random random) {
+    int total = this.formatMix.values().stream().mapToInt(Integer::intValue).sum();
+    int choice = random.nextInt(total);
+    for (Map.Entry<Format, Integer> entry : this.formatMix.entrySet()) {
+      choice -= entry.getValue();
+      if (choice < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("Format weights changed during generation");
+  }
+
+  private void writeQuote(CorpusWriter writer, Random random, String emotion, String indent) throws IOException {
+    if (!indent.isEmpty()) {
+      writer.delimiter(indent, DelimiterKind.RECORD);
+    }
+    writer.field(pick(this.vocabulary.getSpeakers(), random));
+    if (emotion != null) {
+      writer.delimiter(" (", DelimiterKind.RECORD);
+      writer.field(emotion);
+      writer.delimiter("): \"", DelimiterKind.RECORD);
+    } else {
+      writer.delimiter(": \"", DelimiterKind.RECORD);
+    }
+    writer.field(this.makeSentence(random, MIN_LINE_WORDS, MAX_LINE_WORDS));
+    writer.delimiter("\"\n", DelimiterKind.RECORD);
+  }
+
+  private void writeChoiceBlock(CorpusWriter writer, Random random) throws IOException {
+    writer.delimiter("[Player Input]\n", DelimiterKind.RECORD);
+    int choices = MIN_CHOICES + random.nextInt(MAX_CHOICES - MIN_CHOICES + 1);
+    for (int i = 0; i < choices; i++) {
+      writer.delimiter("> ", DelimiterKind.RECORD);
+      writer.field(capitalize(this.makeWords(random, 1, 3)));
+      writer.delimiter("\n", DelimiterKind.RECORD);
+      int responses = 1 + random.nextInt(2);
+      for (int j = 0; j < responses; j++) {
+        this.writeQuote(writer, random, null, "\t");
+      }
+    }
+  }
+
+  private void writeSection(CorpusWriter writer, Random random, int sectionNumber) throws IOException {
+    writer.delimiter("\nSEQUENCE #", DelimiterKind.SECTION);
+    writer.field(Integer.toString(sectionNumber));
+    writer.delimiter(" - ", DelimiterKind.SECTION);
+    writer.field(capitalize(this.makeWords(random, 2, 4)));
+    writer.delimiter("\nSCENE START\n\nSPRITE spr_", DelimiterKind.SECTION);
+    writer.field(pick(this.vocabulary.getSpeakers(), random).toLowerCase(Locale.ROOT));
+    writer.delimiter(" @ ", DelimiterKind.SECTION);
+    writer.field(SPRITE_POSITIONS[random.nextInt(SPRITE_POSITIONS.length)]);
+    writer.delimiter("\n\n", DelimiterKind.SECTION);
+  }
+
+  private String makeSentence(Random random, int minWords, int maxWords) {
+    String sentence = capitalize(this.makeWords(random, minWords, maxWords));
+    switch (random.nextInt(6)) {
+      case 0:
+        return sentence + "?";
+      case 1:
+        return sentence + "!";
+      default:
+        return sentence + ".";
+    }
+  }
+
+  private String makeWords(Random random, int minWords, int maxWords) {
+    int count = minWords + random.nextInt(maxWords - minWords + 1);
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        result.append(i % 5 == 4 && random.nextBoolean() ? ", " : " ");
+      }
+      result.append(pick(this.vocabulary.getWords(), random));
+    }
+    return result.toString();
+  }
+
+  private static String pick(List<String> options, Random random) {
+    return options.get(random.nextInt(options.size()));
+  }
+
+  private static String capitalize(String text) {
+    return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+  }
+
+  /**
+   * Tracks the offset of the output so that delimiters can be reported as they are written.
+   */
+  private static class CorpusWriter {
+    private final Writer output;
+    private final DelimiterListener listener;
+    private long offset = 0;
+
+    CorpusWriter(Writer output, DelimiterListener listener) {
+      this.output = output;
+      this.listener = listener;
+    }
+
+    void field(String text) throws IOException {
+      this.output.write(text);
+      this.offset += text.length();
+    }
+
+    void delimiter(String text, DelimiterKind kind) throws IOException {
+      this.listener.delimiter(this.offset, kind, text);
+      this.field(text);
+    }
+  }
+
+  /**
+   * Escapes a delimiter for a line of the ground truth file.
+   */
+  static String escape(String text) {
+    return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+  }
+
+  /**
+   * Generates a corpus file along with a ground truth file listing the offset, length, kind and (escaped)
+   * text of each delimiter, one per line.
+   *
+   * @param output The path of the corpus file; the ground truth is written next to it
+   * @param targetLength The approximate number of characters to generate
+   * @return The number of characters written
+   * @throws IOException if either file could not be written
+   */
+  public long generateFiles(Path output, long targetLength) throws IOException {
+    Path groundTruth = Paths.get(output.toString() + GROUND_TRUTH_SUFFIX);
+    try (BufferedWriter corpusWriter = Files.newBufferedWriter(output);
+        BufferedWriter truthWriter = Files.newBufferedWriter(groundTruth)) {
+      truthWriter.write("offset\tlength\tkind\ttext\n");
+      return this.generate(corpusWriter, (offset, kind, text) -> {
+        // Written piecewise rather than with String.format, which dominates the cost of large corpora
+        truthWriter.write(Long.toString(offset));
+        truthWriter.write('\t');
+        truthWriter.write(Integer.toString(text.length()));
+        truthWriter.write('\t');
+        truthWriter.write(kind.name());
+        truthWriter.write('\t');
+        truthWriter.write(escape(text));
+        truthWriter.write('\n');
+      }, targetLength);
+    }
+  }
+
+  /**
+   * Parses a size like "512", "64KB", "10MB" or "2GB" into a number of characters.
+   */
+  static long parseSize(String size) {
+    String upper = size.trim().toUpperCase(Locale.ROOT);
+    long multiplier = 1;
+    if (upper.endsWith("KB")) {
+      multiplier = 1L << 10;
+    } else if (upper.endsWith("MB")) {
+      multiplier = 1L << 20;
+    } else if (upper.endsWith("GB")) {
+      multiplier = 1L << 30;
+    }
+    if (multiplier > 1) {
+      upper = upper.substring(0, upper.length() - 2);
+    }
+    return Long.parseLong(upper.trim()) * multiplier;
+  }
+
+  /**
+   * Usage: DialogueCorpusGenerator &lt;output file&gt; &lt;size, e.g. 64KB or 1GB&gt; [seed] [format mix]
+   *    [speaker count] [word count]
+   */
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.out.println("Usage: DialogueCorpusGenerator <output file> <size, e.g. 64KB or 1GB> [seed] " +
+        "[format mix, e.g. " + DEFAULT_FORMAT_MIX + "] [speaker count] [word count]");
+      return;
+    }
+
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+    Map<Format, Integer> formatMix = parseFormatMix(args.length > 3 ? args[3] : DEFAULT_FORMAT_MIX);
+    int speakerCount = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_SPEAKER_COUNT;
+    int wordCount = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_WORD_COUNT;
+    DialogueCorpusGenerator generator = new DialogueCorpusGenerator(
+      CorpusVocabulary.generate(speakerCount, wordCount, seed), formatMix, seed);
+
+    try {
+      long start = System.nanoTime();
+      long written = generator.generateFiles(Paths.get(args[0]), parseSize(args[1]));
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.println(String.format("Wrote %d characters in %.2f s (%.1f MB/s)",
+        written, seconds, written / 1048576.0 / seconds));
+    } catch (IOException e) {
+      System.out.println(e);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package edu.mit.gamedap.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+public class BatchGrammarGeneratorTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final SampsonParser<EmptyContext, Character> parser = new SampsonParser<>(2);
+
+  private Path write(String relativePath, String text) throws IOException {
+    Path path = folder.getRoot().toPath().resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  private BatchGrammarGenerator makeGenerator() {
+    return new BatchGrammarGenerator(text -> {
+      if (text.startsWith("fail")) {
+        throw new IllegalStateException("Could not learn " + text);
+      }
+      return parser.new ParseResults(".*: .*\n", Collections.singletonList(Arrays.asList("a", text)));
+    }, 2);
+  }
+
+  @Test
+  public void testFindInputs_DirectoryFileAndGlob() throws IOException {
+    Path x = write("in/x.txt", "a: b\n");
+    Path y = write("in/y.csv", "a: b\n");
+    Path z = write("in/sub/z.txt", "a: b\n");
+    String root = folder.getRoot().toPath().resolve("in").toString();
+
+    assertEquals("Expected the files directly in the directory", Arrays.asList(x, y),
+      BatchGrammarGenerator.findInputs(root));
+    assertEquals("Expected the file itself", Collections.singletonList(z),
+      BatchGrammarGenerator.findInputs(z.toString()));
+    assertEquals("Expected the matching files at any depth", Arrays.asList(z, x),
+      BatchGrammarGenerator.findInputs(root + "/**.txt"));
+    assertEquals("Expected only the matching files in the directory", Collections.singletonList(y),
+      BatchGrammarGenerator.findInputs(root + "/*.csv"));
+  }
+
+  @Test
+  public void testFindInputs_RelativeGlob() throws IOException {
+    // Tests run from the module directory, which holds the pom and no other XML files
+    assertEquals("Expected a bare glob to match in the working directory",
+      Collections.singletonList(Paths.get(".", "pom.xml")), BatchGrammarGenerator.findInputs("*.xml"));
+
+    write("in/x.txt", "a: b\n");
+    write("in/y.csv", "a: b\n");
+    Path relativeRoot = Paths.get("").toAbsolutePath().relativize(folder.getRoot().toPath().resolve("in"));
+    assertEquals("Expected a relative glob to match below its base",
+      Collections.singletonList(relativeRoot.resolve("x.txt")),
+      BatchGrammarGenerator.findInputs(relativeRoot + "/*.txt"));
+  }
+
+  @Test
+  public void testRun_KeepsRelativePaths() throws IOException {
+    List<Path> inputs = Arrays.asList(write("in/a/x.txt", "a: b\n"), write("in/b/x.txt", "c: d\n"));
+    Path output = folder.getRoot().toPath().resolve("out");
+
+    List<BatchGrammarGenerator.FileResult> results = makeGenerator().run(inputs, output);
+    assertTrue("Expected every file to succeed",
+      results.stream().allMatch(BatchGrammarGenerator.FileResult::isSuccess));
+    for (String name : Arrays.asList("a/x", "b/x")) {
+      assertTrue("Expected results for " + name,
+        Files.exists(output.resolve(name).resolve(BatchGrammarGenerator.RESULTS_FILE_NAME)));
+      assertTrue("Expected a grammar for " + name,
+        Files.exists(output.resolve(name).resolve(GrammarBuilder.FILE_NAME)));
+    }
+  }
+
+  @Test
+  public void testRun_FailsSharedOutputDirectories() throws IOException {
+    List<Path> inputs = Arrays.asList(write("in/x.txt", "a: b\n"), write("in/x.csv", "c: d\n"),
+      write("in/y.txt", "e: f\n"));
+    Path output = folder.getRoot().toPath().resolve("out");
+
+    List<BatchGrammarGenerator.FileResult> results = makeGenerator().run(inputs, output);
+    assertFalse("Expected x.txt to fail", results.get(0).isSuccess());
+    assertFalse("Expected x.csv to fail", results.get(1).isSuccess());
+    assertTrue("Expected y.txt to succeed", results.get(2).isSuccess());
+    assertFalse("Expected nothing to be written for x", Files.exists(output.resolve("x")));
+  }
+
+  @Test
+  public void testRun_IsolatesFailures() throws IOException {
+    Path missing = folder.getRoot().toPath().resolve("in/missing.txt");
+    List<Path> inputs = Arrays.asList(write("in/a.txt", "a: b\n"), write("in/b.txt", "fail: here\n"), missing,
+      write("in/c.txt", "c: d\n"));
+    Path output = folder.getRoot().toPath().resolve("out");
+
+    List<BatchGrammarGenerator.FileResult> results = makeGenerator().run(inputs, output);
+    assertEquals("Expected a result per input", inputs.size(), results.size());
+    assertTrue("Expected a.txt to succeed", results.get(0).isSuccess());
+    assertTrue("Expected the learner's error", results.get(1).getError() instanceof IllegalStateException);
+    assertTrue("Expected the read error", results.get(2).getError() instanceof NoSuchFileException);
+    assertTrue("Expected c.txt to succeed", results.get(3).isSuccess());
+    assertEquals("Expected the input of each result", inputs.get(3), results.get(3).getInput());
+    assertTrue("Expected results for c", Files.exists(output.resolve("c").resolve(GrammarBuilder.FILE_NAME)));
+  }
+}
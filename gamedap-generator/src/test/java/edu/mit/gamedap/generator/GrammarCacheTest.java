@@ -0,0 +1,73 @@
+package edu.mit.gamedap.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+public class GrammarCacheTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final SampsonParser<EmptyContext, Character> parser = new SampsonParser<>(2);
+
+  @Test
+  public void testKey_DependsOnInputAndParameters() {
+    String key = GrammarCache.key("a: b\n", "w=2");
+    assertEquals("Expected the same key for the same input", key, GrammarCache.key("a: b\n", "w=2"));
+    assertNotEquals("Expected a different key for different text", key, GrammarCache.key("a: c\n", "w=2"));
+    assertNotEquals("Expected a different key for different parameters", key, GrammarCache.key("a: b\n", "w=3"));
+  }
+
+  @Test
+  public void testPutGet_RoundTrip() throws IOException {
+    GrammarCache cache = new GrammarCache(folder.getRoot().toPath(), 1 << 20);
+    SampsonParser<EmptyContext, Character>.ParseResults results = parser.new ParseResults(".*: .*\n",
+      Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")));
+    results.setParent(parser.new ParseResults(".*---", Collections.singletonList(Arrays.asList("x"))));
+    cache.put("entry", results, "grammar GeneratedGrammar;");
+
+    Optional<GrammarCache.Entry<EmptyContext, Character>> cached = cache.get("entry", parser);
+    assertTrue("Expected a cached entry", cached.isPresent());
+    assertEquals("Unexpected record format", results.getRecordFormat(), cached.get().getResults().getRecordFormat());
+    assertEquals("Unexpected record fields", results.getRecordFields(), cached.get().getResults().getRecordFields());
+    assertEquals("Unexpected parent format", ".*---",
+      cached.get().getResults().getParentFormat().get().getRecordFormat());
+    assertEquals("Unexpected grammar", "grammar GeneratedGrammar;", cached.get().getGrammar());
+    assertFalse("Expected no entry for another key", cache.get("other", parser).isPresent());
+  }
+
+  @Test
+  public void testEvict_LeastRecentlyUsed() throws IOException {
+    Path root = folder.getRoot().toPath();
+    GrammarCache cache = new GrammarCache(root, 1 << 20);
+    String field = String.join("", Collections.nCopies(1000, "x"));
+    SampsonParser<EmptyContext, Character>.ParseResults results = parser.new ParseResults(".*: ",
+      Collections.singletonList(Arrays.asList(field)));
+
+    cache.put("old", results, "");
+    cache.put("new", results, "");
+    Files.setLastModifiedTime(root.resolve("old"), FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(root.resolve("new"), FileTime.fromMillis(2000));
+
+    // Room for only one of the two entries
+    new GrammarCache(root, 1500).evict();
+    assertFalse("Expected the least recently used entry to be evicted", Files.exists(root.resolve("old")));
+    assertTrue("Expected the most recently used entry to be kept", Files.exists(root.resolve("new")));
+  }
+}
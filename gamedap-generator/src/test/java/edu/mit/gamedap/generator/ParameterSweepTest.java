@@ -0,0 +1,51 @@
+package edu.mit.gamedap.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+public class ParameterSweepTest {
+
+  private SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults makeResults(
+      String recordFormat, List<List<String>> recordFields) {
+    return new SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>(2)
+      .new ParseResults(recordFormat, recordFields);
+  }
+
+  @Test
+  public void testGrid_AllCombinations() {
+    ParameterSweep.ParameterSpace space = new ParameterSweep.ParameterSpace(Arrays.asList(2, 3),
+      Arrays.asList(10, 20, 30), Arrays.asList(0.1), Arrays.asList(5, 10), Arrays.asList(1.0),
+      Arrays.asList(0.001), Arrays.asList(0.3, 0.2));
+    assertEquals("Unexpected grid size", 24, space.grid().size());
+    assertEquals("Unexpected random sample size", 5, space.random(5, 0).size());
+  }
+
+  @Test
+  public void testConsistencyScorer() {
+    double score = ParameterSweep.consistencyScorer().score(makeResults(".*: \".*\"\n", Arrays.asList(
+      Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e"), Arrays.asList("f", "g"))));
+    assertEquals("Unexpected score", 0.75 * 2 / 3, score, 1e-9);
+    assertEquals("Expected no score without records", 0,
+      ParameterSweep.consistencyScorer().score(makeResults(".*: ", Collections.emptyList())), 1e-9);
+  }
+
+  @Test
+  public void testDelimiterScorer() {
+    ParameterSweep.Scorer scorer = ParameterSweep.delimiterScorer(Arrays.asList(": \"", "\"\n"));
+    assertEquals("Expected a perfect score", 1,
+      scorer.score(makeResults(".*: \".*\"\n", Collections.emptyList())), 1e-9);
+    assertEquals("Unexpected partial score", 2 * 0.5 * 0.5 / (0.5 + 0.5),
+      scorer.score(makeResults(".*: \".*\n", Collections.emptyList())), 1e-9);
+  }
+}
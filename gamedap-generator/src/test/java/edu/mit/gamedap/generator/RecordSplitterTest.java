@@ -0,0 +1,49 @@
+package edu.mit.gamedap.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordSplitterTest {
+  @Test
+  public void testSplit_DelimiterTerminated() {
+    RecordSplitter splitter = new RecordSplitter(".*: .*\n");
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList("A", "hi", ""),
+      Arrays.asList("B", "bye", ""));
+    assertEquals("Unexpected records", expected, splitter.split("A: hi\nB: bye\n"));
+  }
+
+  @Test
+  public void testSplit_MissingDelimiters() {
+    RecordSplitter splitter = new RecordSplitter(".* (.*): .*\n");
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList("", "", "Title", ""),
+      Arrays.asList("Pit", "sad", "Hi", ""),
+      Arrays.asList("", "", "Pit: Bye", ""),
+      Arrays.asList("End", "", "", ""));
+    assertEquals("Unexpected records", expected,
+      splitter.split("Title\nPit (sad): Hi\nPit: Bye\nEnd"));
+  }
+
+  @Test
+  public void testSplit_OutOfOrderStartsRecord() {
+    // Without a final delimiter, the last part runs until the next record's first delimiter
+    RecordSplitter splitter = new RecordSplitter("[.*].*");
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList("", "a", " x\ny "),
+      Arrays.asList("", "b", " z"));
+    assertEquals("Unexpected records", expected, splitter.split("[a] x\ny [b] z"));
+  }
+
+  @Test
+  public void testSplit_OverlappingDelimiters() {
+    // "ab" is recognized at "b", so the delimiter "bc" cannot reuse it
+    RecordSplitter splitter = new RecordSplitter(Arrays.asList("ab", "bc"), true);
+    List<List<String>> expected = Arrays.asList(Arrays.asList("x", "cy", ""));
+    assertEquals("Unexpected records", expected, splitter.split("xabcy"));
+  }
+}
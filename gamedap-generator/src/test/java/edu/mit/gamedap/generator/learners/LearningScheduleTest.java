@@ -0,0 +1,143 @@
+package edu.mit.gamedap.generator.learners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.StringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+public class LearningScheduleTest {
+
+  @Test
+  public void testFactor_Decays() {
+    assertEquals(1, LearningSchedule.constant().factor(7, 10), 1e-9);
+    assertEquals(1, LearningSchedule.linear(0.1).factor(0, 10), 1e-9);
+    assertEquals(0.1, LearningSchedule.linear(0.1).factor(9, 10), 1e-9);
+    assertEquals(0.25, LearningSchedule.exponential(0.5).factor(2, 10), 1e-9);
+    assertEquals(1.0 / 3, LearningSchedule.inverseTime(0.5).factor(4, 10), 1e-9);
+    assertEquals(1, LearningSchedule.step(3, 0.5).factor(2, 10), 1e-9);
+    assertEquals(0.5, LearningSchedule.step(3, 0.5).factor(3, 10), 1e-9);
+  }
+
+  @Test
+  public void testTrain_AppliesScheduleAcrossCalls() {
+    Set<Character> characterSet = new HashSet<>();
+    List<Vector<EmptyContext, Character>> stimuli = new ArrayList<>();
+    for (String s : Arrays.asList("ab", "cd", "ef")) {
+      stimuli.add(new StringVector(s, characterSet));
+    }
+    FSCLStringLearner learner = new FSCLStringLearner(0.8, 1.0, characterSet);
+    learner.setLearningSchedule(LearningSchedule.linear(0.25));
+    learner.setRivalPenaltySchedule(LearningSchedule.exponential(0.5));
+    learner.initialize(3, stimuli);
+    learner.setEpochHorizon(4);
+    List<Double> rates = new ArrayList<>();
+    learner.addTrainingListener(statistics -> rates.add(statistics.getLearningRate()));
+
+    learner.train(2);
+    learner.train(2);
+    double[] expected = {0.8, 0.6, 0.4, 0.2};
+    assertEquals("Expected one rate per epoch", expected.length, rates.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Expected the rate to decay over the whole horizon", expected[i], rates.get(i), 1e-9);
+    }
+  }
+
+  @Test
+  public void testInitialize_RestartsSchedule() {
+    Set<Character> characterSet = new HashSet<>();
+    List<Vector<EmptyContext, Character>> stimuli = new ArrayList<>();
+    for (String s : Arrays.asList("ab", "cd", "ef")) {
+      stimuli.add(new StringVector(s, characterSet));
+    }
+    FSCLStringLearner learner = new FSCLStringLearner(0.8, 1.0, characterSet);
+    learner.setLearningSchedule(LearningSchedule.linear(0.25));
+    learner.initialize(3, stimuli);
+    learner.setEpochHorizon(8);
+    learner.train(4);
+    List<Double> rates = new ArrayList<>();
+    learner.addTrainingListener(statistics -> rates.add(statistics.getLearningRate()));
+
+    learner.initialize(3, stimuli);
+    learner.train(2);
+    double[] expected = {0.8, 0.2};
+    assertEquals("Expected one rate per epoch", expected.length, rates.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Expected the rate to decay over the new training only", expected[i], rates.get(i), 1e-9);
+    }
+  }
+
+  @Test
+  public void testGetAdaptationCount_ConstantScheduleRoundsUp() {
+    FSCLStringLearner learner = new FSCLStringLearner(0.1, 1.0, new HashSet<>());
+    for (int size = 1; size <= 6; size++) {
+      for (double rate : new double[] {0.1, -0.1, 0.25, 0.5, 1.0}) {
+        assertEquals("Expected the baseline count for size " + size + " and rate " + rate,
+            (int) Math.ceil(Math.abs(size * rate)), learner.getAdaptationCount(size, rate));
+      }
+    }
+  }
+
+  @Test
+  public void testGetAdaptationCount_ScheduledRateRoundsStochastically() {
+    FSCLStringLearner learner = new FSCLStringLearner(0.1, 1.0, new HashSet<>());
+    learner.setRivalPenaltySchedule(LearningSchedule.exponential(0.9));
+    learner.setSeed(1);
+    int trials = 10000;
+    int total = 0;
+    for (int i = 0; i < trials; i++) {
+      int count = learner.getAdaptationCount(2, 0.1);
+      assertTrue("Expected the count to round 0.2 down or up", count == 0 || count == 1);
+      total += count;
+    }
+    assertEquals("Expected the proportion of elements on average", 0.2, (double) total / trials, 0.02);
+  }
+
+  private int countLateWinnerChanges(LearningSchedule schedule) {
+    Set<Character> characterSet = new HashSet<>();
+    Random random = new Random(11);
+    StringBuilder text = new StringBuilder();
+    for (int line = 0; line < 60; line++) {
+      text.append("ab".charAt(random.nextInt(2))).append(": ").append("xyz".charAt(random.nextInt(3))).append('\n');
+    }
+    List<Vector<EmptyContext, Character>> stimuli = new ArrayList<>();
+    for (int i = 0; i + 2 <= text.length(); i++) {
+      stimuli.add(new StringVector(text.substring(i, i + 2), characterSet));
+    }
+
+    int lateWinnerChanges = 0;
+    for (int seed = 0; seed < 5; seed++) {
+      FSCLStringLearner learner = new FSCLStringLearner(0.4, 1.0, characterSet);
+      learner.setSeed(seed);
+      learner.setLearningSchedule(schedule);
+      learner.initialize(6, stimuli);
+      List<Integer> winnerChanges = new ArrayList<>();
+      learner.addTrainingListener(statistics -> winnerChanges.add(statistics.getWinnerChanges()));
+      learner.train(40);
+      for (int changes : winnerChanges.subList(30, 40)) {
+        lateWinnerChanges += changes;
+      }
+    }
+    return lateWinnerChanges;
+  }
+
+  @Test
+  public void testTrain_DecayingRateSettlesStringNeurons() {
+    // With windows of 2 characters, a neuron adapts by less than one element per stimulus once the rate decays,
+    // so the decaying rate only settles the neurons if that fraction of an element is taken into account
+    int constantChanges = countLateWinnerChanges(LearningSchedule.constant());
+    int decayingChanges = countLateWinnerChanges(LearningSchedule.exponential(0.8));
+    assertTrue("Expected far fewer late winner changes with a decaying rate (" + decayingChanges + ") than with a "
+      + "constant one (" + constantChanges + ")", decayingChanges * 2 < constantChanges);
+  }
+}
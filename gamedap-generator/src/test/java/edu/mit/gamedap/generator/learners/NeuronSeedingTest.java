@@ -0,0 +1,81 @@
+package edu.mit.gamedap.generator.learners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.StringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorCluster;
+
+public class NeuronSeedingTest {
+
+  private List<Vector<EmptyContext, Character>> makeStimuli(Set<Character> characterSet) {
+    List<Vector<EmptyContext, Character>> stimuli = new ArrayList<>();
+    for (String s : Arrays.asList("ab", "ab", "ab", "cd", "ef", "cd", "gh", "ab")) {
+      stimuli.add(new StringVector(s, characterSet));
+    }
+    return stimuli;
+  }
+
+  private Set<String> values(List<Vector<EmptyContext, Character>> vectors) {
+    Set<String> result = new HashSet<>();
+    for (Vector<EmptyContext, Character> vector : vectors) {
+      result.add("" + vector.get(0) + vector.get(1));
+    }
+    return result;
+  }
+
+  @Test
+  public void testSelect_ChoosesDistinctStimuli() {
+    List<Vector<EmptyContext, Character>> stimuli = makeStimuli(new HashSet<>());
+    for (NeuronSeeding seeding : Arrays.asList(NeuronSeeding.distinctStimuli(), NeuronSeeding.kMeansPlusPlus(),
+        NeuronSeeding.kMeansParallel(3, 2))) {
+      List<Vector<EmptyContext, Character>> chosen = seeding.select(stimuli, Collections.emptyList(), 10, 1.0,
+        new Random(1));
+      assertTrue("Expected no duplicates from " + seeding, chosen.size() == values(chosen).size());
+    }
+
+    List<Vector<EmptyContext, Character>> chosen = NeuronSeeding.kMeansPlusPlus().select(stimuli,
+      Collections.emptyList(), 10, 1.0, new Random(1));
+    assertEquals("Expected every distinct stimulus", new HashSet<>(Arrays.asList("ab", "cd", "ef", "gh")),
+      values(chosen));
+  }
+
+  @Test
+  public void testSelect_AvoidsExistingNeurons() {
+    Set<Character> characterSet = new HashSet<>();
+    List<Vector<EmptyContext, Character>> stimuli = makeStimuli(characterSet);
+    List<Vector<EmptyContext, Character>> existing = Arrays.asList(new StringVector("ab", characterSet));
+
+    List<Vector<EmptyContext, Character>> chosen = NeuronSeeding.kMeansPlusPlus().select(stimuli, existing, 10,
+      1.0, new Random(2));
+    assertEquals("Expected the other distinct stimuli", new HashSet<>(Arrays.asList("cd", "ef", "gh")),
+      values(chosen));
+  }
+
+  @Test
+  public void testInitialize_StartsNeuronsAtStimuli() {
+    Set<Character> characterSet = new HashSet<>();
+    List<Vector<EmptyContext, Character>> stimuli = makeStimuli(characterSet);
+    FSCLStringLearner learner = new FSCLStringLearner(0.5, 1.0, characterSet);
+    learner.setSeed(3);
+    learner.setSeeding(NeuronSeeding.distinctStimuli());
+    learner.initialize(4, stimuli);
+
+    for (VectorCluster<EmptyContext, Character> cluster : learner.cluster(stimuli)) {
+      assertEquals("Expected every stimulus to have a neuron", 0, cluster.getMeanDistance(), 1e-9);
+    }
+    assertEquals("Expected the stimuli to be left alone", "ab", "" + stimuli.get(0).get(0) + stimuli.get(0).get(1));
+  }
+}
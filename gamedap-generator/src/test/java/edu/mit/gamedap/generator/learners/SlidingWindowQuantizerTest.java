@@ -0,0 +1,85 @@
+package edu.mit.gamedap.generator.learners;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.StringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+public class SlidingWindowQuantizerTest {
+
+  private char[] randomText(Random random, int length, String alphabet) {
+    char[] text = new char[length];
+    for (int i = 0; i < length; i++) {
+      text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+    }
+    return text;
+  }
+
+  private int[] quantizeDirectly(char[] text, int w, char[][] neurons) {
+    int[] nearest = new int[text.length - w + 1];
+    for (int i = 0; i < nearest.length; i++) {
+      int bestMismatches = Integer.MAX_VALUE;
+      for (int k = 0; k < neurons.length; k++) {
+        int mismatches = 0;
+        for (int j = 0; j < w; j++) {
+          if (text[i + j] != neurons[k][j]) {
+            mismatches++;
+          }
+        }
+        if (mismatches < bestMismatches) {
+          bestMismatches = mismatches;
+          nearest[i] = k;
+        }
+      }
+    }
+    return nearest;
+  }
+
+  @Test
+  public void testQuantizeWindows_MatchesDirectDistances() {
+    Random random = new Random(7);
+    // Lengths that cover a single character, a whole word of 64 and more, and texts shorter and longer than a block
+    for (int w : new int[] {1, 4, 16, 64, 70}) {
+      for (int length : new int[] {w, w + 100, 5000}) {
+        char[] text = randomText(random, length, "ab: \né");
+        char[][] neurons = new char[37][];
+        for (int k = 0; k < neurons.length; k++) {
+          // Some neurons have characters that the text does not
+          neurons[k] = randomText(random, w, k % 5 == 0 ? "abz" : "ab: \né");
+        }
+        assertArrayEquals("Expected the nearest neurons for w=" + w + ", length=" + length,
+          quantizeDirectly(text, w, neurons), SlidingWindowQuantizer.quantizeWindows(text, w, neurons));
+      }
+    }
+  }
+
+  @Test
+  public void testQuantizeAll_UsesWindowsOfText() {
+    Set<Character> characterSet = new HashSet<>();
+    String text = "abc: def\nghi: jkl\némno: pqr\n";
+    List<Vector<EmptyContext, Character>> windows = new ArrayList<>();
+    for (int i = 0; i + 3 <= text.length(); i++) {
+      windows.add(new StringVector(text.substring(i, i + 3), characterSet));
+    }
+    FSCLStringLearner learner = new FSCLStringLearner(0.5, 1.0, characterSet);
+    learner.setSeed(1);
+    learner.initialize(6, windows);
+    learner.train(3);
+
+    assertEquals("Expected the windows to be joined", text, new String(StringCompetitiveLearner.joinWindows(windows)));
+    int[] nearest = learner.quantizeAll(windows);
+    for (int i = 0; i < windows.size(); i++) {
+      assertEquals("Expected the same neuron as quantize", learner.quantize(windows.get(i)), nearest[i]);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package edu.mit.gamedap.generator.learners;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionStringVector;
+import edu.mit.gamedap.generator.datatypes.StringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+public class StringCompetitiveLearnerTest {
+  // Characters above 127 are boxed into distinct Character objects, so only equals finds them matching
+  private static final Set<Character> CHARACTER_SET = new HashSet<>(Arrays.asList('é', 'a'));
+
+  private String getText(Vector<?, Character> vector) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < vector.size(); i++) {
+      text.append(vector.get(i));
+    }
+    return text.toString();
+  }
+
+  @Test
+  public void testTrainSelectedNeuron_PushesMatchingCharactersAway() {
+    FSCLStringLearner learner = new FSCLStringLearner(1.0, 1.0, CHARACTER_SET);
+    StringVector neuron = new StringVector("éé", CHARACTER_SET);
+
+    learner.trainSelectedNeuron(new StringVector("éé", CHARACTER_SET), neuron, -1.0);
+    assertEquals("Expected every matching character to change", "aa", getText(neuron));
+  }
+
+  @Test
+  public void testTrainSelectedNeuron_PushesMatchingPositionCharactersAway() {
+    FSCLPositionStringLearner learner = new FSCLPositionStringLearner(1.0, 1.0, 10, CHARACTER_SET);
+    LinePositionStringVector neuron = new LinePositionStringVector(new LinePositionContext(0), "éé", CHARACTER_SET);
+
+    learner.trainSelectedNeuron(new LinePositionStringVector(new LinePositionContext(0), "éé", CHARACTER_SET), neuron,
+      -1.0);
+    assertEquals("Expected every matching character to change", "aa", getText(neuron));
+  }
+}
@@ -0,0 +1,55 @@
+package edu.mit.gamedap.generator.learners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.StringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+public class TrainingListenerTest {
+
+  private FSCLStringLearner makeLearner(Set<Character> characterSet) {
+    List<Vector<EmptyContext, Character>> stimuli = new ArrayList<>();
+    for (String s : Arrays.asList("ab", "ab", "cd", "ef", "ab", "cd")) {
+      stimuli.add(new StringVector(s, characterSet));
+    }
+    FSCLStringLearner learner = new FSCLStringLearner(0.5, 1.0, characterSet);
+    learner.setSeed(5);
+    learner.initialize(4, stimuli);
+    return learner;
+  }
+
+  @Test
+  public void testEpochFinished_ReportsEveryStimulus() {
+    FSCLStringLearner learner = makeLearner(new HashSet<>());
+    List<EpochStatistics> reported = new ArrayList<>();
+    learner.addTrainingListener(statistics -> reported.add(statistics));
+
+    assertEquals("Expected every epoch to run", 3, learner.train(3));
+    assertEquals("Expected one event per epoch", 3, reported.size());
+    EpochStatistics first = reported.get(0);
+    assertEquals("Expected every winner to change in the first epoch", 6, first.getWinnerChanges());
+    assertEquals("Expected each stimulus to be won once", 6, Arrays.stream(first.getWinCounts()).sum());
+    assertEquals("Expected dead neurons to be counted", first.getWinCounts().length -
+      Arrays.stream(first.getWinCounts()).filter(w -> w > 0).count(), first.getDeadNeuronCount());
+    assertTrue("Expected a non-negative error", first.getMeanQuantizationError() >= 0);
+    assertEquals("Expected epochs to be numbered from 1", 3, reported.get(2).getEpoch());
+  }
+
+  @Test
+  public void testEpochFinished_CancelsTraining() {
+    FSCLStringLearner learner = makeLearner(new HashSet<>());
+    learner.addTrainingListener(statistics -> statistics.getEpoch() < 2);
+
+    assertEquals("Expected training to stop after the second epoch", 2, learner.train(10));
+  }
+}
@@ -0,0 +1,172 @@
+package edu.mit.gamedap.generator.parsers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.TextGroup;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.learners.NeuronSeeding;
+
+public class MetaSampsonParserTest {
+  private static final String DIALOGUE = makeDialogue();
+
+  private static String makeDialogue() {
+    Random random = new Random(1);
+    String[] names = {"ALICE", "BOB", "CAROL"};
+    String[] words = {"yes", "no", "maybe", "later", "now", "docks", "again", "fine"};
+    StringBuilder text = new StringBuilder();
+    for (int section = 0; section < 6; section++) {
+      for (int line = 0; line < 3; line++) {
+        text.append(names[line]).append(": ");
+        for (int word = 0; word < 1 + random.nextInt(3); word++) {
+          text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        text.append('\n');
+      }
+      text.append("---\n");
+    }
+    return text.toString();
+  }
+
+  /**
+   * The grouping of the original, single-level parser.
+   */
+  private List<String> groupOriginally(String text, int w, List<Boolean> popular) {
+    int currentDelimiterStart = -1;
+    int currentDelimiterEnd = -1;
+    boolean buildingDelimiter = false;
+
+    List<String> result = new ArrayList<>();
+    for (int i = 0; i < popular.size(); i++) {
+      if (buildingDelimiter) {
+        if (popular.get(i)) {
+          currentDelimiterEnd = i + w;
+        } else if (i >= currentDelimiterEnd) {
+          result.add(text.substring(currentDelimiterStart, currentDelimiterEnd));
+          buildingDelimiter = false;
+        }
+      }
+
+      if (!buildingDelimiter) {
+        if (popular.get(i)) {
+          currentDelimiterStart = i;
+          currentDelimiterEnd = i + w;
+          buildingDelimiter = true;
+        } else {
+          result.add(text.substring(i, i+1));
+        }
+      }
+    }
+
+    if (buildingDelimiter) {
+      result.add(text.substring(currentDelimiterStart, popular.size()));
+    }
+    return result;
+  }
+
+  private List<String> groupDelimiters(String text, int w, List<Boolean> popular) {
+    MetaLearningPrimer primer = new MetaLearningPrimer();
+    MetaSampsonParser parser = new MetaSampsonParser(w, SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH,
+      SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO);
+    List<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> vectors =
+      primer.makeSubstringVectors(text, w, parser.buildCharacterSet(text));
+    Map<Vector<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>, Double> popularities =
+      new IdentityHashMap<>();
+    for (int i = 0; i < vectors.size(); i++) {
+      popularities.put(vectors.get(i), popular.get(i) ? 2.0 : 1.0);
+    }
+
+    List<String> result = new ArrayList<>();
+    for (TextGroup group : parser.groupDelimiters(text, vectors, popularities, 2.0)) {
+      result.add(group.getText());
+    }
+    return result;
+  }
+
+  /**
+   * Makes a primer whose learner is seeded and starts from copies of the substring vectors, so that every parse
+   * of the same text gives the same results.
+   */
+  private MetaLearningPrimer makePrimer() {
+    MetaLearningPrimer primer = new MetaLearningPrimer(40, 0.25, 30, 1.3, 2, 0.025, 16, 1.5, 1);
+    primer.setTrainingEnsemble(TrainingEnsemble.restarts(1, 5));
+    primer.setSeeding(NeuronSeeding.distinctStimuli());
+    return primer;
+  }
+
+  private MetaSampsonParser makeParser(int maxRecursionDepth) {
+    return new MetaSampsonParser(2, SampsonParser.DEFAULT_CLUSTER_STDDEV_THRESH,
+      SampsonParser.DEFAULT_CONTEXT_WEIGHT_SIGNIFICANCE_RATIO / 1.5, maxRecursionDepth);
+  }
+
+  /**
+   * @return The record formats of the results and each of their parents, from the lowest level up
+   */
+  private List<String> getFormats(
+      SampsonParser<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>.ParseResults results) {
+    List<String> formats = new ArrayList<>();
+    formats.add(results.getRecordFormat());
+    while (results.getParentFormat().isPresent()) {
+      results = results.getParentFormat().get();
+      formats.add(results.getRecordFormat());
+    }
+    return formats;
+  }
+
+  @Test
+  public void groupDelimiters_ExtendsThroughAdjacentPopularWindows() {
+    // The window at 2 starts right where the one at 0 ends, so both belong to the same delimiter
+    assertEquals(Arrays.asList("abcd", "e"),
+      groupDelimiters("abcdef", 2, Arrays.asList(true, false, true, false, false)));
+    // The delimiter still open at the last window ends where that window starts, as the text is cut there
+    assertEquals(Arrays.asList("a", "bcde"),
+      groupDelimiters("abcdef", 2, Arrays.asList(false, true, false, true, true)));
+  }
+
+  @Test
+  public void groupDelimiters_MatchesOriginalGrouping() {
+    Random random = new Random(3);
+    for (int trial = 0; trial < 200; trial++) {
+      int w = 1 + random.nextInt(4);
+      StringBuilder text = new StringBuilder();
+      int length = w + random.nextInt(40);
+      for (int i = 0; i < length; i++) {
+        text.append("ab: \n".charAt(random.nextInt(5)));
+      }
+      List<Boolean> popular = new ArrayList<>();
+      for (int i = 0; i <= length - w; i++) {
+        popular.add(random.nextInt(3) == 0);
+      }
+
+      assertEquals("Expected the original grouping of " + popular,
+        groupOriginally(text.toString(), w, popular), groupDelimiters(text.toString(), w, popular));
+    }
+  }
+
+  @Test
+  public void parse_RecursesPastFirstLevel() {
+    List<String> formats = getFormats(makeParser(2).parse(DIALOGUE, makePrimer()));
+    assertEquals("Expected a parent format from each of the two recursion levels", 3, formats.size());
+    assertEquals("Expected the same formats from the same seed", formats,
+      getFormats(makeParser(2).parse(DIALOGUE, makePrimer())));
+  }
+
+  @Test
+  public void parse_StopsWhenNoNewGroupsForm() {
+    // A recursion that stopped before either maximum depth finds the same formats under both
+    assertEquals("Expected the recursion to stop before the maximum depth",
+      getFormats(makeParser(50).parse(DIALOGUE, makePrimer())),
+      getFormats(makeParser(100).parse(DIALOGUE, makePrimer())));
+  }
+}
@@ -0,0 +1,61 @@
+package edu.mit.gamedap.generator.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionStringVector;
+import edu.mit.gamedap.generator.datatypes.Vector;
+import edu.mit.gamedap.generator.datatypes.VectorCluster;
+
+public class TrainingEnsembleTest {
+
+  private static final String TEXT = "abc: def\nghi: jkl\nmno: pqr\n";
+
+  private int countVectors(List<VectorCluster<LinePositionContext, Character>> clusters) {
+    return clusters.stream().mapToInt(c -> c.getVectors().size()).sum();
+  }
+
+  @Test
+  public void testRestarts_AssignsEveryVector() {
+    Set<Character> characterSet = new SampsonParser<LinePositionContext, Character>(2).buildCharacterSet(TEXT);
+    PositionalLearningPrimer primer = new PositionalLearningPrimer(10, 0.1, 5, 1.0);
+    primer.setTrainingEnsemble(TrainingEnsemble.restarts(3, 11));
+    List<Vector<LinePositionContext, Character>> vectors = primer.makeSubstringVectors(TEXT, 2, characterSet);
+
+    assertEquals("Expected every vector in a cluster", vectors.size(),
+      countVectors(primer.assignVectorClusters(vectors, characterSet)));
+  }
+
+  @Test
+  public void testEarlyStopping_AssignsEveryVector() {
+    Set<Character> characterSet = new SampsonParser<LinePositionContext, Character>(2).buildCharacterSet(TEXT);
+    PositionalLearningPrimer primer = new PositionalLearningPrimer(10, 0.1, 6, 1.0);
+    primer.setTrainingEnsemble(TrainingEnsemble.restarts(4, 3, 2, 0));
+    List<Vector<LinePositionContext, Character>> vectors = primer.makeSubstringVectors(TEXT, 2, characterSet);
+
+    assertEquals("Expected every vector in a cluster", vectors.size(),
+      countVectors(primer.assignVectorClusters(vectors, characterSet)));
+  }
+
+  @Test
+  public void testScore_PrefersTightClusters() {
+    Set<Character> characterSet = new SampsonParser<LinePositionContext, Character>(2).buildCharacterSet(TEXT);
+    Vector<LinePositionContext, Character> center = new LinePositionStringVector(new LinePositionContext(0), "ab", characterSet);
+    List<Vector<LinePositionContext, Character>> tight = Arrays.asList(
+      new LinePositionStringVector(new LinePositionContext(0), "ab", characterSet), new LinePositionStringVector(new LinePositionContext(0), "ab", characterSet));
+    List<Vector<LinePositionContext, Character>> loose = Arrays.asList(
+      new LinePositionStringVector(new LinePositionContext(0), "ab", characterSet), new LinePositionStringVector(new LinePositionContext(5), "kl", characterSet));
+
+    double tightScore = TrainingEnsemble.score(Arrays.asList(new VectorCluster<>(center, tight)), 2);
+    double looseScore = TrainingEnsemble.score(Arrays.asList(new VectorCluster<>(center, loose)), 2);
+    assertEquals("Expected no error for identical vectors", 0, tightScore, 1e-9);
+    assertTrue("Expected a worse score for a loose cluster", looseScore > tightScore);
+  }
+}
@@ -0,0 +1,144 @@
+package edu.mit.gamedap.generator.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+public class TrainingSamplerTest {
+
+  private List<Vector<LinePositionContext, Character>> makeVectors(String text) {
+    PositionalLearningPrimer primer = new PositionalLearningPrimer();
+    Set<Character> characterSet = new SampsonParser<LinePositionContext, Character>(2).buildCharacterSet(text);
+    return primer.makeSubstringVectors(text, 2, characterSet);
+  }
+
+  ////// all
+
+  @Test
+  public void testAll_ReturnsInput() {
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors("abc: def\nghi: jkl\n");
+    assertSame("Expected the input to be returned", vectors, TrainingSampler.all().sample(vectors));
+  }
+
+  ////// reservoir
+
+  @Test
+  public void testReservoir_SmallInput() {
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors("abc");
+    assertEquals("Expected every vector", vectors, TrainingSampler.reservoir(10, 0).sample(vectors));
+  }
+
+  @Test
+  public void testReservoir_SizeAndOrder() {
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors("the quick brown fox: jumps over\nthe lazy dog\n");
+    List<Vector<LinePositionContext, Character>> sample = TrainingSampler.reservoir(10, 7).sample(vectors);
+
+    assertEquals("Unexpected sample size", 10, sample.size());
+    int lastIndex = -1;
+    for (Vector<LinePositionContext, Character> vector : sample) {
+      int index = indexOfIdentity(vectors, vector);
+      assertTrue("Sample was not in input order", index > lastIndex);
+      lastIndex = index;
+    }
+  }
+
+  @Test
+  public void testReservoir_FixedSeed() {
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors("the quick brown fox: jumps over\nthe lazy dog\n");
+    assertEquals("Expected the same sample for the same seed",
+      TrainingSampler.reservoir(10, 3).sample(vectors), TrainingSampler.reservoir(10, 3).sample(vectors));
+  }
+
+  @Test
+  public void testReservoir_Uniform() {
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors("abcdefghijklmnopqrstu");
+    int[] counts = new int[vectors.size()];
+    int trials = 4000;
+    // Consecutive seeds give correlated first draws, so the seeds are random too
+    Random seeds = new Random(5);
+    for (int trial = 0; trial < trials; trial++) {
+      for (Vector<LinePositionContext, Character> vector :
+          TrainingSampler.reservoir(5, seeds.nextLong()).sample(vectors)) {
+        counts[indexOfIdentity(vectors, vector)]++;
+      }
+    }
+    // Each of the 20 vectors is expected in a quarter of the samples, give or take about 27
+    for (int i = 0; i < counts.length; i++) {
+      assertEquals("Expected vector " + i + " as often as any other", trials / 4, counts[i], 150);
+    }
+  }
+
+  ////// stratifiedByLinePosition
+
+  @Test
+  public void testStratified_CoversLineStarts() {
+    String text = "";
+    for (int i = 0; i < 20; i++) {
+      text += "speaker" + i + ": some longer line of dialogue\n";
+    }
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors(text);
+    List<Vector<LinePositionContext, Character>> sample =
+      TrainingSampler.stratifiedByLinePosition(vectors.size() / 10, 1).sample(vectors);
+
+    Set<Long> positions = new HashSet<>();
+    for (Vector<LinePositionContext, Character> vector : sample) {
+      positions.add(vector.getContext().getPositionIndex());
+    }
+    assertTrue("Expected a line start in the sample", positions.contains(0L));
+    assertTrue("Sample was larger than expected", sample.size() < vectors.size() / 5);
+  }
+
+  @Test
+  public void testStratified_MoreStrataThanSampleSize() {
+    // Lines of 31 characters give 31 strata of about 10 vectors each
+    String text = "";
+    for (int i = 0; i < 10; i++) {
+      text += "speaker" + i + ": another line of talk\n";
+    }
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors(text);
+    for (int sampleSize : new int[] {1, 5, 17, 29}) {
+      List<Vector<LinePositionContext, Character>> sample =
+        TrainingSampler.stratifiedByLinePosition(sampleSize, 2).sample(vectors);
+      assertEquals("Unexpected sample size", sampleSize, sample.size());
+
+      Set<Long> positions = new HashSet<>();
+      for (Vector<LinePositionContext, Character> vector : sample) {
+        positions.add(vector.getContext().getPositionIndex());
+      }
+      assertEquals("Expected each vector from a different stratum", sampleSize, positions.size());
+    }
+  }
+
+  @Test
+  public void testStratified_ExactSampleSize() {
+    String text = "";
+    for (int i = 0; i < 20; i++) {
+      text += "speaker" + i + ": some longer line of dialogue\n";
+    }
+    List<Vector<LinePositionContext, Character>> vectors = makeVectors(text);
+    for (int sampleSize = 1; sampleSize < vectors.size(); sampleSize += 37) {
+      assertEquals("Unexpected sample size", sampleSize,
+        TrainingSampler.stratifiedByLinePosition(sampleSize, 4).sample(vectors).size());
+    }
+  }
+
+  private int indexOfIdentity(List<Vector<LinePositionContext, Character>> vectors,
+      Vector<LinePositionContext, Character> vector) {
+    for (int i = 0; i < vectors.size(); i++) {
+      if (vectors.get(i) == vector) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
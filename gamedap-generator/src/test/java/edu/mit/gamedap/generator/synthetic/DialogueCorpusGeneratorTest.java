@@ -0,0 +1,51 @@
+package edu.mit.gamedap.generator.synthetic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DialogueCorpusGeneratorTest {
+
+  @Test
+  public void testGenerate_FixedSeed() {
+    assertEquals("Expected the same corpus for the same seed",
+      new DialogueCorpusGenerator(5).generate(2000), new DialogueCorpusGenerator(5).generate(2000));
+  }
+
+  @Test
+  public void testGenerate_ReachesTargetLength() {
+    String corpus = new DialogueCorpusGenerator(1).generate(5000);
+    assertTrue("Corpus was shorter than the target", corpus.length() >= 5000);
+    assertTrue("Corpus was much longer than the target", corpus.length() < 6000);
+  }
+
+  @Test
+  public void testGenerate_DelimiterOffsets() throws IOException {
+    DialogueCorpusGenerator generator = new DialogueCorpusGenerator(
+      CorpusVocabulary.generate(4, 50, 2),
+      DialogueCorpusGenerator.parseFormatMix("QUOTE=1,EMOTION_QUOTE=1,CHOICE_BLOCK=1,SECTION=1"), 2);
+    StringWriter output = new StringWriter();
+    List<Long> offsets = new ArrayList<>();
+    List<String> delimiters = new ArrayList<>();
+    long written = generator.generate(output, (offset, kind, text) -> {
+      offsets.add(offset);
+      delimiters.add(text);
+    }, 3000);
+
+    String corpus = output.toString();
+    assertEquals("Unexpected length", corpus.length(), written);
+    assertTrue("Expected a choice block", delimiters.contains("[Player Input]\n"));
+    assertTrue("Expected a section", delimiters.contains("\nSEQUENCE #"));
+    for (int i = 0; i < delimiters.size(); i++) {
+      int offset = offsets.get(i).intValue();
+      assertEquals("Delimiter not found at its offset", delimiters.get(i),
+        corpus.substring(offset, offset + delimiters.get(i).length()));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package edu.mit.gamedap.parser;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads dialogue written by a {@link BinaryDialogueWriter}. The data file and its index are memory-mapped, so
+ * opening an export costs the same whatever its size, and each record is only decoded when it is asked for;
+ * nothing is cached, so the operating system decides which pages stay in memory.
+ *
+ * Reading is safe from several threads at once. Data files are limited to 2GB, the most that can be mapped as
+ * one buffer.
+ */
+public class BinaryDialogueReader {
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final int recordCount;
+
+    /**
+     * @param dataFile The path of a data file, whose index is at {@link BinaryDialogueWriter#indexFile(Path)}
+     * @throws IOException if either file could not be read, or is not in the expected format
+     */
+    public BinaryDialogueReader(Path dataFile) throws IOException {
+        // Mappings stay valid after their channels are closed
+        this.data = map(dataFile);
+        this.index = map(BinaryDialogueWriter.indexFile(dataFile));
+
+        if (this.data.capacity() < Integer.BYTES || this.data.getInt(0) != BinaryDialogueWriter.DATA_MAGIC) {
+            throw new IOException("Not a dialogue data file: " + dataFile);
+        }
+        if (this.index.capacity() < Integer.BYTES || this.index.getInt(0) != BinaryDialogueWriter.INDEX_MAGIC
+                || (this.index.capacity() - Integer.BYTES) % Long.BYTES != 0) {
+            throw new IOException("Not a dialogue index file: " + BinaryDialogueWriter.indexFile(dataFile));
+        }
+        this.recordCount = (this.index.capacity() - Integer.BYTES) / Long.BYTES;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return The number of records in the export
+     */
+    public int size() {
+        return this.recordCount;
+    }
+
+    /**
+     * @param n The number of a record, starting from 0
+     * @return The offset of the record in the data file
+     */
+    public long getOffset(int n) {
+        if (n < 0 || n >= this.recordCount) {
+            throw new IndexOutOfBoundsException("Record " + n + " of " + this.recordCount);
+        }
+        return this.index.getLong(Integer.BYTES + n * Long.BYTES);
+    }
+
+    /**
+     * Decodes a single record.
+     *
+     * @param n The number of a record, starting from 0
+     * @return The dialogue line in the record
+     */
+    public DialogueLine get(int n) {
+        // Each call reads through its own view of the mapping, so that positions are not shared between threads
+        ByteBuffer record = this.data.duplicate();
+        ((Buffer) record).position((int) this.getOffset(n));
+        readVarint(record);
+
+        int partCount = readVarint(record);
+        List<String> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i ++) {
+            parts.add(readString(record));
+        }
+        List<String> presentDelims = new ArrayList<>(Math.max(partCount - 1, 0));
+        for (int i = 0; i < partCount - 1; i ++) {
+            presentDelims.add(readString(record));
+        }
+        return new DialogueLine(parts, presentDelims);
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = readVarint(record);
+        ByteBuffer bytes = record.slice();
+        ((Buffer) bytes).limit(length);
+        ((Buffer) record).position(record.position() + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static int readVarint(ByteBuffer record) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = record.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
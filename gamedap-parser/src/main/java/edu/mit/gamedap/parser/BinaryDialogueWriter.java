@@ -0,0 +1,113 @@
+package edu.mit.gamedap.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes dialogue in a compact binary format, along with a sidecar index of record offsets, so that a
+ * {@link BinaryDialogueReader} can seek to any record without reading the ones before it.
+ *
+ * The data file starts with {@link BinaryDialogueWriter#DATA_MAGIC}, followed by one record per dialogue line:
+ * the record's length in bytes, the number of parts, each part, and then each delimiter (one fewer than the
+ * parts). Lengths and counts are unsigned varints, and strings are a varint byte length followed by their UTF-8
+ * bytes. The index file starts with {@link BinaryDialogueWriter#INDEX_MAGIC}, followed by the offset of each
+ * record in the data file as an 8-byte big-endian integer.
+ */
+public class BinaryDialogueWriter implements Closeable {
+    /** The first four bytes of a data file, "GDL1". */
+    public static final int DATA_MAGIC = 0x47444C31;
+    /** The first four bytes of an index file, "GDI1". */
+    public static final int INDEX_MAGIC = 0x47444931;
+    /** Appended to the name of a data file to get the name of its index. */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private final DataOutputStream data;
+    private final DataOutputStream index;
+    // Records are built here first, since their length is written before them
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private long offset;
+    private int recordCount = 0;
+
+    /**
+     * Creates or replaces a data file and its index.
+     *
+     * @param dataFile The path of the data file; the index is written to {@link BinaryDialogueWriter#indexFile(Path)}
+     */
+    public BinaryDialogueWriter(Path dataFile) throws IOException {
+        this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)));
+        try {
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile(dataFile))));
+        } catch (IOException e) {
+            this.data.close();
+            throw e;
+        }
+        this.data.writeInt(DATA_MAGIC);
+        this.index.writeInt(INDEX_MAGIC);
+        this.offset = Integer.BYTES;
+    }
+
+    /**
+     * @param dataFile The path of a data file
+     * @return The path of the data file's index
+     */
+    public static Path indexFile(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    public int getRecordCount() {
+        return this.recordCount;
+    }
+
+    public void write(DialogueLine line) throws IOException {
+        this.record.reset();
+        writeVarint(this.record, line.numParts());
+        for (int i = 0; i < line.numParts(); i ++) {
+            writeString(this.record, line.getPart(i));
+        }
+        for (int i = 0; i < line.numParts() - 1; i ++) {
+            writeString(this.record, line.getDelim(i));
+        }
+
+        this.index.writeLong(this.offset);
+        this.offset += writeVarint(this.data, this.record.size());
+        this.record.writeTo(this.data);
+        this.offset += this.record.size();
+        this.recordCount ++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.data.close();
+        } finally {
+            this.index.close();
+        }
+    }
+
+    private static void writeString(OutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return The number of bytes written
+     */
+    private static int writeVarint(OutputStream out, int value) throws IOException {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+            length ++;
+        }
+        out.write(value);
+        return length;
+    }
+}
@@ -0,0 +1,141 @@
+package edu.mit.gamedap.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Writes dialogue as CSV, with each part of a line in its own cell. Rows follow the lines of the original text
+ * rather than the dialogue lines: a new row is started wherever a part contains a line break (other than at its
+ * end), so a row can hold the end of one dialogue line and the start of the next. Every row is padded to the
+ * same number of columns, which must be known before the first row is written; it can be found with a cheap
+ * first pass over the lines using {@link CsvDialogueWriter#countColumns(Iterable)}.
+ */
+public class CsvDialogueWriter {
+    private final Writer out;
+    private final int columnCount;
+    private int column = 0;
+
+    /**
+     * Creates a writer and writes the header row, which numbers the columns.
+     *
+     * @param out The writer to write to
+     * @param columnCount The number of columns in each row, as from
+     *    {@link CsvDialogueWriter#countColumns(Iterable)}
+     */
+    public CsvDialogueWriter(Writer out, int columnCount) throws IOException {
+        this.out = out;
+        this.columnCount = columnCount;
+
+        this.out.write("1");
+        for (int i = 1; i < columnCount; i ++) {
+            this.out.write("," + (i + 1));
+        }
+        this.out.write("\n");
+    }
+
+    /**
+     * @see CsvDialogueWriter#CsvDialogueWriter(Writer, int)
+     *
+     * @param out The stream to write to, encoded as UTF-8
+     */
+    public CsvDialogueWriter(OutputStream out, int columnCount) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), columnCount);
+    }
+
+    /**
+     * Counts the columns needed to write some dialogue lines, without building any rows.
+     *
+     * @param lines The lines that will be written
+     * @return The number of cells in the longest row
+     */
+    public static int countColumns(Iterable<DialogueLine> lines) {
+        int maxColumns = 0;
+        int columns = 0;
+        for (DialogueLine line : lines) {
+            for (int i = 0; i < line.numParts(); i ++) {
+                String part = line.getPart(i);
+                int end = trimmedEnd(part);
+                for (int j = 0; j < end; j ++) {
+                    if (isNewLine(part.charAt(j))) {
+                        maxColumns = Math.max(maxColumns, columns + 1);
+                        columns = 0;
+                        j = skipNewLines(part, j, end);
+                    }
+                }
+                columns ++;
+            }
+        }
+        return Math.max(maxColumns, columns);
+    }
+
+    public void write(DialogueLine line) throws IOException {
+        for (int i = 0; i < line.numParts(); i ++) {
+            String part = line.getPart(i);
+            int end = trimmedEnd(part);
+            int cellStart = 0;
+            for (int j = 0; j < end; j ++) {
+                if (isNewLine(part.charAt(j))) {
+                    this.writeCell(part.substring(cellStart, j));
+                    this.endRow();
+                    j = skipNewLines(part, j, end);
+                    cellStart = j + 1;
+                }
+            }
+            this.writeCell(part.substring(cellStart, end));
+        }
+    }
+
+    /**
+     * Ends the last row and flushes the output, which is left open.
+     */
+    public void finish() throws IOException {
+        this.endRow();
+        this.out.flush();
+    }
+
+    private void writeCell(String text) throws IOException {
+        if (this.column > 0) {
+            this.out.write(",");
+        }
+        StringEscapeUtils.ESCAPE_CSV.translate(text, this.out);
+        this.column ++;
+    }
+
+    private void endRow() throws IOException {
+        for (; this.column < this.columnCount; this.column ++) {
+            if (this.column > 0) {
+                this.out.write(",");
+            }
+        }
+        this.out.write("\n");
+        this.column = 0;
+    }
+
+    private static boolean isNewLine(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    // Line breaks at the end of a part do not start a new row
+    private static int trimmedEnd(String part) {
+        int end = part.length();
+        while (end > 0 && isNewLine(part.charAt(end - 1))) {
+            end --;
+        }
+        return end;
+    }
+
+    // A run of line breaks starts a single new row; returns the index of the last break in the run
+    private static int skipNewLines(String part, int start, int end) {
+        int j = start;
+        while (j + 1 < end && isNewLine(part.charAt(j + 1))) {
+            j ++;
+        }
+        return j;
+    }
+}
@@ -0,0 +1,285 @@
+package edu.mit.gamedap.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import edu.mit.gamedap.generator.Diagnostics;
+import edu.mit.gamedap.generator.GrammarCache;
+import edu.mit.gamedap.generator.GrammarGeneratorExample;
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.datatypes.LinePositionContext;
+import edu.mit.gamedap.generator.datatypes.MetaContext;
+import edu.mit.gamedap.generator.datatypes.Vector;
+
+/**
+ * A long-running service that learns grammars and parses dialogue on request, so that clients such as editor
+ * integrations pay for JVM startup, JIT warm-up and learning once rather than on every call. Learned formats are
+ * kept in an LRU cache (backed by the generator's on-disk {@link GrammarCache}), as are compiled grammars (by
+ * {@link DialogueGrammar#load(String)}), and requests are handled concurrently by a pool of workers.
+ *
+ * Requests are read from standard input, or from connections to a local port, and each consists of a header
+ * line followed by a UTF-8 body whose length in bytes is given in the header:
+ * <pre>
+ * &lt;id&gt; GENERATE &lt;text length&gt;
+ * &lt;id&gt; PARSE &lt;text length&gt; [&lt;grammar length&gt;]
+ * </pre>
+ * GENERATE learns the grammar of the dialogue text in its body. PARSE parses the text in its body, with the
+ * grammar that comes before the text if a grammar length is given, or the grammar learned from the text
+ * otherwise. Bodies may be at most {@link DialogueDaemon#MAX_BODY_LENGTH} bytes long. Responses may be written
+ * in any order, each as a header line and a body:
+ * <pre>
+ * &lt;id&gt; OK &lt;length&gt;
+ * &lt;id&gt; ERROR &lt;length&gt;
+ * </pre>
+ * The body of a GENERATE response is the grammar, that of a PARSE response is the lines of the dialogue as JSON
+ * Lines (see {@link JsonLinesDialogueWriter}), and that of an error is its message.
+ */
+public class DialogueDaemon implements Closeable {
+    public static final String GENERATE_COMMAND = "GENERATE";
+    public static final String PARSE_COMMAND = "PARSE";
+    public static final String OK_STATUS = "OK";
+    public static final String ERROR_STATUS = "ERROR";
+
+    /** Passed as the first argument, followed by a port number, listens on a local port instead of stdin. */
+    public static final String PORT_OPTION = "--port";
+    public static final int DEFAULT_CACHE_SIZE = 32;
+    /** The longest text or grammar a request may have, in bytes; the whole body is read into memory. */
+    public static final int MAX_BODY_LENGTH = 64 * 1024 * 1024;
+    // Longer headers are assumed to be garbage rather than read forever
+    private static final int MAX_HEADER_LENGTH = 256;
+
+    private final ExecutorService workers;
+    private final LruCache<String,
+        GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>>> learnedFormats;
+
+    /**
+     * @param workerCount The number of requests to handle at once
+     * @param cacheSize The number of learned formats to keep in memory
+     */
+    public DialogueDaemon(int workerCount, int cacheSize) {
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.learnedFormats = new LruCache<>(cacheSize);
+    }
+
+    /**
+     * Serves requests from standard input, or from a local port if {@link DialogueDaemon#PORT_OPTION} is given,
+     * until the input ends or the process is stopped.
+     */
+    public static void main(String[] args) {
+        try (DialogueDaemon daemon = new DialogueDaemon(Runtime.getRuntime().availableProcessors(),
+                DEFAULT_CACHE_SIZE)) {
+            if (args.length > 1 && args[0].equals(PORT_OPTION)) {
+                daemon.listen(Integer.parseInt(args[1]));
+            } else {
+                daemon.serve(System.in, System.out);
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Accepts connections on a port of the loopback interface, serving each one on its own thread, until the
+     * server socket fails.
+     *
+     * @param port The port to listen on
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> {
+                    try (Socket s = socket) {
+                        this.serve(s.getInputStream(), s.getOutputStream());
+                    } catch (IOException e) {
+                        System.err.println(e);
+                    }
+                }, "dialogue-daemon-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    /**
+     * Reads requests until the input ends, handing each one to a worker, and returns once every response has
+     * been written.
+     *
+     * @param in The stream to read requests from
+     * @param out The stream to write responses to
+     * @throws IOException if the input could not be read, or a request was malformed
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        InputStream input = new BufferedInputStream(in);
+        OutputStream output = new BufferedOutputStream(out);
+        Phaser pending = new Phaser(1);
+        try {
+            for (String header = readHeader(input); header != null; header = readHeader(input)) {
+                String[] fields = header.trim().split(" +");
+                if (fields.length < 3) {
+                    throw new IOException("Malformed request header: " + header);
+                }
+                String id = fields[0];
+                String command = fields[1];
+                int textLength = parseLength(fields[2], header);
+                int grammarLength = fields.length > 3 ? parseLength(fields[3], header) : 0;
+                String grammarText = grammarLength > 0 ? readBody(input, grammarLength) : null;
+                String text = readBody(input, textLength);
+
+                pending.register();
+                this.workers.execute(() -> {
+                    try {
+                        respond(output, id, this.handle(command, grammarText, text));
+                    } catch (Throwable e) {
+                        // Errors such as a stack overflow on deeply nested text are answered too, so that the
+                        // client is not left waiting for the response
+                        respond(output, id, e);
+                    } finally {
+                        pending.arriveAndDeregister();
+                    }
+                });
+            }
+        } finally {
+            pending.arriveAndAwaitAdvance();
+        }
+    }
+
+    /**
+     * Handles a single request.
+     *
+     * @param command {@link DialogueDaemon#GENERATE_COMMAND} or {@link DialogueDaemon#PARSE_COMMAND}
+     * @param grammarText The grammar to parse with, or null to learn it from the text
+     * @param text The dialogue text
+     * @return The body of the response
+     * @throws IllegalArgumentException if the command is unknown or the grammar is invalid
+     */
+    public String handle(String command, String grammarText, String text) {
+        switch (command) {
+            case GENERATE_COMMAND:
+                return this.learn(text).getGrammar();
+            case PARSE_COMMAND:
+                DialogueGrammar grammar = DialogueGrammar.load(grammarText != null
+                    ? grammarText : this.learn(text).getGrammar());
+                DialogueLineBuilder builder = new DialogueLineBuilder(grammar);
+                new ParseTreeWalker().walk(builder, grammar.parseTwoStage(CharStreams.fromString(text)).getTree());
+
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+                JsonLinesDialogueWriter jsonWriter = new JsonLinesDialogueWriter(writer);
+                try {
+                    for (DialogueLine line : builder.getLines()) {
+                        jsonWriter.write(line);
+                    }
+                    jsonWriter.finish();
+                } catch (IOException e) {
+                    // Writing to memory cannot fail
+                    throw new IllegalStateException(e);
+                }
+                return new String(body.toByteArray(), StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private GrammarCache.Entry<LinePositionContext, Vector<MetaContext<EmptyContext>, Character>> learn(String text) {
+        return this.learnedFormats.computeIfAbsent(GrammarCache.key(text, GENERATE_COMMAND),
+            key -> GrammarGeneratorExample.learnGrammar(text, Diagnostics.NONE));
+    }
+
+    /**
+     * Stops the workers once they have handled the requests already given to them.
+     */
+    @Override
+    public void close() {
+        this.workers.shutdown();
+    }
+
+    private static void respond(OutputStream output, String id, String body) {
+        writeResponse(output, id, OK_STATUS, body);
+    }
+
+    private static void respond(OutputStream output, String id, Throwable error) {
+        writeResponse(output, id, ERROR_STATUS, error.getMessage() != null ? error.getMessage() : error.toString());
+    }
+
+    private static void writeResponse(OutputStream output, String id, String status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        synchronized (output) {
+            try {
+                output.write(String.format("%s %s %d\n", id, status, bytes.length).getBytes(StandardCharsets.UTF_8));
+                output.write(bytes);
+                output.flush();
+            } catch (IOException e) {
+                // The client has gone away, so there is no one to report the error to
+                System.err.println(e);
+            }
+        }
+    }
+
+    /**
+     * @return The header line without its line break, or null if the input has ended
+     */
+    private static String readHeader(InputStream input) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        for (int b = input.read(); b != '\n'; b = input.read()) {
+            if (b < 0) {
+                if (header.size() == 0) {
+                    return null;
+                }
+                throw new EOFException("Input ended in a request header");
+            }
+            if (header.size() >= MAX_HEADER_LENGTH) {
+                throw new IOException("Request header is too long");
+            }
+            header.write(b);
+        }
+        return new String(header.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The body length given by a header field, from 0 to {@link DialogueDaemon#MAX_BODY_LENGTH}
+     */
+    private static int parseLength(String field, String header) throws IOException {
+        int length;
+        try {
+            length = Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed request header: " + header, e);
+        }
+        if (length < 0 || length > MAX_BODY_LENGTH) {
+            throw new IOException("Malformed request header: " + header);
+        }
+        return length;
+    }
+
+    private static String readBody(InputStream input, int length) throws IOException {
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int count = input.read(body, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Input ended in a request body");
+            }
+            read += count;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
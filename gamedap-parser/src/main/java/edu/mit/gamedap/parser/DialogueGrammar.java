@@ -0,0 +1,434 @@
+package edu.mit.gamedap.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import org.antlr.runtime.RecognitionException;
+import org.antlr.v4.misc.CharSupport;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.tool.ANTLRMessage;
+import org.antlr.v4.tool.ANTLRToolListener;
+import org.antlr.v4.tool.Grammar;
+
+/**
+ * A generated dialogue grammar loaded at runtime, which lexes and parses with ANTLR's interpreters instead of
+ * classes generated at build time. Loading a grammar compiles it into ATNs once; every lexer and parser created
+ * afterwards shares them, and recently used grammars are cached by their text so that loading the same grammar
+ * again is free.
+ */
+public class DialogueGrammar {
+    public static final String START_RULE = "dialogue";
+    public static final String SECTION_RULE = "section";
+    public static final String TITLE_RULE = "title";
+    public static final String PAIR_RULE = "pair";
+    /** The prefix of the names of record delimiter tokens, which are numbered by their position in the format. */
+    public static final String DELIMITER_TOKEN_PREFIX = "TOKEN";
+    /** The prefix of the names of section delimiter tokens. */
+    public static final String SECTION_DELIMITER_TOKEN_PREFIX = "PTOKEN";
+
+    /** The most grammars kept loaded at once, so that long-running processes do not keep every grammar. */
+    public static final int LOADED_GRAMMAR_LIMIT = 64;
+
+    /** The most idle lexer and parser pairs each grammar keeps for reuse. */
+    public static final int POOLED_PARSER_LIMIT = 16;
+
+    private static final LruCache<String, DialogueGrammar> loadedGrammars = new LruCache<>(LOADED_GRAMMAR_LIMIT);
+
+    /**
+     * The tree from a {@link DialogueGrammar#parseTwoStage(CharStream) two-stage parse}, along with the
+     * prediction mode of the stage that produced it.
+     */
+    public static class ParseOutcome {
+        private final ParserRuleContext tree;
+        private final PredictionMode predictionMode;
+
+        ParseOutcome(ParserRuleContext tree, PredictionMode predictionMode) {
+            this.tree = tree;
+            this.predictionMode = predictionMode;
+        }
+
+        public ParserRuleContext getTree() {
+            return tree;
+        }
+
+        /**
+         * @return {@link PredictionMode#SLL} if the fast stage succeeded, or {@link PredictionMode#LL} if the
+         *    input had to be parsed again
+         */
+        public PredictionMode getPredictionMode() {
+            return predictionMode;
+        }
+    }
+
+    private final String grammarFileName;
+    private final Vocabulary vocabulary;
+
+    private final ATN lexerAtn;
+    private final List<String> lexerRuleNames;
+    private final List<String> channelNames;
+    private final List<String> modeNames;
+
+    private final ATN parserAtn;
+    private final List<String> parserRuleNames;
+
+    // delimiterIndices[tokenType] is the position of the delimiter with that type in the record format, or -1;
+    // likewise for section delimiters
+    private final int[] delimiterIndices;
+    private final int[] sectionDelimiterIndices;
+    private final int delimiterCount;
+    private final List<String> delimiters;
+    private final List<String> sectionDelimiters;
+
+    // Every lexer and parser of the grammar adds to the same DFAs, as generated recognizers do with their static
+    // ones, so predictions made for one input are reused for the next
+    private final DFA[] lexerDFA;
+    private final DFA[] parserDFA;
+    private volatile PredictionContextCache contextCache;
+    // Guarded by itself
+    private final Deque<PooledParser> idleParsers = new ArrayDeque<>();
+
+    /**
+     * A lexer, token stream and parser that are reset and reused for each input, rather than created anew.
+     */
+    private static class PooledParser {
+        private final LexerInterpreter lexer;
+        private final CommonTokenStream tokens;
+        private final ParserInterpreter parser;
+
+        PooledParser(DialogueGrammar grammar) {
+            this.lexer = grammar.createLexer(CharStreams.fromString(""));
+            this.tokens = new CommonTokenStream(this.lexer);
+            this.parser = grammar.createParser(this.tokens);
+        }
+    }
+
+    private DialogueGrammar(Grammar grammar) {
+        // The tool deserializes a fresh ATN for every interpreter it creates; do it once and keep the result
+        LexerInterpreter lexer = grammar.createLexerInterpreter(CharStreams.fromString(""));
+        ParserInterpreter parser = grammar.createParserInterpreter(new CommonTokenStream(lexer));
+
+        this.grammarFileName = grammar.fileName;
+        this.vocabulary = parser.getVocabulary();
+        this.lexerAtn = lexer.getATN();
+        this.lexerRuleNames = Arrays.asList(lexer.getRuleNames());
+        this.channelNames = Arrays.asList(lexer.getChannelNames());
+        this.modeNames = Arrays.asList(lexer.getModeNames());
+        this.parserAtn = parser.getATN();
+        this.parserRuleNames = Arrays.asList(parser.getRuleNames());
+
+        this.delimiterIndices = indexTokens(this.vocabulary, DELIMITER_TOKEN_PREFIX);
+        this.sectionDelimiterIndices = indexTokens(this.vocabulary, SECTION_DELIMITER_TOKEN_PREFIX);
+        this.delimiterCount = (int) Arrays.stream(this.delimiterIndices).filter(i -> i >= 0).count();
+        this.delimiters = delimiterTexts(this.vocabulary, this.delimiterIndices);
+        this.sectionDelimiters = delimiterTexts(this.vocabulary, this.sectionDelimiterIndices);
+
+        this.lexerDFA = new DFA[this.lexerAtn.getNumberOfDecisions()];
+        this.parserDFA = new DFA[this.parserAtn.getNumberOfDecisions()];
+        this.clearDFA();
+    }
+
+    private static int[] indexTokens(Vocabulary vocabulary, String prefix) {
+        int[] indices = new int[vocabulary.getMaxTokenType() + 1];
+        Arrays.fill(indices, -1);
+        for (int type = 0; type <= vocabulary.getMaxTokenType(); type ++) {
+            String name = vocabulary.getSymbolicName(type);
+            if (name != null && name.matches(prefix + "[0-9]+")) {
+                indices[type] = Integer.parseInt(name.substring(prefix.length()));
+            }
+        }
+        return indices;
+    }
+
+    private static List<String> delimiterTexts(Vocabulary vocabulary, int[] indices) {
+        String[] texts = new String[(int) Arrays.stream(indices).filter(i -> i >= 0).count()];
+        for (int type = 0; type < indices.length; type ++) {
+            if (indices[type] >= 0 && indices[type] < texts.length) {
+                texts[indices[type]] = CharSupport.getStringFromGrammarStringLiteral(vocabulary.getLiteralName(type));
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(texts));
+    }
+
+    /**
+     * Loads a combined grammar, e.g. one generated by {@link edu.mit.gamedap.generator.GrammarBuilder}.
+     *
+     * @param grammarText The text of the grammar
+     * @return The loaded grammar
+     * @throws IllegalArgumentException if the grammar has errors
+     */
+    public static DialogueGrammar load(String grammarText) {
+        return loadedGrammars.computeIfAbsent(grammarText, DialogueGrammar::compile);
+    }
+
+    /**
+     * @see DialogueGrammar#load(String)
+     *
+     * @param grammarFile A file containing the grammar
+     * @return The loaded grammar
+     * @throws IOException if the file could not be read
+     */
+    public static DialogueGrammar load(Path grammarFile) throws IOException {
+        return load(new String(Files.readAllBytes(grammarFile), StandardCharsets.UTF_8));
+    }
+
+    private static DialogueGrammar compile(String grammarText) {
+        List<String> errors = new ArrayList<>();
+        ANTLRToolListener listener = new ANTLRToolListener() {
+            @Override
+            public void info(String msg) {}
+
+            @Override
+            public void error(ANTLRMessage msg) {
+                errors.add(String.format("%d:%d %s", msg.line, msg.charPosition,
+                    msg.getMessageTemplate(false).render()));
+            }
+
+            @Override
+            public void warning(ANTLRMessage msg) {}
+        };
+
+        Grammar grammar;
+        try {
+            grammar = new Grammar(grammarText, listener);
+        } catch (RecognitionException e) {
+            throw new IllegalArgumentException("Could not parse grammar", e);
+        }
+        if (!grammar.isCombined() || grammar.implicitLexer == null) {
+            errors.add("expected a combined grammar with lexer rules");
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid dialogue grammar: " + String.join("; ", errors));
+        }
+        return new DialogueGrammar(grammar);
+    }
+
+    /**
+     * @return The token types of the grammar, including those of its delimiters
+     */
+    public Vocabulary getVocabulary() {
+        return this.vocabulary;
+    }
+
+    /**
+     * @return The number of delimiters in the record format, and so one less than the number of parts in a pair
+     */
+    public int getDelimiterCount() {
+        return this.delimiterCount;
+    }
+
+    /**
+     * @return The text of each delimiter of the record format, in order
+     */
+    public List<String> getDelimiters() {
+        return this.delimiters;
+    }
+
+    /**
+     * @return The text of each delimiter of the section format, in order; empty if the grammar has no sections
+     */
+    public List<String> getSectionDelimiters() {
+        return this.sectionDelimiters;
+    }
+
+    /**
+     * @param tokenType A token type of the grammar
+     * @return The position of the token's delimiter in the record format, or -1 if it is not a record delimiter
+     */
+    public int getDelimiterIndex(int tokenType) {
+        return tokenType >= 0 && tokenType < this.delimiterIndices.length ? this.delimiterIndices[tokenType] : -1;
+    }
+
+    /**
+     * @param tokenType A token type of the grammar
+     * @return The position of the token's delimiter in the section format, or -1 if it is not a section delimiter
+     */
+    public int getSectionDelimiterIndex(int tokenType) {
+        return tokenType >= 0 && tokenType < this.sectionDelimiterIndices.length
+            ? this.sectionDelimiterIndices[tokenType] : -1;
+    }
+
+    /**
+     * @param ruleName The name of a parser rule, such as {@link DialogueGrammar#PAIR_RULE}
+     * @return The index of the rule in parse trees, or -1 if the grammar has no such rule
+     */
+    public int getRuleIndex(String ruleName) {
+        return this.parserRuleNames.indexOf(ruleName);
+    }
+
+    /**
+     * Discards everything the grammar's lexers and parsers have learned about predicting its rules, e.g. to
+     * measure a cold parse or to release the memory, along with the idle lexers and parsers kept for reuse.
+     * Lexers and parsers in use go on to build the DFAs up again.
+     */
+    public void clearCaches() {
+        synchronized (this.idleParsers) {
+            this.idleParsers.clear();
+        }
+        this.clearDFA();
+    }
+
+    private void clearDFA() {
+        for (int d = 0; d < this.lexerDFA.length; d ++) {
+            this.lexerDFA[d] = new DFA(this.lexerAtn.getDecisionState(d), d);
+        }
+        for (int d = 0; d < this.parserDFA.length; d ++) {
+            this.parserDFA[d] = new DFA(this.parserAtn.getDecisionState(d), d);
+        }
+        this.contextCache = new PredictionContextCache();
+    }
+
+    /**
+     * Creates a lexer for the grammar's tokens.
+     *
+     * @param input The text to lex
+     * @return A new lexer sharing the grammar's ATN and DFAs
+     */
+    public LexerInterpreter createLexer(CharStream input) {
+        LexerInterpreter lexer = new LexerInterpreter(this.grammarFileName, this.vocabulary, this.lexerRuleNames,
+            this.channelNames, this.modeNames, this.lexerAtn, input);
+        lexer.setInterpreter(new LexerATNSimulator(lexer, this.lexerAtn, this.lexerDFA, this.contextCache));
+        return lexer;
+    }
+
+    /**
+     * Creates a parser for the grammar's rules. Start it with {@link DialogueGrammar#parse(ParserInterpreter)},
+     * or {@link ParserInterpreter#parse(int)} with another rule's index.
+     *
+     * @param tokens The tokens to parse, as from a lexer made by {@link DialogueGrammar#createLexer(CharStream)}
+     * @return A new parser sharing the grammar's ATN and DFAs
+     */
+    public ParserInterpreter createParser(TokenStream tokens) {
+        ParserInterpreter parser = new ParserInterpreter(this.grammarFileName, this.vocabulary,
+            this.parserRuleNames, this.parserAtn, tokens);
+        parser.setInterpreter(this.createSimulator(parser));
+        return parser;
+    }
+
+    private ParserATNSimulator createSimulator(ParserInterpreter parser) {
+        return new ParserATNSimulator(parser, this.parserAtn, this.parserDFA, this.contextCache);
+    }
+
+    /**
+     * Lexes and parses an input with a lexer and parser from the grammar's pool, creating them only if none is
+     * idle. The parser starts with the default settings (LL prediction, the default error strategy and the
+     * console error listener) and may be reconfigured freely, but must not be kept after the parse, since it is
+     * reset and given to the next caller; the trees and tokens it produced stay valid.
+     *
+     * @param input The text to parse
+     * @param parse Parses the input with the parser, e.g. {@link DialogueGrammar#parse(ParserInterpreter)}
+     * @return The result of the parse
+     */
+    public <T> T withParser(CharStream input, Function<ParserInterpreter, T> parse) {
+        PooledParser pooled;
+        synchronized (this.idleParsers) {
+            pooled = this.idleParsers.poll();
+        }
+        if (pooled == null) {
+            pooled = new PooledParser(this);
+        }
+
+        pooled.lexer.setInputStream(input);
+        pooled.tokens.setTokenSource(pooled.lexer);
+        pooled.parser.setInputStream(pooled.tokens);
+        try {
+            return parse.apply(pooled.parser);
+        } finally {
+            this.release(pooled);
+        }
+    }
+
+    private void release(PooledParser pooled) {
+        // Drop the input and tokens, so that idle parsers do not keep the last parse in memory
+        pooled.lexer.setInputStream(CharStreams.fromString(""));
+        pooled.tokens.setTokenSource(pooled.lexer);
+        pooled.parser.setInputStream(pooled.tokens);
+        pooled.parser.removeErrorListeners();
+        pooled.parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        pooled.parser.setErrorHandler(new DefaultErrorStrategy());
+        pooled.parser.removeParseListeners();
+        pooled.parser.setBuildParseTree(true);
+        // A new simulator has the default prediction mode, and does not refer to the last parse's contexts
+        pooled.parser.setInterpreter(this.createSimulator(pooled.parser));
+
+        synchronized (this.idleParsers) {
+            if (this.idleParsers.size() < POOLED_PARSER_LIMIT) {
+                this.idleParsers.push(pooled);
+            }
+        }
+    }
+
+    /**
+     * Parses a whole dialogue with a parser of this grammar.
+     *
+     * @param parser A parser made by {@link DialogueGrammar#createParser(TokenStream)}
+     * @return The parse tree, rooted at {@link DialogueGrammar#START_RULE}
+     */
+    public ParserRuleContext parse(ParserInterpreter parser) {
+        return parser.parse(this.getRuleIndex(START_RULE));
+    }
+
+    /**
+     * Lexes and parses a whole dialogue, first with SLL prediction, stopping at the first syntax error, and then
+     * with full LL prediction and the default error recovery only if that fails. SLL is much faster and gives
+     * the same tree for grammars like ours that need no full-context lookahead, so the second stage is
+     * normally skipped; it is only needed for input that is ambiguous under SLL or has real syntax errors.
+     *
+     * @param input The text to parse
+     * @return The parse tree, rooted at {@link DialogueGrammar#START_RULE}, and the stage it came from
+     */
+    public ParseOutcome parseTwoStage(CharStream input) {
+        return this.withParser(input, this::parseTwoStage);
+    }
+
+    private ParseOutcome parseTwoStage(ParserInterpreter parser) {
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return new ParseOutcome(this.parse(parser), PredictionMode.SLL);
+        } catch (ParseCancellationException e) {
+            // The tokens are already lexed, so only the parse is repeated
+            parser.reset();
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return new ParseOutcome(this.parse(parser), PredictionMode.LL);
+        }
+    }
+
+    /**
+     * Lexes and parses a whole dialogue.
+     *
+     * @param input The text to parse
+     * @return The parse tree, rooted at {@link DialogueGrammar#START_RULE}
+     */
+    public ParserRuleContext parse(CharStream input) {
+        return this.withParser(input, this::parse);
+    }
+}
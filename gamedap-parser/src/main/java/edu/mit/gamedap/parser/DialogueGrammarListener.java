@@ -0,0 +1,65 @@
+package edu.mit.gamedap.parser;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * A listener for trees parsed with a {@link DialogueGrammar}. Interpreted parse trees do not have a context
+ * class per rule, so this takes the place of a generated base listener by dispatching on rule indices.
+ * Every method does nothing by default.
+ */
+public abstract class DialogueGrammarListener implements ParseTreeListener {
+    private final int sectionRule;
+    private final int titleRule;
+    private final int pairRule;
+
+    public DialogueGrammarListener(DialogueGrammar grammar) {
+        this.sectionRule = grammar.getRuleIndex(DialogueGrammar.SECTION_RULE);
+        this.titleRule = grammar.getRuleIndex(DialogueGrammar.TITLE_RULE);
+        this.pairRule = grammar.getRuleIndex(DialogueGrammar.PAIR_RULE);
+    }
+
+    public void enterSection(ParserRuleContext ctx) {}
+
+    public void exitSection(ParserRuleContext ctx) {}
+
+    public void enterTitle(ParserRuleContext ctx) {}
+
+    public void exitTitle(ParserRuleContext ctx) {}
+
+    public void enterPair(ParserRuleContext ctx) {}
+
+    public void exitPair(ParserRuleContext ctx) {}
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        int rule = ctx.getRuleIndex();
+        if (rule == this.sectionRule) {
+            this.enterSection(ctx);
+        } else if (rule == this.titleRule) {
+            this.enterTitle(ctx);
+        } else if (rule == this.pairRule) {
+            this.enterPair(ctx);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        int rule = ctx.getRuleIndex();
+        if (rule == this.sectionRule) {
+            this.exitSection(ctx);
+        } else if (rule == this.titleRule) {
+            this.exitTitle(ctx);
+        } else if (rule == this.pairRule) {
+            this.exitPair(ctx);
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {}
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {}
+}
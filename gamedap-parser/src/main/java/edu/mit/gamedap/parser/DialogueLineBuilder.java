@@ -1,25 +1,23 @@
 package edu.mit.gamedap.parser;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-import edu.mit.gamedap.parser.GeneratedGrammarParser.PairContext;
-import edu.mit.gamedap.parser.GeneratedGrammarParser.TitleContext;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
-public class DialogueLineBuilder extends GeneratedGrammarBaseListener {
+public class DialogueLineBuilder extends DialogueGrammarListener {
     private List<DialogueLine> lines = new ArrayList<>();
-    private Map<String, Integer> vocabMap = new HashMap<>();
-    private int delimiterCount = 0;
+    private final DialogueGrammar grammar;
     private String title = "";
 
-    public DialogueLineBuilder(Map<String, Integer> vocabMap) {
-        this.vocabMap.putAll(vocabMap);
-
-        while (vocabMap.containsKey("TOKEN" + this.delimiterCount)) {
-            this.delimiterCount++;
-        }
+    public DialogueLineBuilder(DialogueGrammar grammar) {
+        super(grammar);
+        this.grammar = grammar;
     }
 
     public List<DialogueLine> getLines() {
@@ -27,7 +25,7 @@ public class DialogueLineBuilder extends GeneratedGrammarBaseListener {
     }
 
     public int getDelimiterCount() {
-        return delimiterCount;
+        return this.grammar.getDelimiterCount();
     }
 
     public String getTitle() {
@@ -35,44 +33,61 @@ public class DialogueLineBuilder extends GeneratedGrammarBaseListener {
     }
 
     @Override
-    public void enterTitle(TitleContext ctx) {
-        this.title = ctx.getText();
+    public void enterTitle(ParserRuleContext ctx) {
+        this.title = textBetween(ctx.getStart(), ctx.getStop());
     }
 
     @Override
-    public void enterPair(PairContext ctx) {
-        System.out.println(ctx.getText());
+    public void enterPair(ParserRuleContext ctx) {
+        // Text belongs to the part before the next delimiter present in the pair, or the last part if there
+        // is none; parts before missing delimiters are empty
+        int delimiterCount = this.grammar.getDelimiterCount();
+        String[] dialogueParts = new String[delimiterCount + 1];
+        String[] presentDelims = new String[delimiterCount];
+        Arrays.fill(dialogueParts, "");
+        Arrays.fill(presentDelims, "");
 
-        // Locate delimiters in the context
-        List<Integer> delimTokenIndex = new ArrayList<>();
-        for (int i = 0; i < this.delimiterCount; i ++) {
-            int vocabIndex = this.vocabMap.get("TOKEN" + i);
-            delimTokenIndex.add(ctx.children.indexOf(ctx.getToken(vocabIndex, 0)));
-        }
+        Token partStart = null;
+        Token partStop = null;
+        for (int i = 0; i < ctx.getChildCount(); i ++) {
+            ParseTree child = ctx.getChild(i);
+            Token start;
+            Token stop;
+            if (child instanceof TerminalNode) {
+                start = stop = ((TerminalNode) child).getSymbol();
+            } else {
+                start = ((ParserRuleContext) child).getStart();
+                stop = ((ParserRuleContext) child).getStop();
+            }
 
-        int currentPart = 0;
-        List<String> dialogueParts = new ArrayList<>();
-        List<String> presentDelims = new ArrayList<>();
-        dialogueParts.add("");
-        for (int i = 0; i < ctx.children.size(); i ++) {
-            while (currentPart < delimTokenIndex.size() && delimTokenIndex.get(currentPart) == -1) {
-                presentDelims.add("");
-                currentPart ++;
-                dialogueParts.add("");
+            if (start.getStartIndex() < 0 || stop.getStopIndex() < 0) {
+                // Conjured by error recovery, so not part of the input
+                continue;
             }
 
-            if (currentPart < delimTokenIndex.size() && delimTokenIndex.get(currentPart) == i) {
-                presentDelims.add(ctx.children.get(i).getText());
-                do {
-                    currentPart ++;
-                    dialogueParts.add("");
-                } while (currentPart < delimTokenIndex.size() && delimTokenIndex.get(currentPart) == -1);
+            int delimiter = child instanceof TerminalNode ? this.grammar.getDelimiterIndex(start.getType()) : -1;
+            if (delimiter >= 0) {
+                dialogueParts[delimiter] = textBetween(partStart, partStop);
+                presentDelims[delimiter] = start.getText();
+                partStart = null;
             } else {
-                dialogueParts.set(currentPart, dialogueParts.get(currentPart) + ctx.children.get(i).getText());
+                if (partStart == null) {
+                    partStart = start;
+                }
+                partStop = stop;
             }
         }
+        dialogueParts[delimiterCount] = textBetween(partStart, partStop);
 
-        DialogueLine newLine = new DialogueLine(dialogueParts, presentDelims);
+        DialogueLine newLine = new DialogueLine(Arrays.asList(dialogueParts), Arrays.asList(presentDelims));
         this.lines.add(newLine);
     }
+
+    // Cuts text directly from the input, rather than joining the text of each token
+    private static String textBetween(Token start, Token stop) {
+        if (start == null || stop == null || stop.getStopIndex() < start.getStartIndex()) {
+            return "";
+        }
+        return start.getInputStream().getText(Interval.of(start.getStartIndex(), stop.getStopIndex()));
+    }
 }
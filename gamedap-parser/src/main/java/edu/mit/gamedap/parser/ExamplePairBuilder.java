@@ -3,19 +3,21 @@ package edu.mit.gamedap.parser;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.antlr.v4.runtime.tree.*;
+import org.antlr.v4.runtime.ParserRuleContext;
 
-import edu.mit.gamedap.parser.GeneratedGrammarParser.PairContext;
-
-public class ExamplePairBuilder extends GeneratedGrammarBaseListener {
+public class ExamplePairBuilder extends DialogueGrammarListener {
     private List<ExamplePair> pairs = new ArrayList<>();
 
+    public ExamplePairBuilder(DialogueGrammar grammar) {
+        super(grammar);
+    }
+
     public List<ExamplePair> getPairs() {
         return pairs;
     }
 
     @Override
-    public void enterPair(PairContext ctx) {
+    public void enterPair(ParserRuleContext ctx) {
         String pairTree = ctx.toStringTree();
         System.out.println(pairTree);
         // ExamplePair newPair = new ExamplePair(pairNodes.get(0).getText(), pairNodes.get(1).getText());
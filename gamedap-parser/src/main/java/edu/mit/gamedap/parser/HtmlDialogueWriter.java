@@ -0,0 +1,90 @@
+package edu.mit.gamedap.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Writes dialogue as an HTML page where each part of a line is highlighted with the color of its position.
+ * Lines are escaped straight into the output as they are written, so nothing is held in memory beyond the
+ * line being written.
+ */
+public class HtmlDialogueWriter {
+    private final static String HTML_START = "<!DOCTYPE html>\n" + //
+            "<html>\n" + //
+            "<head>\n" + //
+            "<title>GameDAP Visualized Output</title>\n" + //
+            "</head>\n" + //
+            "<body><pre>\n";
+    private final static String HTML_END = "\n" + //
+            "</pre></body>\n" + //
+            "</html>";
+
+    private final Writer out;
+    private final List<String> colorHexes;
+
+    /**
+     * @param out The writer to write to
+     * @param colorHexes The background color of each part position, as from
+     *    {@link ParserExample#generateHighlightColors(int)}; there must be one for every part in a line
+     */
+    public HtmlDialogueWriter(Writer out, List<String> colorHexes) {
+        this.out = out;
+        this.colorHexes = colorHexes;
+    }
+
+    /**
+     * @see HtmlDialogueWriter#HtmlDialogueWriter(Writer, List)
+     *
+     * @param out The stream to write to, encoded as UTF-8
+     */
+    public HtmlDialogueWriter(OutputStream out, List<String> colorHexes) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), colorHexes);
+    }
+
+    /**
+     * Starts the page. Must be called once, before any line is written.
+     *
+     * @param title The title of the dialogue, which is written before its lines
+     */
+    public void begin(String title) throws IOException {
+        this.out.write(HTML_START);
+        this.writeTitle(title);
+    }
+
+    /**
+     * Writes a title between lines, e.g. as it is found by a {@link StreamingDialogueParser}.
+     *
+     * @param title The text of the title
+     */
+    public void writeTitle(String title) throws IOException {
+        StringEscapeUtils.ESCAPE_HTML4.translate(title, this.out);
+    }
+
+    public void write(DialogueLine line) throws IOException {
+        for (int i = 0; i < line.numParts(); i ++) {
+            if (i > 0) {
+                StringEscapeUtils.ESCAPE_HTML4.translate(line.getDelim(i - 1), this.out);
+            }
+            this.out.write("<span style=\"background-color:#");
+            this.out.write(this.colorHexes.get(i));
+            this.out.write("\">");
+            StringEscapeUtils.ESCAPE_HTML4.translate(line.getPart(i), this.out);
+            this.out.write("</span>");
+        }
+    }
+
+    /**
+     * Ends the page and flushes the output, which is left open.
+     */
+    public void finish() throws IOException {
+        this.out.write(HTML_END);
+        this.out.flush();
+    }
+}
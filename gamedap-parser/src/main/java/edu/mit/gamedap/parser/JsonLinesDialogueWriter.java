@@ -0,0 +1,64 @@
+package edu.mit.gamedap.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Writes dialogue as JSON Lines, one object per dialogue line, e.g.
+ * <pre>{"parts":["Pit","sad","Hi"],"delimiters":[" (","): "]}</pre>
+ * Unlike CSV, a line's parts stay together in one record whatever text they contain, and missing delimiters are
+ * kept as empty strings so that part i is always the text before delimiter i.
+ */
+public class JsonLinesDialogueWriter {
+    private final Writer out;
+
+    /**
+     * @param out The writer to write to
+     */
+    public JsonLinesDialogueWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * @see JsonLinesDialogueWriter#JsonLinesDialogueWriter(Writer)
+     *
+     * @param out The stream to write to, encoded as UTF-8
+     */
+    public JsonLinesDialogueWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    public void write(DialogueLine line) throws IOException {
+        this.out.write("{\"parts\":[");
+        for (int i = 0; i < line.numParts(); i ++) {
+            this.writeString(i, line.getPart(i));
+        }
+        this.out.write("],\"delimiters\":[");
+        for (int i = 0; i < line.numParts() - 1; i ++) {
+            this.writeString(i, line.getDelim(i));
+        }
+        this.out.write("]}\n");
+    }
+
+    /**
+     * Flushes the output, which is left open.
+     */
+    public void finish() throws IOException {
+        this.out.flush();
+    }
+
+    private void writeString(int index, String text) throws IOException {
+        if (index > 0) {
+            this.out.write(",");
+        }
+        this.out.write("\"");
+        StringEscapeUtils.ESCAPE_JSON.translate(text, this.out);
+        this.out.write("\"");
+    }
+}
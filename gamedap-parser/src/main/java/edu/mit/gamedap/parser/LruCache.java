@@ -0,0 +1,67 @@
+package edu.mit.gamedap.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A thread-safe in-memory cache holding at most a fixed number of entries, which evicts the least recently used
+ * entry when it is full.
+ */
+public class LruCache<K, V> {
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * @param maxEntries The most entries to keep; must be positive
+     */
+    public LruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("A cache needs room for at least one entry: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return this.size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The value for the key, or null if it is not cached
+     */
+    public synchronized V get(K key) {
+        return this.entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        this.entries.put(key, value);
+    }
+
+    /**
+     * Looks up a value, computing and caching it if it is missing. The value is computed without holding the
+     * cache's lock, so that slow computations do not block other lookups; two threads missing the same key at
+     * once may both compute it, and the last one to finish is kept.
+     *
+     * @param key The key to look up
+     * @param compute Computes the value for a missing key
+     * @return The cached or computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        V value = this.get(key);
+        if (value == null) {
+            value = compute.apply(key);
+            this.put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,293 @@
+package edu.mit.gamedap.parser;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over a memory-mapped file, which reads code points straight from the mapping instead of
+ * decoding the whole file into an array first, as {@link CharStreams#fromPath(Path)} does. Heap use stays
+ * (nearly) constant whatever the size of the file, and nothing is decoded until the lexer reaches it.
+ *
+ * Single-byte files (ISO-8859-1, and ASCII, which is read as its Latin-1 superset) are indexed directly. UTF-8 is
+ * decoded lazily: the byte offset of every {@link MappedCharStream#BLOCK_SIZE}th code point is recorded the first
+ * time it is passed, so seeking costs at most one block's walk, and blocks found to be all ASCII are indexed
+ * directly too. Malformed bytes are read as U+FFFD, one per byte. {@link MappedCharStream#getText(Interval)}
+ * decodes only the bytes of the interval.
+ *
+ * Files are limited to 2GB, the most that can be mapped as one buffer.
+ */
+public class MappedCharStream implements CharStream {
+    /** The number of code points between recorded offsets in UTF-8 files. */
+    public static final int BLOCK_SIZE = 4096;
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final ByteBuffer bytes;
+    private final int byteLength;
+    private final Charset charset;
+    private final boolean singleByte;
+    private final String sourceName;
+
+    // checkpoints[k] is the byte offset of code point k * BLOCK_SIZE, for the blocks passed so far
+    private int[] checkpoints = new int[16];
+    private int checkpointCount = 1;
+    // The number of code points, once the end of the file has been reached, or -1
+    private int size;
+
+    // The current code point, and the offset of its first byte
+    private int index = 0;
+    private int byteOffset = 0;
+
+    /**
+     * Opens a file as a character stream, mapping it if its charset is supported.
+     *
+     * @param file The file to read
+     * @param charset The file's encoding; files in charsets other than UTF-8, ISO-8859-1 and US-ASCII are decoded
+     *    in full with {@link CharStreams#fromPath(Path, Charset)}
+     * @return A stream of the file's code points
+     */
+    public static CharStream open(Path file, Charset charset) throws IOException {
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.ISO_8859_1)
+                && !charset.equals(StandardCharsets.US_ASCII)) {
+            return CharStreams.fromPath(file, charset);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            return new MappedCharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset,
+                file.toString());
+        }
+    }
+
+    /**
+     * @param bytes The encoded text, from its position to its limit
+     * @param charset UTF-8, ISO-8859-1 or US-ASCII
+     * @param sourceName The name of the text's source, e.g. a file path
+     */
+    MappedCharStream(ByteBuffer bytes, Charset charset, String sourceName) {
+        this.bytes = bytes.slice();
+        this.byteLength = this.bytes.remaining();
+        this.charset = charset.equals(StandardCharsets.UTF_8) ? charset : StandardCharsets.ISO_8859_1;
+        this.singleByte = !charset.equals(StandardCharsets.UTF_8);
+        this.sourceName = sourceName;
+        this.size = this.singleByte ? this.byteLength : -1;
+    }
+
+    @Override
+    public void consume() {
+        if (this.byteOffset >= this.byteLength) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        this.byteOffset += this.singleByte ? 1 : this.sequenceLength(this.byteOffset);
+        this.index ++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0;
+        }
+        int target = i > 0 ? this.index + i - 1 : this.index + i;
+        if (target < 0) {
+            return IntStream.EOF;
+        }
+        int offset = this.locate(target);
+        if (offset >= this.byteLength) {
+            return IntStream.EOF;
+        }
+        return this.singleByte ? this.bytes.get(offset) & 0xFF : this.decode(offset);
+    }
+
+    @Override
+    public int mark() {
+        // The whole file stays mapped, so nothing needs to be kept for marks
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {}
+
+    @Override
+    public int index() {
+        return this.index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.byteOffset = this.locate(index);
+        this.index = index;
+    }
+
+    /**
+     * For UTF-8 files, the first call walks the rest of the file to count its code points (without decoding
+     * them).
+     */
+    @Override
+    public int size() {
+        if (this.size < 0) {
+            this.extendIndex(Integer.MAX_VALUE);
+        }
+        return this.size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return this.sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = this.locate(Math.max(interval.a, 0));
+        int end = interval.b < interval.a ? start : this.locate(interval.b + 1);
+        if (end <= start) {
+            return "";
+        }
+        byte[] slice = new byte[end - start];
+        ByteBuffer view = this.bytes.duplicate();
+        ((Buffer) view).position(start);
+        view.get(slice);
+        return new String(slice, this.charset);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<MappedCharStream: %s, %s, %d bytes>", this.sourceName, this.charset,
+            this.byteLength);
+    }
+
+    /**
+     * @return The byte offset of a code point, or the length of the file if it is past the end
+     */
+    private int locate(int target) {
+        if (this.singleByte) {
+            return Math.min(target, this.byteLength);
+        }
+
+        int offset;
+        int remaining;
+        if (target >= this.index && target - this.index < BLOCK_SIZE) {
+            // Close ahead of the current position, as when lexing
+            offset = this.byteOffset;
+            remaining = target - this.index;
+        } else {
+            int block = target / BLOCK_SIZE;
+            this.extendIndex(block);
+            if (block >= this.checkpointCount) {
+                return this.byteLength;
+            }
+            offset = this.checkpoints[block];
+            remaining = target - block * BLOCK_SIZE;
+            if (block + 1 < this.checkpointCount && this.checkpoints[block + 1] - offset == BLOCK_SIZE) {
+                // A block with a byte per code point is all ASCII
+                return offset + remaining;
+            }
+        }
+
+        for (; remaining > 0 && offset < this.byteLength; remaining --) {
+            offset += this.sequenceLength(offset);
+        }
+        return Math.min(offset, this.byteLength);
+    }
+
+    /**
+     * Records checkpoints up to and including a block, or until the end of the file, where the size is found.
+     */
+    private void extendIndex(int block) {
+        while (this.checkpointCount <= block && this.size < 0) {
+            int offset = this.checkpoints[this.checkpointCount - 1];
+            int count = 0;
+            for (; count < BLOCK_SIZE && offset < this.byteLength; count ++) {
+                offset += this.sequenceLength(offset);
+            }
+
+            if (count == BLOCK_SIZE && offset < this.byteLength) {
+                if (this.checkpointCount == this.checkpoints.length) {
+                    this.checkpoints = Arrays.copyOf(this.checkpoints, this.checkpoints.length * 2);
+                }
+                this.checkpoints[this.checkpointCount ++] = offset;
+            } else {
+                this.size = (this.checkpointCount - 1) * BLOCK_SIZE + count;
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes in the UTF-8 sequence starting at an offset, which is replaced by a single
+     *     U+FFFD if it is malformed
+     */
+    private int sequenceLength(int offset) {
+        return Math.abs(this.scanSequence(offset));
+    }
+
+    /**
+     * Measures a UTF-8 sequence the way {@link String#String(byte[], java.nio.charset.Charset)} does: a malformed
+     * sequence covers its longest prefix that could still begin a valid one (at least its lead byte), except that
+     * an encoded surrogate is rejected whole.
+     *
+     * @return The number of bytes in the sequence starting at an offset, negated if it is malformed
+     */
+    private int scanSequence(int offset) {
+        int lead = this.bytes.get(offset) & 0xFF;
+        if (lead < 0x80) {
+            return 1;
+        }
+        int length;
+        // Lead bytes that would allow overlong forms or code points past U+10FFFF limit the second byte
+        int secondMin = 0x80;
+        int secondMax = 0xBF;
+        if (lead >= 0xC2 && lead < 0xE0) {
+            length = 2;
+        } else if (lead >= 0xE0 && lead < 0xF0) {
+            length = 3;
+            secondMin = lead == 0xE0 ? 0xA0 : secondMin;
+        } else if (lead >= 0xF0 && lead < 0xF5) {
+            length = 4;
+            secondMin = lead == 0xF0 ? 0x90 : secondMin;
+            secondMax = lead == 0xF4 ? 0x8F : secondMax;
+        } else {
+            return -1;
+        }
+
+        for (int k = 1; k < length; k ++) {
+            if (offset + k >= this.byteLength) {
+                return -k;
+            }
+            int next = this.bytes.get(offset + k) & 0xFF;
+            if (k == 1 ? next < secondMin || next > secondMax : (next & 0xC0) != 0x80) {
+                return -k;
+            }
+        }
+        if (lead == 0xED && (this.bytes.get(offset + 1) & 0xFF) >= 0xA0) {
+            return -length;
+        }
+        return length;
+    }
+
+    private int decode(int offset) {
+        int lead = this.bytes.get(offset) & 0xFF;
+        if (lead < 0x80) {
+            return lead;
+        }
+        int length = this.scanSequence(offset);
+        if (length < 0) {
+            return REPLACEMENT_CHARACTER;
+        }
+        int codePoint = lead & (0x7F >> length);
+        for (int k = 1; k < length; k ++) {
+            codePoint = (codePoint << 6) | (this.bytes.get(offset + k) & 0x3F);
+        }
+        return codePoint;
+    }
+}
@@ -0,0 +1,214 @@
+package edu.mit.gamedap.parser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import edu.mit.gamedap.generator.RecordSplitter;
+
+/**
+ * Parses the sections of a dialogue concurrently. Section boundaries are found first with a {@link RecordSplitter}
+ * over the section delimiters, which is much cheaper than lexing; each section is then lexed and parsed by its
+ * own lexer and parser (taken from the grammar's pool) on an executor, and the lines are merged in order.
+ *
+ * The input is only cut at section delimiters that the whole-input lexer is certain to produce, i.e. those with
+ * a character on either side that no delimiter or new line can contain. Sections are parsed with SLL prediction,
+ * stopping at the first syntax error; if any of them fails, or the grammar has no sections, the whole input is
+ * parsed on the calling thread with {@link DialogueGrammar#parseTwoStage} instead, so the result never depends
+ * on where the input was cut.
+ */
+public class ParallelDialogueParser {
+    private static final String NEW_LINE_CHARACTERS = "\n\r\f";
+
+    /**
+     * The title and lines of a dialogue parsed by a {@link ParallelDialogueParser}.
+     */
+    public static class Result {
+        private final String title;
+        private final List<DialogueLine> lines;
+        private final int sectionCount;
+
+        Result(String title, List<DialogueLine> lines, int sectionCount) {
+            this.title = title;
+            this.lines = lines;
+            this.sectionCount = sectionCount;
+        }
+
+        /**
+         * @return The last title in the dialogue, as from {@link DialogueLineBuilder#getTitle()}
+         */
+        public String getTitle() {
+            return title;
+        }
+
+        public List<DialogueLine> getLines() {
+            return lines;
+        }
+
+        /**
+         * @return The number of sections parsed concurrently, or 1 if the input was parsed as a whole
+         */
+        public int getSectionCount() {
+            return sectionCount;
+        }
+    }
+
+    private final DialogueGrammar grammar;
+    private final ExecutorService executor;
+    private final RecordSplitter sectionSplitter;
+    private final Set<Character> delimiterCharacters = new HashSet<>();
+
+    /**
+     * @param grammar The grammar to parse with
+     * @param executor The executor to parse sections on; it is not shut down by the parser
+     */
+    public ParallelDialogueParser(DialogueGrammar grammar, ExecutorService executor) {
+        this.grammar = grammar;
+        this.executor = executor;
+        this.sectionSplitter = grammar.getSectionDelimiters().isEmpty()
+            ? null : new RecordSplitter(grammar.getSectionDelimiters(), false);
+
+        List<String> allDelimiters = new ArrayList<>(grammar.getDelimiters());
+        allDelimiters.addAll(grammar.getSectionDelimiters());
+        allDelimiters.add(NEW_LINE_CHARACTERS);
+        for (String delimiter : allDelimiters) {
+            for (char c : delimiter.toCharArray()) {
+                this.delimiterCharacters.add(c);
+            }
+        }
+    }
+
+    public DialogueGrammar getGrammar() {
+        return this.grammar;
+    }
+
+    /**
+     * Parses a whole dialogue.
+     *
+     * @param text The text to parse
+     * @return The title and lines of the dialogue
+     * @throws InterruptedException if the thread was interrupted while waiting for sections to be parsed
+     */
+    public Result parse(String text) throws InterruptedException {
+        List<int[]> sections = this.findSections(text);
+        if (sections.size() > 1) {
+            Result result = this.parseSections(text, sections);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        DialogueLineBuilder builder = new DialogueLineBuilder(this.grammar);
+        new ParseTreeWalker().walk(builder, this.grammar.parseTwoStage(CharStreams.fromString(text)).getTree());
+        return new Result(builder.getTitle(), builder.getLines(), 1);
+    }
+
+    /**
+     * Cuts the text at the section delimiters that are safe to cut at.
+     *
+     * @return The start and end offsets of each section, in order
+     */
+    private List<int[]> findSections(String text) {
+        List<int[]> sections = new ArrayList<>();
+        if (this.sectionSplitter == null) {
+            sections.add(new int[] {0, text.length()});
+            return sections;
+        }
+
+        int[] sectionStart = {0};
+        this.sectionSplitter.split(text, (t, start, delimiterStarts, delimiterEnds, end) -> {
+            for (int d = 0; d < delimiterStarts.length; d ++) {
+                if (delimiterStarts[d] < delimiterEnds[d]
+                        && this.isSafeCut(text, delimiterStarts[d], delimiterEnds[d])) {
+                    sections.add(new int[] {sectionStart[0], delimiterStarts[d]});
+                    sectionStart[0] = delimiterEnds[d];
+                }
+            }
+        });
+        sections.add(new int[] {sectionStart[0], text.length()});
+        return sections;
+    }
+
+    // Text runs stop before any delimiter or new line character, so a plain character before the delimiter means
+    // a token ends where it starts, and a plain character after it means no longer token can match there
+    private boolean isSafeCut(String text, int delimiterStart, int delimiterEnd) {
+        return delimiterStart > 0 && delimiterEnd < text.length()
+            && !this.delimiterCharacters.contains(text.charAt(delimiterStart - 1))
+            && !this.delimiterCharacters.contains(text.charAt(delimiterEnd));
+    }
+
+    /**
+     * @return The merged result, or null if any section could not be parsed on its own
+     */
+    private Result parseSections(String text, List<int[]> sections) throws InterruptedException {
+        int startRule = this.grammar.getRuleIndex(DialogueGrammar.START_RULE);
+        int sectionRule = this.grammar.getRuleIndex(DialogueGrammar.SECTION_RULE);
+
+        List<Future<DialogueLineBuilder>> futures = new ArrayList<>(sections.size());
+        for (int i = 0; i < sections.size(); i ++) {
+            String sectionText = text.substring(sections.get(i)[0], sections.get(i)[1]);
+            // Only the first section can have the titles that come before every section
+            int rule = i == 0 ? startRule : sectionRule;
+            futures.add(this.executor.submit(() -> this.parseSection(sectionText, rule)));
+        }
+
+        String title = "";
+        List<DialogueLine> lines = new ArrayList<>();
+        try {
+            for (Future<DialogueLineBuilder> future : futures) {
+                DialogueLineBuilder builder = future.get();
+                if (builder == null) {
+                    return null;
+                }
+                if (!builder.getTitle().isEmpty()) {
+                    title = builder.getTitle();
+                }
+                lines.addAll(builder.getLines());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not parse section", e.getCause());
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return new Result(title, lines, sections.size());
+    }
+
+    /**
+     * @return The lines of the section, or null if it has a syntax error or does not end where the rule does
+     */
+    private DialogueLineBuilder parseSection(String sectionText, int rule) {
+        ParserRuleContext tree = this.grammar.withParser(CharStreams.fromString(sectionText), parser -> {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(new BailErrorStrategy());
+            try {
+                ParserRuleContext section = parser.parse(rule);
+                return parser.getTokenStream().LA(1) == Token.EOF ? section : null;
+            } catch (ParseCancellationException e) {
+                return null;
+            }
+        });
+        if (tree == null) {
+            return null;
+        }
+
+        DialogueLineBuilder builder = new DialogueLineBuilder(this.grammar);
+        new ParseTreeWalker().walk(builder, tree);
+        return builder;
+    }
+}
@@ -1,17 +1,33 @@
 package edu.mit.gamedap.parser;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import static org.apache.commons.text.StringEscapeUtils.escapeHtml4;
-import static org.apache.commons.text.StringEscapeUtils.escapeCsv;
+import static org.apache.commons.text.StringEscapeUtils.escapeJava;
 
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.tree.*;
+import org.apache.commons.io.IOUtils;
+
+import edu.mit.gamedap.generator.Diagnostics;
+import edu.mit.gamedap.generator.GrammarBuilder;
+import edu.mit.gamedap.generator.GrammarGeneratorExample;
 
 /**
  * Hello world!
@@ -19,93 +35,201 @@ import org.antlr.v4.runtime.tree.*;
  */
 public class ParserExample 
 {
-    private final static String HTML_OUTLINE = "<!DOCTYPE html>\n" + //
-            "<html>\n" + //
-            "<head>\n" + //
-            "<title>GameDAP Visualized Output</title>\n" + //
-            "</head>\n" + //
-            "<body><pre>\n" + //
-            "%s\n" + //
-            "</pre></body>\n" + //
-            "</html>";
+    private final static String INPUT_RESOURCE = "shortDialogueEx.txt";
+
+    // The options that main takes as its first argument, described in its table
+    public static final String SPLIT_OPTION = "--split";
+    public static final String STREAM_OPTION = "--stream";
+    public static final String DELIMITERS_OPTION = "--delimiters";
+    public static final String PARALLEL_OPTION = "--parallel";
+    public static final String EXPORT_OPTION = "--export";
+    public static final String MAPPED_OPTION = "--mapped";
 
+    /**
+     * Parses the example dialogue and prints it as highlighted HTML and as CSV, or as chosen by the arguments:
+     * <table>
+     *   <caption>Arguments</caption>
+     *   <tr><th>Arguments</th><th>Effect</th></tr>
+     *   <tr><td>(none)</td><td>Learns the grammar from the example dialogue in this process, or takes it from the
+     *     generator's grammar cache</td></tr>
+     *   <tr><td><i>grammar</i></td><td>Parses with the grammar at the given path</td></tr>
+     *   <tr><td>--split</td><td>Splits the dialogue into records with its record format, without a
+     *     grammar</td></tr>
+     *   <tr><td>--parallel [<i>grammar</i>]</td><td>Parses the sections of the dialogue concurrently</td></tr>
+     *   <tr><td>--export <i>path</i></td><td>Writes the lines as JSON Lines to <i>path</i>.jsonl and in the binary
+     *     format to <i>path</i>.bin (with its index) instead of printing them</td></tr>
+     *   <tr><td>--stream <i>grammar</i></td><td>Parses the dialogue as a stream without building a parse tree,
+     *     and prints it as highlighted HTML only</td></tr>
+     *   <tr><td>--delimiters <i>grammar</i></td><td>Lexes the dialogue as a stream and prints the position of each
+     *     delimiter</td></tr>
+     *   <tr><td>--mapped <i>grammar</i> <i>file</i></td><td>Parses a UTF-8 file through a memory-mapped stream
+     *     and prints its lines as JSON Lines</td></tr>
+     * </table>
+     *
+     * @param args The arguments, as in the table above
+     */
     public static void main( String[] args )
     {
         try {
+            if (args.length > 2 && args[0].equals(MAPPED_OPTION)) {
+                parseMapped(DialogueGrammar.load(Paths.get(args[1])), Paths.get(args[2]));
+                return;
+            }
             ClassLoader classLoader = new ParserExample().getClass().getClassLoader();
-            System.out.println(classLoader.getResource("shortDialogueEx.txt"));
-            InputStream is = classLoader.getResourceAsStream("shortDialogueEx.txt");
-            GeneratedGrammarLexer lexer = new GeneratedGrammarLexer(CharStreams.fromStream(is));
-
-            Map<String, Integer> vocabMap = new HashMap<>();
-            for (int i = 0; i <= lexer.getVocabulary().getMaxTokenType(); i ++) {
-                vocabMap.put(lexer.getVocabulary().getSymbolicName(i), i);
+            System.out.println(classLoader.getResource(INPUT_RESOURCE));
+            InputStream is = classLoader.getResourceAsStream(INPUT_RESOURCE);
+            if (args.length > 1 && (args[0].equals(STREAM_OPTION) || args[0].equals(DELIMITERS_OPTION))) {
+                StreamingDialogueParser parser = new StreamingDialogueParser(DialogueGrammar.load(Paths.get(args[1])));
+                Reader input = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                if (args[0].equals(STREAM_OPTION)) {
+                    streamHtml(parser, input, out);
+                } else {
+                    parser.lexDelimiters(input, (index, section, offset, text) -> System.out.println(
+                        String.format("%d\t%s%d\t%s", offset, section ? "P" : "", index, escapeJava(text))));
+                }
+                return;
             }
+            String inputText = IOUtils.toString(is, StandardCharsets.UTF_8);
+            boolean export = args.length > 1 && args[0].equals(EXPORT_OPTION);
 
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            GeneratedGrammarParser parser = new GeneratedGrammarParser(tokens);
-            ParseTree tree = parser.dialogue();
+            List<DialogueLine> lines;
+            String title;
+            int delimiterCount;
+            if (args.length > 0 && args[0].equals(SPLIT_OPTION)) {
+                String recordFormat = GrammarGeneratorExample.learnGrammar(inputText, Diagnostics.NONE)
+                    .getResults().getRecordFormat();
+                lines = SplitLineBuilder.split(inputText, recordFormat);
+                title = "";
+                delimiterCount = GrammarBuilder.getRecordDelimiters(recordFormat).size();
+            } else if (args.length > 0 && args[0].equals(PARALLEL_OPTION)) {
+                DialogueGrammar grammar = args.length > 1
+                    ? DialogueGrammar.load(Paths.get(args[1]))
+                    : DialogueGrammar.load(GrammarGeneratorExample.generateGrammar(inputText));
+                ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                ParallelDialogueParser.Result result;
+                try {
+                    result = new ParallelDialogueParser(grammar, executor).parse(inputText);
+                } finally {
+                    executor.shutdown();
+                }
+                System.out.println(String.format("Parsed %s in %d sections", INPUT_RESOURCE, result.getSectionCount()));
+                lines = result.getLines();
+                title = result.getTitle();
+                delimiterCount = grammar.getDelimiterCount();
+            } else {
+                DialogueGrammar grammar = args.length > 0 && !export
+                    ? DialogueGrammar.load(Paths.get(args[0]))
+                    : DialogueGrammar.load(GrammarGeneratorExample.generateGrammar(inputText));
+                DialogueGrammar.ParseOutcome outcome = grammar.parseTwoStage(CharStreams.fromString(inputText));
+                System.out.println(String.format("Parsed %s with %s prediction", INPUT_RESOURCE,
+                    outcome.getPredictionMode()));
+                ParseTree tree = outcome.getTree();
 
-            ParseTreeWalker walker = new ParseTreeWalker();
-            DialogueLineBuilder listener = new DialogueLineBuilder(vocabMap);
+                ParseTreeWalker walker = new ParseTreeWalker();
+                DialogueLineBuilder listener = new DialogueLineBuilder(grammar);
 
-            walker.walk(listener, tree);
-            // for (DialogueLine pair : listener.getLines()) {
+                walker.walk(listener, tree);
+                lines = listener.getLines();
+                title = listener.getTitle();
+                delimiterCount = listener.getDelimiterCount();
+            }
+            if (export) {
+                exportLines(lines, args[1]);
+                return;
+            }
+            // for (DialogueLine pair : lines) {
             //     System.out.println(pair);
             // }
 
-            List<String> colorHexes = generateHighlightColors(listener.getDelimiterCount() + 1);
+            List<String> colorHexes = generateHighlightColors(delimiterCount + 1);
             // for (String hex : colorHexes) {
             //     System.out.println(hex);
             // }
 
 
-            String bodyOutput = escapeHtml4(listener.getTitle());
-            List<List<String>> csvLines = new ArrayList<>();
-            List<String> currentCsvLine = new ArrayList<>();
-            int maxCsvLineLen = 0;
-            for (DialogueLine line : listener.getLines()) {
-                for (int i = 0; i < line.numParts(); i ++) {
-                    if (i > 0) {
-                        bodyOutput += escapeHtml4(line.getDelim(i - 1));
-                    }
-                    bodyOutput += String.format("<span style=\"background-color:#%s\">%s</span>",
-                    colorHexes.get(i), escapeHtml4(line.getPart(i)));
-
-                    List<String> splitPart = new ArrayList<>(List.of(line.getPart(i).split("[\r\n]+")));
-                    currentCsvLine.add(escapeCsv(splitPart.remove(0)));
-                    while (splitPart.size() > 0) {
-                        csvLines.add(currentCsvLine);
-                        maxCsvLineLen = Math.max(maxCsvLineLen, currentCsvLine.size());
-                        currentCsvLine = new ArrayList<>();
-                        currentCsvLine.add(escapeCsv(splitPart.remove(0)));
-                    }
-                }
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            HtmlDialogueWriter htmlWriter = new HtmlDialogueWriter(out, colorHexes);
+            htmlWriter.begin(title);
+            for (DialogueLine line : lines) {
+                htmlWriter.write(line);
             }
-            csvLines.add(currentCsvLine);
-
-            String htmlOutput = String.format(HTML_OUTLINE, bodyOutput);
+            htmlWriter.finish();
 
-            for (List<String> csvLine : csvLines) {
-                while (csvLine.size() < maxCsvLineLen) {
-                    csvLine.add("");
-                }
-            }
-            String csvOutput = "1";
-            for (int i = 1; i < maxCsvLineLen; i ++) {
-                csvOutput += "," + (i+1);
+            out.write("\n------\n");
+            CsvDialogueWriter csvWriter = new CsvDialogueWriter(out, CsvDialogueWriter.countColumns(lines));
+            for (DialogueLine line : lines) {
+                csvWriter.write(line);
             }
-            csvOutput += "\n";
-            for (List<String> cvsLine : csvLines) {
-                csvOutput += String.join(",",  cvsLine) + "\n";
-            }
-
-            System.out.println(htmlOutput);
-            System.out.println("------");
-            System.out.println(csvOutput);
+            csvWriter.finish();
         } catch (IOException e) {
             System.out.println(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(e);
+        }
+    }
+
+    private static void parseMapped(DialogueGrammar grammar, Path inputFile) throws IOException {
+        DialogueLineBuilder builder = new DialogueLineBuilder(grammar);
+        new ParseTreeWalker().walk(builder,
+            grammar.parseTwoStage(MappedCharStream.open(inputFile, StandardCharsets.UTF_8)).getTree());
+
+        JsonLinesDialogueWriter jsonWriter = new JsonLinesDialogueWriter(System.out);
+        for (DialogueLine line : builder.getLines()) {
+            jsonWriter.write(line);
+        }
+        jsonWriter.finish();
+    }
+
+    private static void exportLines(List<DialogueLine> lines, String basePath) throws IOException {
+        try (OutputStream jsonOut = Files.newOutputStream(Paths.get(basePath + ".jsonl"));
+                BinaryDialogueWriter binaryWriter = new BinaryDialogueWriter(Paths.get(basePath + ".bin"))) {
+            JsonLinesDialogueWriter jsonWriter = new JsonLinesDialogueWriter(jsonOut);
+            for (DialogueLine line : lines) {
+                jsonWriter.write(line);
+                binaryWriter.write(line);
+            }
+            jsonWriter.finish();
+        }
+
+        BinaryDialogueReader reader = new BinaryDialogueReader(Paths.get(basePath + ".bin"));
+        System.out.println(String.format("Exported %d lines to %s.jsonl and %s.bin", reader.size(), basePath,
+            basePath));
+        if (reader.size() > 0) {
+            System.out.println("Last line: " + reader.get(reader.size() - 1));
+        }
+    }
+
+    private static void streamHtml(StreamingDialogueParser parser, Reader input, Writer out) throws IOException {
+        // The number of parts is not known until the first line, so colors are made for the grammar's delimiters
+        HtmlDialogueWriter htmlWriter = new HtmlDialogueWriter(out,
+            generateHighlightColors(parser.getGrammar().getDelimiterCount() + 1));
+        htmlWriter.begin("");
+        try {
+            parser.parse(input, new StreamingDialogueParser.DialogueListener() {
+                @Override
+                public void title(String title) {
+                    try {
+                        htmlWriter.writeTitle(title);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void line(DialogueLine line) {
+                    try {
+                        htmlWriter.write(line);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        htmlWriter.finish();
     }
 
     public static List<String> generateHighlightColors(int numColors) {
@@ -0,0 +1,45 @@
+package edu.mit.gamedap.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.gamedap.generator.RecordSplitter;
+
+/**
+ * Builds {@link DialogueLine}s from the records found by a {@link RecordSplitter}, as a faster alternative to
+ * parsing with a generated grammar and {@link DialogueLineBuilder} when only the record format is needed.
+ */
+public class SplitLineBuilder implements RecordSplitter.RecordListener {
+    private List<DialogueLine> lines = new ArrayList<>();
+
+    /**
+     * Splits a text into dialogue lines.
+     *
+     * @param text The text to split
+     * @param recordFormat The record format of the text, as learned by the generator
+     * @return The lines of the text, in order
+     */
+    public static List<DialogueLine> split(CharSequence text, String recordFormat) {
+        SplitLineBuilder builder = new SplitLineBuilder();
+        new RecordSplitter(recordFormat).split(text, builder);
+        return builder.getLines();
+    }
+
+    public List<DialogueLine> getLines() {
+        return lines;
+    }
+
+    @Override
+    public void record(CharSequence text, int start, int[] delimiterStarts, int[] delimiterEnds, int end) {
+        List<String> parts = new ArrayList<>(delimiterStarts.length + 1);
+        List<String> presentDelims = new ArrayList<>(delimiterStarts.length);
+        int partStart = start;
+        for (int i = 0; i < delimiterStarts.length; i ++) {
+            parts.add(text.subSequence(partStart, delimiterStarts[i]).toString());
+            presentDelims.add(text.subSequence(delimiterStarts[i], delimiterEnds[i]).toString());
+            partStart = delimiterEnds[i];
+        }
+        parts.add(text.subSequence(partStart, end).toString());
+        this.lines.add(new DialogueLine(parts, presentDelims));
+    }
+}
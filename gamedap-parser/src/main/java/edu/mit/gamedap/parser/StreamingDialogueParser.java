@@ -0,0 +1,166 @@
+package edu.mit.gamedap.parser;
+
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.LexerInterpreter;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Parses dialogue without building a parse tree, for scripts too large to hold in memory. Characters and tokens
+ * are read through unbuffered streams, and each {@link DialogueLine} is built by a parse listener as soon as its
+ * pair has been parsed; pairs are not attached to the tree, so they can be collected once they are reported.
+ * Memory is bounded by the largest record (plus however far the parser has to look ahead), rather than growing
+ * with the input.
+ *
+ * Since the input cannot be read twice, there is no fallback as in {@link DialogueGrammar#parseTwoStage}: parsing
+ * uses SLL prediction with the default error recovery, which gives the same lines as the tree parse for our
+ * grammars and is an order of magnitude faster than full LL over unbuffered tokens.
+ */
+public class StreamingDialogueParser {
+    /**
+     * Receives the contents of a dialogue as it is parsed.
+     */
+    public interface DialogueListener {
+        /**
+         * Called for each title, before the lines that follow it.
+         *
+         * @param title The text of the title
+         */
+        default void title(String title) {}
+
+        void line(DialogueLine line);
+    }
+
+    /**
+     * Receives the delimiters found by {@link StreamingDialogueParser#lexDelimiters(Reader, DelimiterListener)}.
+     */
+    public interface DelimiterListener {
+        /**
+         * @param index The position of the delimiter in the record format, or in the section format
+         * @param section Whether the delimiter separates sections rather than parts of a record
+         * @param offset The offset of the delimiter's first character in the input
+         * @param text The text of the delimiter
+         */
+        void delimiter(int index, boolean section, int offset, String text);
+    }
+
+    private final DialogueGrammar grammar;
+
+    public StreamingDialogueParser(DialogueGrammar grammar) {
+        this.grammar = grammar;
+    }
+
+    public DialogueGrammar getGrammar() {
+        return this.grammar;
+    }
+
+    private LexerInterpreter createLexer(Reader input) {
+        LexerInterpreter lexer = this.grammar.createLexer(new UnbufferedCharStream(input));
+        // Tokens must copy their text, since the characters are discarded once they are lexed
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        return lexer;
+    }
+
+    /**
+     * Parses a dialogue, reporting its titles and lines in order.
+     *
+     * @param input The text to parse
+     * @param listener The listener to report to
+     */
+    public void parse(Reader input, DialogueListener listener) {
+        UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<>(this.createLexer(input));
+        ParserInterpreter parser = this.grammar.createParser(tokens);
+        parser.setBuildParseTree(false);
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.addParseListener(new LineEmitter(this.grammar, listener));
+        this.grammar.parse(parser);
+    }
+
+    /**
+     * Finds the delimiters in a dialogue with the lexer alone, skipping the parser.
+     *
+     * @param input The text to lex
+     * @param listener The listener to report each delimiter to, in order
+     */
+    public void lexDelimiters(Reader input, DelimiterListener listener) {
+        LexerInterpreter lexer = this.createLexer(input);
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            int index = this.grammar.getDelimiterIndex(token.getType());
+            if (index >= 0) {
+                listener.delimiter(index, false, token.getStartIndex(), token.getText());
+                continue;
+            }
+            index = this.grammar.getSectionDelimiterIndex(token.getType());
+            if (index >= 0) {
+                listener.delimiter(index, true, token.getStartIndex(), token.getText());
+            }
+        }
+    }
+
+    /**
+     * Builds lines when pairs are exited during the parse; with no tree being built, a pair's children are only
+     * its tokens.
+     */
+    private static class LineEmitter extends DialogueGrammarListener {
+        private final DialogueGrammar grammar;
+        private final DialogueListener listener;
+        private final StringBuilder text = new StringBuilder();
+
+        LineEmitter(DialogueGrammar grammar, DialogueListener listener) {
+            super(grammar);
+            this.grammar = grammar;
+            this.listener = listener;
+        }
+
+        @Override
+        public void exitTitle(ParserRuleContext ctx) {
+            this.text.setLength(0);
+            for (int i = 0; i < ctx.getChildCount(); i ++) {
+                this.text.append(ctx.getChild(i).getText());
+            }
+            this.listener.title(this.text.toString());
+        }
+
+        @Override
+        public void exitPair(ParserRuleContext ctx) {
+            int delimiterCount = this.grammar.getDelimiterCount();
+            String[] dialogueParts = new String[delimiterCount + 1];
+            String[] presentDelims = new String[delimiterCount];
+            Arrays.fill(dialogueParts, "");
+            Arrays.fill(presentDelims, "");
+
+            // As in DialogueLineBuilder, text belongs to the part before the next delimiter present in the pair
+            this.text.setLength(0);
+            for (int i = 0; i < ctx.getChildCount(); i ++) {
+                if (!(ctx.getChild(i) instanceof TerminalNode)) {
+                    continue;
+                }
+                Token token = ((TerminalNode) ctx.getChild(i)).getSymbol();
+                if (token.getStartIndex() < 0) {
+                    // Conjured by error recovery, so not part of the input
+                    continue;
+                }
+                int delimiter = this.grammar.getDelimiterIndex(token.getType());
+                if (delimiter >= 0) {
+                    dialogueParts[delimiter] = this.text.toString();
+                    presentDelims[delimiter] = token.getText();
+                    this.text.setLength(0);
+                } else {
+                    this.text.append(token.getText());
+                }
+            }
+            dialogueParts[delimiterCount] = this.text.toString();
+            ctx.children = null;
+
+            this.listener.line(new DialogueLine(Arrays.asList(dialogueParts), Arrays.asList(presentDelims)));
+        }
+    }
+}
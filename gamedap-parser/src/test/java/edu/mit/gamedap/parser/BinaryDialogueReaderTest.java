@@ -0,0 +1,56 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryDialogueReaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGet_RandomAccess() throws IOException
+    {
+        List<DialogueLine> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i ++) {
+            // Long enough parts to need multi-byte lengths, and text outside ASCII
+            String text = String.join("", Collections.nCopies(i, "\u00e9"));
+            lines.add(new DialogueLine(Arrays.asList("Pit " + i, i % 2 == 0 ? "sad" : "", text),
+                Arrays.asList(" (", i % 2 == 0 ? "): " : "")));
+        }
+
+        Path dataFile = folder.getRoot().toPath().resolve("dialogue.bin");
+        try (BinaryDialogueWriter writer = new BinaryDialogueWriter(dataFile)) {
+            for (DialogueLine line : lines) {
+                writer.write(line);
+            }
+            assertEquals("Unexpected record count", lines.size(), writer.getRecordCount());
+        }
+
+        BinaryDialogueReader reader = new BinaryDialogueReader(dataFile);
+        assertEquals("Unexpected size", lines.size(), reader.size());
+        for (int i : new int[] {299, 0, 128, 1}) {
+            DialogueLine line = reader.get(i);
+            assertEquals("Unexpected record " + i, lines.get(i).toString(), line.toString());
+            assertEquals("Unexpected delimiter in record " + i, lines.get(i).getDelim(1), line.getDelim(1));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_NotAnExport() throws IOException
+    {
+        Path dataFile = folder.newFile("dialogue.bin").toPath();
+        folder.newFile("dialogue.bin" + BinaryDialogueWriter.INDEX_SUFFIX);
+        new BinaryDialogueReader(dataFile);
+    }
+}
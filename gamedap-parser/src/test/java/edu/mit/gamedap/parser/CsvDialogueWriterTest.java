@@ -0,0 +1,36 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CsvDialogueWriterTest
+{
+    @Test
+    public void testWrite_RowsFollowLineBreaks() throws IOException
+    {
+        List<DialogueLine> lines = Arrays.asList(
+            new DialogueLine(Arrays.asList("", " \"Hi, you\"\nPit\n"), Arrays.asList(":")),
+            new DialogueLine(Arrays.asList("", " Bye\r\n\r\nPalutena"), Arrays.asList(":")));
+        assertEquals("Unexpected column count", 3, CsvDialogueWriter.countColumns(lines));
+
+        StringWriter out = new StringWriter();
+        CsvDialogueWriter writer = new CsvDialogueWriter(out, CsvDialogueWriter.countColumns(lines));
+        for (DialogueLine line : lines) {
+            writer.write(line);
+        }
+        writer.finish();
+
+        assertEquals("Unexpected CSV",
+            "1,2,3\n" +
+            ",\" \"\"Hi, you\"\"\",\n" +
+            "Pit,, Bye\n" +
+            "Palutena,,\n",
+            out.toString());
+    }
+}
@@ -0,0 +1,108 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class DialogueDaemonTest
+{
+    private static String request(String id, String command, String grammar, String text) {
+        int textLength = text.getBytes(StandardCharsets.UTF_8).length;
+        if (grammar == null) {
+            return String.format("%s %s %d\n%s", id, command, textLength, text);
+        }
+        return String.format("%s %s %d %d\n%s%s", id, command, textLength,
+            grammar.getBytes(StandardCharsets.UTF_8).length, grammar, text);
+    }
+
+    /**
+     * @return The status and body of each response, by request id
+     */
+    private static Map<String, String> readResponses(byte[] output) {
+        Map<String, String> responses = new HashMap<>();
+        int position = 0;
+        while (position < output.length) {
+            int headerEnd = position;
+            while (output[headerEnd] != '\n') {
+                headerEnd ++;
+            }
+            String[] header = new String(output, position, headerEnd - position, StandardCharsets.UTF_8).split(" ");
+            int length = Integer.parseInt(header[2]);
+            responses.put(header[0],
+                header[1] + " " + new String(output, headerEnd + 1, length, StandardCharsets.UTF_8));
+            position = headerEnd + 1 + length;
+        }
+        return responses;
+    }
+
+    @Test
+    public void testServe_ConcurrentRequests() throws IOException
+    {
+        String grammar = TestGrammars.build(".* (.*): .*\n");
+        String input = request("1", DialogueDaemon.PARSE_COMMAND, grammar, "Title\nPit (sad): é\nThe End")
+            + request("2", "LEARN", null, "Pit (sad): Hi\n")
+            + request("3", DialogueDaemon.PARSE_COMMAND, "grammar Broken;", "Pit (sad): Hi\n");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DialogueDaemon daemon = new DialogueDaemon(2, 1)) {
+            daemon.serve(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        }
+
+        Map<String, String> responses = readResponses(output.toByteArray());
+        assertEquals("Unexpected number of responses", 3, responses.size());
+        assertEquals("Unexpected parse response",
+            "OK {\"parts\":[\"\",\"\",\"\",\"Pit\"],\"delimiters\":[\"\",\"\",\"\\n\"]}\n"
+            + "{\"parts\":[\"\",\"sad\",\"\\u00E9\",\"The End\"],\"delimiters\":[\" (\",\"): \",\"\\n\"]}\n",
+            responses.get("1"));
+        assertEquals("Unexpected unknown command response", "ERROR Unknown command: LEARN", responses.get("2"));
+        assertTrue("Expected an invalid grammar to be an error", responses.get("3").startsWith("ERROR "));
+    }
+
+    @Test
+    public void testServe_ReportsErrors() throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DialogueDaemon daemon = new DialogueDaemon(1, 1) {
+            @Override
+            public String handle(String command, String grammarText, String text) {
+                throw new StackOverflowError();
+            }
+        }) {
+            daemon.serve(new ByteArrayInputStream(request("1", DialogueDaemon.GENERATE_COMMAND, null, "Pit: Hi\n")
+                .getBytes(StandardCharsets.UTF_8)), output);
+        }
+
+        assertEquals("Expected the error to be reported", Collections.singletonMap("1",
+            "ERROR java.lang.StackOverflowError"), readResponses(output.toByteArray()));
+    }
+
+    private static void assertMalformed(String input) throws IOException
+    {
+        try (DialogueDaemon daemon = new DialogueDaemon(1, 1)) {
+            daemon.serve(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+            fail("Expected a malformed header: " + input);
+        } catch (IOException e) {
+            assertTrue("Unexpected error: " + e, e.getMessage().startsWith("Malformed request header: "));
+        }
+    }
+
+    @Test
+    public void testServe_RejectsBadLengths() throws IOException
+    {
+        assertMalformed("1 PARSE -5\nPit: Hi\n");
+        assertMalformed("1 PARSE 7 -1\nPit: Hi\n");
+        assertMalformed("1 GENERATE " + (DialogueDaemon.MAX_BODY_LENGTH + 1) + "\nPit: Hi\n");
+        assertMalformed("1 PARSE 7 " + Integer.MAX_VALUE + "\nPit: Hi\n");
+        assertMalformed("1 PARSE seven\nPit: Hi\n");
+    }
+}
@@ -0,0 +1,111 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserInterpreter;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.Test;
+
+public class DialogueGrammarTest
+{
+    @Test
+    public void testLoad_Cached()
+    {
+        String grammarText = TestGrammars.build(".*: .*\n");
+        assertSame("Expected the loaded grammar to be reused", DialogueGrammar.load(grammarText),
+            DialogueGrammar.load(grammarText));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoad_InvalidGrammar()
+    {
+        DialogueGrammar.load("grammar GeneratedGrammar;\ndialogue: UNDEFINED_TOKEN ;");
+    }
+
+    @Test
+    public void testLex_TextRuns()
+    {
+        DialogueGrammar grammar = TestGrammars.load(".* (.*): .*\n");
+        CommonTokenStream tokens = new CommonTokenStream(grammar.createLexer(
+            CharStreams.fromString("Pit (sad): Hi there (again)\n")));
+        tokens.fill();
+
+        List<String> tokenTexts = tokens.getTokens().stream()
+            .filter(t -> t.getType() != Token.EOF)
+            .map(Token::getText)
+            .collect(Collectors.toList());
+        assertEquals("Expected text to be lexed in runs up to delimiters",
+            Arrays.asList("Pit", " (", "sad", "): ", "Hi", " ", "there", " (", "again", ")", "\n"), tokenTexts);
+    }
+
+    private static int countDFAStates(DialogueGrammar grammar) {
+        ParserInterpreter parser = grammar.createParser(new CommonTokenStream(grammar.createLexer(
+            CharStreams.fromString(""))));
+        return Arrays.stream(parser.getInterpreter().decisionToDFA).mapToInt(dfa -> dfa.states.size()).sum();
+    }
+
+    @Test
+    public void testWithParser_ReusedAndWarm()
+    {
+        DialogueGrammar grammar = TestGrammars.load("[.*] .*\n");
+        grammar.clearCaches();
+        assertEquals("Expected cleared DFAs to be empty", 0, countDFAStates(grammar));
+
+        ParserInterpreter[] used = new ParserInterpreter[2];
+        String first = grammar.withParser(CharStreams.fromString("[Pit] Hi\n[Palutena] Bye"), parser -> {
+            used[0] = parser;
+            return grammar.parse(parser).getText();
+        });
+        assertTrue("Expected new parsers to share the DFAs", countDFAStates(grammar) > 0);
+        String second = grammar.withParser(CharStreams.fromString("[Pit] Bye"), parser -> {
+            used[1] = parser;
+            assertEquals("Expected a reset parser", PredictionMode.LL, parser.getInterpreter().getPredictionMode());
+            return grammar.parse(parser).getText();
+        });
+
+        assertSame("Expected the idle parser to be reused", used[0], used[1]);
+        assertEquals("Unexpected first parse", "[Pit] Hi\n[Palutena] Bye<EOF>", first);
+        assertEquals("Unexpected second parse", "[Pit] Bye<EOF>", second);
+    }
+
+    @Test
+    public void testParseTwoStage()
+    {
+        DialogueGrammar grammar = TestGrammars.load(".*: .*");
+        assertEquals("Expected valid input to parse with SLL", PredictionMode.SLL,
+            grammar.parseTwoStage(CharStreams.fromString("A: hi\nB: bye\n")).getPredictionMode());
+
+        // A pair needs text after its last delimiter, so this falls back to LL with error recovery
+        DialogueGrammar.ParseOutcome outcome = grammar.parseTwoStage(CharStreams.fromString("A: "));
+        assertEquals("Expected invalid input to be parsed again with LL", PredictionMode.LL,
+            outcome.getPredictionMode());
+        assertEquals("Unexpected root rule", grammar.getRuleIndex(DialogueGrammar.START_RULE),
+            outcome.getTree().getRuleIndex());
+    }
+
+    @Test
+    public void testParse_SplitsRecords()
+    {
+        DialogueGrammar grammar = TestGrammars.load(".*: .*");
+        DialogueLineBuilder listener = new DialogueLineBuilder(grammar);
+        new ParseTreeWalker().walk(listener, grammar.parse(CharStreams.fromString("A: hi\nB: bye\n")));
+
+        // Records start at their first delimiter, so the text before it is the title
+        List<DialogueLine> lines = listener.getLines();
+        assertEquals("Unexpected title", "A", listener.getTitle());
+        assertEquals("Unexpected number of lines", 2, lines.size());
+        assertEquals("Unexpected delimiter", ": ", lines.get(1).getDelim(0));
+        assertEquals("Unexpected parts", Arrays.asList("", "bye\n"),
+            Arrays.asList(lines.get(1).getPart(0), lines.get(1).getPart(1)));
+    }
+}
@@ -0,0 +1,27 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class JsonLinesDialogueWriterTest
+{
+    @Test
+    public void testWrite_OneObjectPerLine() throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonLinesDialogueWriter writer = new JsonLinesDialogueWriter(out);
+        writer.write(new DialogueLine(Arrays.asList("Pit", "sad", "\"Hi\"\n"), Arrays.asList(" (", "): ")));
+        writer.write(new DialogueLine(Arrays.asList("", "", "Bye"), Arrays.asList("", "")));
+        writer.finish();
+
+        assertEquals("Unexpected JSON Lines",
+            "{\"parts\":[\"Pit\",\"sad\",\"\\\"Hi\\\"\\n\"],\"delimiters\":[\" (\",\"): \"]}\n" +
+            "{\"parts\":[\"\",\"\",\"Bye\"],\"delimiters\":[\"\",\"\"]}\n",
+            out.toString());
+    }
+}
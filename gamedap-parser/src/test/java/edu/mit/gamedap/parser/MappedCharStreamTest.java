@@ -0,0 +1,127 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedCharStreamTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Several blocks long, with stretches of plain ASCII and of multi-byte characters
+    private static String makeText() {
+        StringBuilder text = new StringBuilder();
+        String[] pieces = {"Pit (sad): Hi\n", "Palutena: été — 😀\n"};
+        Random random = new Random(7);
+        while (text.length() < 5 * MappedCharStream.BLOCK_SIZE) {
+            int repeats = random.nextInt(300);
+            String piece = pieces[random.nextInt(pieces.length)];
+            for (int i = 0; i < repeats; i ++) {
+                text.append(piece);
+            }
+        }
+        return text.toString();
+    }
+
+    private void assertSameStream(CharStream expected, CharStream actual) {
+        assertEquals("Unexpected size", expected.size(), actual.size());
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i ++) {
+            int index = random.nextInt(expected.size() + 2);
+            expected.seek(Math.min(index, expected.size()));
+            actual.seek(Math.min(index, expected.size()));
+            assertEquals("Unexpected code point at " + index, expected.LA(1), actual.LA(1));
+            assertEquals("Unexpected lookahead at " + index, expected.LA(3), actual.LA(3));
+
+            int length = random.nextInt(50);
+            Interval interval = Interval.of(index, index + length);
+            assertEquals("Unexpected text of " + interval, expected.getText(interval), actual.getText(interval));
+        }
+
+        expected.seek(0);
+        actual.seek(0);
+        while (expected.LA(1) != IntStream.EOF) {
+            assertEquals("Unexpected code point at " + expected.index(), expected.LA(1), actual.LA(1));
+            expected.consume();
+            actual.consume();
+        }
+        assertEquals("Expected the end of the stream", IntStream.EOF, actual.LA(1));
+    }
+
+    @Test
+    public void testUtf8() throws IOException
+    {
+        String text = makeText();
+        Path file = folder.getRoot().toPath().resolve("dialogue.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+        // Seek around before the index has been built, then read it in order
+        CharStream stream = MappedCharStream.open(file, StandardCharsets.UTF_8);
+        assertEquals("Unexpected text far into the file",
+            CharStreams.fromString(text).getText(Interval.of(20000, 20010)), stream.getText(Interval.of(20000, 20010)));
+        assertSameStream(CharStreams.fromString(text), stream);
+    }
+
+    @Test
+    public void testLatin1() throws IOException
+    {
+        String text = "Pit (triste): été\n";
+        Path file = folder.getRoot().toPath().resolve("dialogue.txt");
+        Files.write(file, text.getBytes(StandardCharsets.ISO_8859_1));
+        assertSameStream(CharStreams.fromString(text), MappedCharStream.open(file, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testMalformedUtf8() throws IOException
+    {
+        Path file = folder.getRoot().toPath().resolve("dialogue.txt");
+        Files.write(file, new byte[] {'a', (byte) 0xC3, 'b', (byte) 0xFF, (byte) 0xC3, (byte) 0xA9});
+        CharStream stream = MappedCharStream.open(file, StandardCharsets.UTF_8);
+        assertEquals("Unexpected size", 5, stream.size());
+        assertEquals("Unexpected code point", 0xFFFD, stream.LA(2));
+        assertEquals("Unexpected code point", 'b', stream.LA(3));
+        assertEquals("Unexpected code point", 0xFFFD, stream.LA(4));
+        assertEquals("Unexpected code point", 0xE9, stream.LA(5));
+
+        int[][] sequences = {
+            // Overlong forms
+            {0xE0, 0x80, 0xAF}, {0xE0, 0x9F, 0xBF}, {0xF0, 0x8F, 0xBF, 0xBF}, {0xC0, 0xAF},
+            // Surrogates, whole and cut short
+            {0xED, 0xA0, 0x80}, {0xED, 0xBF, 0xBF}, {0xED, 0xA0, 'b'},
+            // Past U+10FFFF
+            {0xF4, 0x90, 0x80, 0x80}, {0xF5, 0x80, 0x80, 0x80},
+            // Cut short
+            {0xE2, 0x82, 'b'}, {0xF0, 0x9F, 0x98, 'b'}, {0xF0, 0x9F, 'b'},
+            // The smallest and largest of each valid form, which must not be replaced
+            {0xE0, 0xA0, 0x80}, {0xED, 0x9F, 0xBF}, {0xF0, 0x90, 0x80, 0x80}, {0xF4, 0x8F, 0xBF, 0xBF},
+        };
+        for (int[] sequence : sequences) {
+            byte[] bytes = new byte[sequence.length + 2];
+            bytes[0] = 'a';
+            for (int i = 0; i < sequence.length; i ++) {
+                bytes[i + 1] = (byte) sequence[i];
+            }
+            bytes[bytes.length - 1] = 'c';
+            Files.write(file, bytes);
+            assertSameStream(CharStreams.fromString(new String(bytes, StandardCharsets.UTF_8)),
+                MappedCharStream.open(file, StandardCharsets.UTF_8));
+        }
+
+        // A sequence cut short by the end of the file
+        Files.write(file, new byte[] {'a', (byte) 0xE2, (byte) 0x82});
+        assertSameStream(CharStreams.fromString("a\uFFFD"), MappedCharStream.open(file, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelDialogueParserTest
+{
+    private static final String INPUT = "Scene 1\nPit (sad): Hi there (again)\nPalutena (happy): Bye\n\n"
+        + "Scene 2\nPit (happy): Hello\nPalutena (sad): Bye\n\n"
+        + "Scene 3\nPit (sad): Farewell\nThe End";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    private static void assertSameAsSequential(DialogueGrammar grammar, ParallelDialogueParser.Result result) {
+        DialogueLineBuilder builder = new DialogueLineBuilder(grammar);
+        new ParseTreeWalker().walk(builder, grammar.parse(CharStreams.fromString(INPUT)));
+
+        assertEquals("Unexpected title", builder.getTitle(), result.getTitle());
+        List<DialogueLine> lines = result.getLines();
+        assertEquals("Unexpected number of lines", builder.getLines().size(), lines.size());
+        for (int i = 0; i < lines.size(); i ++) {
+            assertEquals("Unexpected line " + i, builder.getLines().get(i).toString(), lines.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testParse_Sections() throws InterruptedException
+    {
+        DialogueGrammar grammar = TestGrammars.load(".* (.*): .*\n", ".*\n\n");
+        assertEquals("Unexpected section delimiters", Collections.singletonList("\n\n"),
+            grammar.getSectionDelimiters());
+
+        ParallelDialogueParser.Result result = new ParallelDialogueParser(grammar, executor).parse(INPUT);
+        assertEquals("Expected each section to be parsed separately", 3, result.getSectionCount());
+        assertSameAsSequential(grammar, result);
+    }
+
+    @Test
+    public void testParse_NoSections() throws InterruptedException
+    {
+        DialogueGrammar grammar = TestGrammars.load(".* (.*): .*\n");
+        ParallelDialogueParser.Result result = new ParallelDialogueParser(grammar, executor).parse(INPUT);
+        assertEquals("Expected the input to be parsed as a whole", 1, result.getSectionCount());
+        assertSameAsSequential(grammar, result);
+    }
+}
@@ -0,0 +1,57 @@
+package edu.mit.gamedap.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.Test;
+
+public class StreamingDialogueParserTest
+{
+    private static final String INPUT = "Title\nPit (sad): Hi there (again)\nPalutena (happy): Bye\nThe End";
+
+    @Test
+    public void testParse_SameLinesAsTree()
+    {
+        DialogueGrammar grammar = TestGrammars.load(".* (.*): .*\n");
+        DialogueLineBuilder builder = new DialogueLineBuilder(grammar);
+        new ParseTreeWalker().walk(builder, grammar.parse(CharStreams.fromString(INPUT)));
+
+        List<String> streamedTitles = new ArrayList<>();
+        List<DialogueLine> streamedLines = new ArrayList<>();
+        new StreamingDialogueParser(grammar).parse(new StringReader(INPUT),
+            new StreamingDialogueParser.DialogueListener() {
+                @Override
+                public void title(String title) {
+                    streamedTitles.add(title);
+                }
+
+                @Override
+                public void line(DialogueLine line) {
+                    streamedLines.add(line);
+                }
+            });
+
+        assertEquals("Unexpected titles", Collections.singletonList(builder.getTitle()), streamedTitles);
+        assertEquals("Unexpected number of lines", builder.getLines().size(), streamedLines.size());
+        for (int i = 0; i < streamedLines.size(); i ++) {
+            assertEquals("Unexpected line " + i, builder.getLines().get(i).toString(), streamedLines.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testLexDelimiters()
+    {
+        List<String> delimiters = new ArrayList<>();
+        new StreamingDialogueParser(TestGrammars.load(".* (.*): .*\n")).lexDelimiters(new StringReader(INPUT),
+            (index, section, offset, text) -> delimiters.add(offset + ":" + index));
+        assertEquals("Unexpected delimiters",
+            Arrays.asList("5:2", "9:0", "14:1", "25:0", "33:2", "42:0", "49:1", "55:2"), delimiters);
+    }
+}
@@ -0,0 +1,53 @@
+package edu.mit.gamedap.parser;
+
+import java.util.Collections;
+
+import edu.mit.gamedap.generator.GrammarBuilder;
+import edu.mit.gamedap.generator.datatypes.EmptyContext;
+import edu.mit.gamedap.generator.parsers.SampsonParser;
+
+/**
+ * Builds the grammars that the generator would write for given record formats, without learning them.
+ */
+final class TestGrammars
+{
+    private static final SampsonParser<EmptyContext, Character> PARSER = new SampsonParser<>(2);
+
+    private TestGrammars() {
+    }
+
+    /**
+     * @param recordFormat The record format, e.g. ".*: .*\n"
+     * @return The text of the grammar
+     */
+    static String build(String recordFormat) {
+        return GrammarBuilder.build(PARSER.new ParseResults(recordFormat, Collections.emptyList()));
+    }
+
+    /**
+     * @param recordFormat The record format, e.g. ".*: .*\n"
+     * @param sectionFormat The format of the sections that the records are grouped into, e.g. ".*\n\n"
+     * @return The text of the grammar
+     */
+    static String build(String recordFormat, String sectionFormat) {
+        return GrammarBuilder.build(PARSER.new ParseResults(recordFormat, Collections.emptyList(),
+            PARSER.new ParseResults(sectionFormat, Collections.emptyList())));
+    }
+
+    /**
+     * @param recordFormat The record format, e.g. ".*: .*\n"
+     * @return The loaded grammar
+     */
+    static DialogueGrammar load(String recordFormat) {
+        return DialogueGrammar.load(build(recordFormat));
+    }
+
+    /**
+     * @param recordFormat The record format, e.g. ".*: .*\n"
+     * @param sectionFormat The format of the sections that the records are grouped into, e.g. ".*\n\n"
+     * @return The loaded grammar
+     */
+    static DialogueGrammar load(String recordFormat, String sectionFormat) {
+        return DialogueGrammar.load(build(recordFormat, sectionFormat));
+    }
+}